@@ -0,0 +1,63 @@
+package research_exchange.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import research_exchange.services.PasswordHashAlgorithm;
+import research_exchange.services.Pbkdf2Sha1HashAlgorithm;
+import research_exchange.services.Pbkdf2Sha256HashAlgorithm;
+
+/**
+ * The Password Hash Benchmark class which measures how long one password hash
+ * takes for each algorithm and iteration count, to pick the
+ * {@code research-exchange.password-hashing.iterations} that meets the target
+ * login latency on the machines the server runs on. Run it there with
+ * {@code ./gradlew jmh} and pick the largest iteration count whose average time
+ * is still within the target.
+ *
+ * @author Tyrone Wu
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordHashBenchmark {
+
+    @Param({ "pbkdf2-sha1", "pbkdf2-sha256" })
+    public String algorithm;
+
+    @Param({ "65536", "210000", "310000", "600000" })
+    public int iterations;
+
+    @Param({ "256" })
+    public int keyLength;
+
+    private PasswordHashAlgorithm hashAlgorithm;
+
+    private final byte[] salt = "benchmark-salt16".getBytes();
+
+    @Setup
+    public void setup() {
+        hashAlgorithm = algorithm.equals(Pbkdf2Sha1HashAlgorithm.NAME) ? new Pbkdf2Sha1HashAlgorithm()
+                : new Pbkdf2Sha256HashAlgorithm();
+    }
+
+    @Benchmark
+    public byte[] hash() {
+        return hashAlgorithm.hash("correct horse battery staple", salt, iterations, keyLength);
+    }
+
+}
@@ -40,6 +40,9 @@ import research_exchange.repositories.InlineCommentRepository;
 import research_exchange.repositories.LinkRepository;
 import research_exchange.repositories.TagAbstractRepository;
 import research_exchange.repositories.UserRepository;
+import research_exchange.services.ArticleLeaderboard;
+import research_exchange.services.ArticleSearchIndex;
+import research_exchange.services.ArticleTagIndex;
 import research_exchange.services.CommentService;
 import research_exchange.services.ExpertReviewService;
 
@@ -75,6 +78,12 @@ public class DataPopulator {
 
     private final ExpertRequestRepository expertRequestRepository;
 
+    private final ArticleSearchIndex articleSearchIndex;
+
+    private final ArticleTagIndex articleTagIndex;
+
+    private final ArticleLeaderboard articleLeaderboard;
+
     public DataPopulator(UserRepository userRepository, ExpertRepository expertRepository,
             ArticleRepository articleRepository, AuthorRepository authorRepository,
             TagAbstractRepository tagRepository,
@@ -84,7 +93,9 @@ public class DataPopulator {
             InlineCommentRepository inlineCommentRepository,
             CommentService commentService,
             HighlightSectionRepository highlightSectionRepository,
-            ExpertRequestRepository expertRequestRepository) {
+            ExpertRequestRepository expertRequestRepository,
+            ArticleSearchIndex articleSearchIndex, ArticleTagIndex articleTagIndex,
+            ArticleLeaderboard articleLeaderboard) {
         this.userRepository = userRepository;
         this.expertRepository = expertRepository;
         this.articleRepository = articleRepository;
@@ -99,6 +110,9 @@ public class DataPopulator {
         this.commentService = commentService;
         this.highlightSectionRepository = highlightSectionRepository;
         this.expertRequestRepository = expertRequestRepository;
+        this.articleSearchIndex = articleSearchIndex;
+        this.articleTagIndex = articleTagIndex;
+        this.articleLeaderboard = articleLeaderboard;
     }
 
     @EventListener
@@ -1205,6 +1219,11 @@ public class DataPopulator {
                 new ExpertReviewForm(a15UserExpert2.getUsername(), "review", "Approved", null));
         expertReviewService.postExpertReview(savedA15.getId(),
                 new ExpertReviewForm(a15UserExpert3.getUsername(), "review", "Approved", null));
+
+        // Articles above were saved straight to the repositories, so index them
+        articleSearchIndex.rebuild();
+        articleTagIndex.rebuild();
+        articleLeaderboard.reconcile();
     }
 
     private String hashPassword(String password, byte[] salt) {
@@ -1,34 +1,47 @@
 package research_exchange.authentication;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.reactivestreams.Publisher;
 
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpRequest;
+import io.micronaut.security.authentication.Authentication;
 import io.micronaut.security.authentication.AuthenticationProvider;
 import io.micronaut.security.authentication.AuthenticationRequest;
 import io.micronaut.security.authentication.AuthenticationResponse;
 import jakarta.inject.Singleton;
-import reactor.core.publisher.Flux;
-import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
 import research_exchange.models.User;
 import research_exchange.repositories.UserRepository;
-import research_exchange.services.UserService;
+import research_exchange.services.LoginThrottle;
+import research_exchange.services.PasswordHasher;
 
 @Singleton
 public class AuthenticationProviderUserPassword implements AuthenticationProvider {
 
+    /** The token attribute holding the ID of the authenticated User. */
+    public static final String USER_ID_ATTRIBUTE = "userId";
+
     private final UserRepository userRepository;
 
-    private final UserService userService;
+    private final PasswordHasher passwordHasher;
+
+    private final LoginThrottle loginThrottle;
 
-    public AuthenticationProviderUserPassword(UserRepository userRepository, UserService userService) {
+    private final LoginAddressResolver addressResolver;
+
+    public AuthenticationProviderUserPassword(UserRepository userRepository, PasswordHasher passwordHasher,
+            LoginThrottle loginThrottle, LoginAddressResolver addressResolver) {
         this.userRepository = userRepository;
-        this.userService = userService;
+        this.passwordHasher = passwordHasher;
+        this.loginThrottle = loginThrottle;
+        this.addressResolver = addressResolver;
     }
 
     @Override
@@ -37,24 +50,60 @@ public class AuthenticationProviderUserPassword implements AuthenticationProvide
 
         final String username = authRequest.getIdentity().toString();
         final String password = authRequest.getSecret().toString();
+        final String address = httpRequest != null ? addressResolver.resolve(httpRequest) : null;
+
+        // Turn away a throttled username before looking it up or hashing
+        Duration wait = loginThrottle.tryAcquireUsername(address, username);
+        if (!wait.isZero()) {
+            if (httpRequest != null) {
+                httpRequest.setAttribute(LoginThrottleFilter.RETRY_AFTER_ATTRIBUTE, wait);
+            }
+            return Mono.error(AuthenticationResponse.exception());
+        }
 
         Optional<User> existingUser = userRepository.findByUsername(username);
+        if (existingUser.isEmpty()) {
+            loginThrottle.recordFailure(address, username);
+            return Mono.error(AuthenticationResponse.exception());
+        }
+        User user = existingUser.get();
 
-        return Flux.create(emitter -> {
-            if (existingUser.isPresent()
-                    && userService.verifyPassword(username, password, existingUser.get().getSalt())) {
-                Map<String, Object> attributes = new HashMap<>();
-                attributes.put("userId", existingUser.get().getId());
+        // The hash runs on the hashing pool rather than the request thread; a
+        // full hashing queue fails the login instead of waiting, and the
+        // LoginCapacityFilter answers it with a 503 rather than a 401
+        return Mono.fromFuture(passwordHasher.verify(user, password))
+                .onErrorMap(RejectedExecutionException.class, e -> {
+                    if (httpRequest != null) {
+                        httpRequest.setAttribute(LoginCapacityFilter.SATURATED_ATTRIBUTE, true);
+                    }
+                    return AuthenticationResponse.exception();
+                })
+                .flatMap(matches -> {
+                    if (!matches) {
+                        loginThrottle.recordFailure(address, username);
+                        return Mono.error(AuthenticationResponse.exception());
+                    }
+                    loginThrottle.recordSuccess(address, username);
+                    passwordHasher.upgradeIfOutdated(user, password);
 
-                String role = existingUser.get().getRole();
+                    Map<String, Object> attributes = new HashMap<>();
+                    attributes.put(USER_ID_ATTRIBUTE, user.getId());
 
-                emitter.next(AuthenticationResponse.success((String) authRequest.getIdentity(), Arrays.asList(role),
-                        attributes));
-                emitter.complete();
-            } else {
-                emitter.error(AuthenticationResponse.exception());
-            }
-        }, FluxSink.OverflowStrategy.ERROR);
+                    return Mono.just(AuthenticationResponse.success(username, Arrays.asList(user.getRole()),
+                            attributes));
+                });
+    }
+
+    /**
+     * Get the ID of the authenticated User from the token attributes.
+     *
+     * @param authentication the authenticated User
+     * @return the User ID; empty if the token has none
+     */
+    public static Optional<Long> userIdOf(Authentication authentication) {
+        Object userId = authentication.getAttributes().get(USER_ID_ATTRIBUTE);
+        // Numbers read back from a JWT may be narrowed to Integer
+        return userId instanceof Number ? Optional.of(((Number) userId).longValue()) : Optional.empty();
     }
 
 }
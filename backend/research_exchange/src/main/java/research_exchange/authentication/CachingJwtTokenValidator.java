@@ -0,0 +1,75 @@
+package research_exchange.authentication;
+
+import java.util.Collection;
+
+import org.reactivestreams.Publisher;
+
+import io.micronaut.context.annotation.Replaces;
+import io.micronaut.core.annotation.Nullable;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.security.authentication.Authentication;
+import io.micronaut.security.token.jwt.encryption.EncryptionConfiguration;
+import io.micronaut.security.token.jwt.signature.SignatureConfiguration;
+import io.micronaut.security.token.jwt.validator.GenericJwtClaimsValidator;
+import io.micronaut.security.token.jwt.validator.JwtAuthenticationFactory;
+import io.micronaut.security.token.jwt.validator.JwtTokenValidator;
+import io.micronaut.security.token.validator.TokenValidator;
+import jakarta.inject.Singleton;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * The Caching JWT Token Validator class which checks the ValidatedTokenCache
+ * before fully validating a bearer token, and caches the Authentication of
+ * every token it validates. Tokens that were revoked are rejected whether or
+ * not they are cached.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+@Replaces(JwtTokenValidator.class)
+public class CachingJwtTokenValidator implements TokenValidator {
+
+    /** For fully validating tokens that are not cached. */
+    private final JwtTokenValidator delegate;
+
+    /** For the tokens already validated, and the revoked ones. */
+    private final ValidatedTokenCache validatedTokenCache;
+
+    /**
+     * Setup the full validator with the same configuration it would have on its
+     * own, and the cache in front of it.
+     *
+     * @param signatureConfigurations    the signature configurations
+     * @param encryptionConfigurations   the encryption configurations
+     * @param genericJwtClaimsValidators the claims validators
+     * @param jwtAuthenticationFactory   the factory of the Authentication of a
+     *                                   token
+     * @param validatedTokenCache        the Validated Token Cache
+     */
+    public CachingJwtTokenValidator(Collection<SignatureConfiguration> signatureConfigurations,
+            Collection<EncryptionConfiguration> encryptionConfigurations,
+            Collection<GenericJwtClaimsValidator> genericJwtClaimsValidators,
+            JwtAuthenticationFactory jwtAuthenticationFactory, ValidatedTokenCache validatedTokenCache) {
+        this.delegate = new JwtTokenValidator(signatureConfigurations, encryptionConfigurations,
+                genericJwtClaimsValidators, jwtAuthenticationFactory);
+        this.validatedTokenCache = validatedTokenCache;
+    }
+
+    @Override
+    public Publisher<Authentication> validateToken(String token, @Nullable HttpRequest<?> request) {
+        Authentication cached = validatedTokenCache.get(token);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+
+        return Flux.from(delegate.validateToken(token, request))
+                .filter(authentication -> validatedTokenCache.put(token, authentication));
+    }
+
+    @Override
+    public int getOrder() {
+        return delegate.getOrder();
+    }
+
+}
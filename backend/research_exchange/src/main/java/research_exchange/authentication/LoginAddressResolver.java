@@ -0,0 +1,60 @@
+package research_exchange.authentication;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.server.HttpServerConfiguration;
+import io.micronaut.http.server.util.HttpClientAddressResolver;
+import jakarta.inject.Singleton;
+
+/**
+ * The Login Address Resolver class which finds the client address logins are
+ * throttled by. The address a proxy forwards is only used when the header it
+ * is sent in is configured with {@code micronaut.server.client-address-header};
+ * otherwise the Forwarded and X-Forwarded-For headers could be set to anything
+ * by the client, so the address of the connection is used instead.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class LoginAddressResolver {
+
+    /** For the address in the configured proxy header. */
+    private final HttpClientAddressResolver addressResolver;
+
+    /** Whether a proxy header to trust is configured. */
+    private final boolean trustProxyHeader;
+
+    /**
+     * Setup the address resolver.
+     *
+     * @param addressResolver     the client address resolver
+     * @param serverConfiguration the server configuration, for the configured
+     *                            proxy header
+     */
+    public LoginAddressResolver(HttpClientAddressResolver addressResolver,
+            HttpServerConfiguration serverConfiguration) {
+        this.addressResolver = addressResolver;
+        this.trustProxyHeader = serverConfiguration.getClientAddressHeader() != null;
+    }
+
+    /**
+     * Find the client address of a request.
+     *
+     * @param request the request
+     * @return the client address; null if there is none
+     */
+    public String resolve(HttpRequest<?> request) {
+        if (trustProxyHeader) {
+            return addressResolver.resolve(request);
+        }
+        InetSocketAddress remote = request.getRemoteAddress();
+        if (remote == null) {
+            return null;
+        }
+        InetAddress address = remote.getAddress();
+        return address != null ? address.getHostAddress() : remote.getHostString();
+    }
+
+}
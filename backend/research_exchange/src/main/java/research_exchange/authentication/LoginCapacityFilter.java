@@ -0,0 +1,84 @@
+package research_exchange.authentication;
+
+import org.reactivestreams.Publisher;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.http.filter.ServerFilterPhase;
+import research_exchange.services.PasswordHasher;
+
+/**
+ * The Login Capacity Filter class which turns logins away with a 503 while the
+ * password hashing queue is full, before the User is looked up, so a burst of
+ * logins is shed quickly instead of waiting on the hashing pool. A login the
+ * AuthenticationProviderUserPassword could not hash because the queue filled
+ * up in the meantime is answered with a 503 as well, rather than looking like
+ * a wrong password.
+ *
+ * @author Tyrone Wu
+ */
+@Filter("/login")
+public class LoginCapacityFilter implements HttpServerFilter {
+
+    /**
+     * The request attribute the authentication provider sets when the hashing
+     * queue turned its login away.
+     */
+    public static final String SATURATED_ATTRIBUTE = "research-exchange.login.saturated";
+
+    /** For checking if the hashing queue is full. */
+    private final PasswordHasher passwordHasher;
+
+    /** The seconds a client is told to wait before trying again. */
+    private final int retryAfterSeconds;
+
+    /**
+     * Setup the Password Hasher into the filter.
+     *
+     * @param passwordHasher    the Password Hasher
+     * @param retryAfterSeconds the seconds a client is told to wait before
+     *                          trying again
+     */
+    public LoginCapacityFilter(PasswordHasher passwordHasher,
+            @Value("${research-exchange.password-hashing.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.passwordHasher = passwordHasher;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+        if (request.getMethod() != HttpMethod.POST) {
+            return chain.proceed(request);
+        }
+
+        if (passwordHasher.isSaturated()) {
+            return Publishers.just(serviceUnavailable());
+        }
+        return Publishers.map(chain.proceed(request), response -> request
+                .getAttribute(SATURATED_ATTRIBUTE)
+                .<MutableHttpResponse<?>>map(saturated -> serviceUnavailable())
+                .orElse(response));
+    }
+
+    @Override
+    public int getOrder() {
+        return ServerFilterPhase.FIRST.order();
+    }
+
+    private MutableHttpResponse<?> serviceUnavailable() {
+        int status = HttpStatus.SERVICE_UNAVAILABLE.getCode();
+        return HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body("Status " + status + ": Too many logins are in progress. Try again shortly.");
+    }
+
+}
@@ -0,0 +1,86 @@
+package research_exchange.authentication;
+
+import java.time.Duration;
+
+import org.reactivestreams.Publisher;
+
+import io.micronaut.core.async.publisher.Publishers;
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpMethod;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.HttpServerFilter;
+import io.micronaut.http.filter.ServerFilterChain;
+import io.micronaut.http.filter.ServerFilterPhase;
+import research_exchange.services.LoginThrottle;
+
+/**
+ * The Login Throttle Filter class which answers logins with a 429 once their
+ * client address has made too many attempts, before the body is even read. A
+ * login the AuthenticationProviderUserPassword throttled by its username at
+ * that address is answered with a 429 as well, rather than looking like a
+ * wrong password.
+ *
+ * @author Tyrone Wu
+ */
+@Filter("/login")
+public class LoginThrottleFilter implements HttpServerFilter {
+
+    /**
+     * The request attribute the authentication provider sets to how long a
+     * login throttled by its username at its address has to wait.
+     */
+    public static final String RETRY_AFTER_ATTRIBUTE = "research-exchange.login.retry-after";
+
+    /** For limiting the attempts of each address. */
+    private final LoginThrottle loginThrottle;
+
+    /** For the client address, behind any trusted proxy. */
+    private final LoginAddressResolver addressResolver;
+
+    /**
+     * Setup the Login Throttle into the filter.
+     *
+     * @param loginThrottle   the Login Throttle
+     * @param addressResolver the Login Address Resolver
+     */
+    public LoginThrottleFilter(LoginThrottle loginThrottle, LoginAddressResolver addressResolver) {
+        this.loginThrottle = loginThrottle;
+        this.addressResolver = addressResolver;
+    }
+
+    @Override
+    public Publisher<MutableHttpResponse<?>> doFilter(HttpRequest<?> request, ServerFilterChain chain) {
+        if (request.getMethod() != HttpMethod.POST) {
+            return chain.proceed(request);
+        }
+
+        Duration wait = loginThrottle.tryAcquireAddress(addressResolver.resolve(request));
+        if (!wait.isZero()) {
+            return Publishers.just(tooManyRequests(wait));
+        }
+        return Publishers.map(chain.proceed(request), response -> request
+                .getAttribute(RETRY_AFTER_ATTRIBUTE, Duration.class)
+                .<MutableHttpResponse<?>>map(LoginThrottleFilter::tooManyRequests)
+                .orElse(response));
+    }
+
+    @Override
+    public int getOrder() {
+        // Ahead of the LoginCapacityFilter, so a flood from one address is
+        // answered as throttled rather than as an overloaded server
+        return ServerFilterPhase.FIRST.before();
+    }
+
+    private static MutableHttpResponse<?> tooManyRequests(Duration wait) {
+        int status = HttpStatus.TOO_MANY_REQUESTS.getCode();
+        long seconds = Math.max(1, (wait.toMillis() + 999) / 1000);
+        return HttpResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(seconds))
+                .body("Status " + status + ": Too many login attempts. Try again in " + seconds + " seconds.");
+    }
+
+}
@@ -0,0 +1,234 @@
+package research_exchange.authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.function.ToLongFunction;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.JWTParser;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.security.authentication.Authentication;
+import jakarta.inject.Singleton;
+
+/**
+ * The Validated Token Cache class which keeps the Authentication of recently
+ * validated bearer tokens, so a token sent with every request of a session is
+ * only parsed and has its signature checked once. Tokens are kept by their
+ * SHA-256 digest until they expire, and never past the {@code exp} of the
+ * token. It also keeps which tokens were logged out and which Users had their
+ * role changed, so those tokens are turned away right away rather than when
+ * they expire. A User is revoked as a single entry covering every token issued
+ * to them up to then. Revocations are never dropped to make room, only once
+ * the tokens they cover have expired anyway. Hit and miss counts are published
+ * under the {@code cache.*} metrics with the name {@code validated-tokens}.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ValidatedTokenCache {
+
+    /** The validated tokens by digest. */
+    private final Cache<String, ValidatedToken> tokens;
+
+    /** The expiry of each logged out token by digest, from its {@code exp}. */
+    private final Cache<String, Long> revokedTokens;
+
+    /** When each revoked User was revoked, in epoch seconds, by username. */
+    private final Cache<String, Long> revokedUsers;
+
+    /** How long a token without an expiry is kept. */
+    private final long maxLifetimeNanos;
+
+    /**
+     * Setup the caches and register their metrics.
+     *
+     * @param meterRegistry the registry to publish the hit and miss counts to
+     * @param maximumSize   the most tokens that are kept
+     * @param tokenLifetime how long an access token lasts, so revocations are
+     *                      kept as long as the tokens they cover
+     */
+    public ValidatedTokenCache(MeterRegistry meterRegistry,
+            @Value("${research-exchange.validated-tokens.maximum-size:10000}") long maximumSize,
+            @Value("${micronaut.security.token.jwt.generator.access-token.expiration:3600}") int tokenLifetime) {
+        this.maxLifetimeNanos = Duration.ofSeconds(tokenLifetime).toNanos();
+        this.tokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new UntilExpiry<ValidatedToken>(token -> token.expiresAt))
+                .recordStats()
+                .build();
+        this.revokedTokens = Caffeine.newBuilder()
+                .expireAfter(new UntilExpiry<Long>(expiresAt -> expiresAt))
+                .build();
+        this.revokedUsers = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofSeconds(tokenLifetime))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, tokens, "validated-tokens");
+    }
+
+    /**
+     * Get the Authentication of a token that was already validated.
+     *
+     * @param token the bearer token
+     * @return the Authentication; null if the token is not cached or has been
+     *         revoked since
+     */
+    public Authentication get(String token) {
+        String digest = digest(token);
+        ValidatedToken validated = tokens.getIfPresent(digest);
+        if (validated == null) {
+            return null;
+        }
+        if (isRevoked(digest, validated.authentication.getName(), validated.issuedAt)) {
+            tokens.invalidate(digest);
+            return null;
+        }
+        return validated.authentication;
+    }
+
+    /**
+     * Keep the Authentication of a token that was just validated, unless the
+     * token has been revoked.
+     *
+     * @param token          the bearer token, whose signature has been checked
+     * @param authentication the Authentication of the token
+     * @return true if the token is valid; false if it has been revoked
+     */
+    public boolean put(String token, Authentication authentication) {
+        JWTClaimsSet claims = claims(token);
+        if (claims == null) {
+            return false;
+        }
+        String digest = digest(token);
+        Date issuedAt = claims.getIssueTime();
+        long issuedAtSeconds = issuedAt != null ? issuedAt.getTime() / 1000 : Long.MIN_VALUE;
+        if (isRevoked(digest, authentication.getName(), issuedAtSeconds)) {
+            return false;
+        }
+        long expiresAt = Math.min(expiresAt(claims), System.nanoTime() + maxLifetimeNanos);
+        tokens.put(digest, new ValidatedToken(authentication, issuedAtSeconds, expiresAt));
+        return true;
+    }
+
+    /**
+     * Revoke a single token, such as when its User logs out.
+     *
+     * @param token the bearer token
+     */
+    public void revokeToken(String token) {
+        String digest = digest(token);
+        revokedTokens.put(digest, expiresAt(claims(token)));
+        tokens.invalidate(digest);
+    }
+
+    /**
+     * Revoke every token issued to a User so far, such as when their role
+     * changes, so they have to log in again to get a token with the new role.
+     *
+     * @param username the username of the User
+     */
+    public void revokeUser(String username) {
+        revokedUsers.put(username, System.currentTimeMillis() / 1000);
+        tokens.asMap().values().removeIf(token -> token.authentication.getName().equals(username));
+    }
+
+    private boolean isRevoked(String digest, String username, long issuedAtSeconds) {
+        if (revokedTokens.getIfPresent(digest) != null) {
+            return true;
+        }
+        Long revokedAt = revokedUsers.getIfPresent(username);
+        // Both are in whole seconds, since that is all the claims hold, so a
+        // token issued in the same second as the revocation is revoked too
+        return revokedAt != null && issuedAtSeconds <= revokedAt;
+    }
+
+    /**
+     * The System.nanoTime() at which a token expires; the longest a token lasts
+     * from now if it has no expiry or cannot be read.
+     */
+    private long expiresAt(JWTClaimsSet claims) {
+        long now = System.nanoTime();
+        Date expiresAt = claims != null ? claims.getExpirationTime() : null;
+        if (expiresAt == null) {
+            return now + maxLifetimeNanos;
+        }
+        return now + Math.max(0, Duration.ofMillis(expiresAt.getTime() - System.currentTimeMillis()).toNanos());
+    }
+
+    /** The claims of a token, without checking its signature; null if it is malformed. */
+    private static JWTClaimsSet claims(String token) {
+        try {
+            return JWTParser.parse(token).getJWTClaimsSet();
+        } catch (ParseException e) {
+            return null;
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * The Authentication of a validated token, with when it was issued and
+     * when it stops being kept.
+     */
+    private static final class ValidatedToken {
+
+        private final Authentication authentication;
+
+        private final long issuedAt;
+
+        private final long expiresAt;
+
+        private ValidatedToken(Authentication authentication, long issuedAt, long expiresAt) {
+            this.authentication = authentication;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+    /**
+     * Expires each entry at the System.nanoTime() it holds.
+     */
+    private static final class UntilExpiry<V> implements Expiry<String, V> {
+
+        private final ToLongFunction<V> expiresAt;
+
+        private UntilExpiry(ToLongFunction<V> expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, V value, long currentTime) {
+            return Math.max(0, expiresAt.applyAsLong(value) - currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
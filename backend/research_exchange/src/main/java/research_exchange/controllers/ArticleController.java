@@ -1,198 +1,173 @@
 package research_exchange.controllers;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 import javax.validation.constraints.NotBlank;
 
-import com.oracle.bmc.objectstorage.ObjectStorageClient;
-import com.oracle.bmc.objectstorage.requests.PutObjectRequest;
-import com.oracle.bmc.objectstorage.transfer.UploadConfiguration;
-import com.oracle.bmc.objectstorage.transfer.UploadManager;
-import com.oracle.bmc.objectstorage.transfer.UploadManager.UploadRequest;
-
 import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.Post;
 import io.micronaut.http.annotation.QueryValue;
-import io.micronaut.http.multipart.CompletedFileUpload;
+import io.micronaut.http.multipart.StreamingFileUpload;
 import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.micronaut.security.annotation.Secured;
 import io.micronaut.security.authentication.Authentication;
 import io.micronaut.security.rules.SecurityRule;
-import jakarta.inject.Inject;
-import research_exchange.dto.CommenterDTO;
+import reactor.core.publisher.Mono;
+import research_exchange.authentication.AuthenticationProviderUserPassword;
+import research_exchange.forms.ArticleSearchForm;
 import research_exchange.models.Article;
 import research_exchange.models.Author;
-import research_exchange.models.ExpertReview;
 import research_exchange.models.Link;
 import research_exchange.models.Tag;
-import research_exchange.models.User;
 import research_exchange.repositories.ArticleRepository;
 import research_exchange.repositories.AuthorRepository;
-import research_exchange.repositories.ExpertReviewRepository;
 import research_exchange.repositories.LinkRepository;
 import research_exchange.repositories.TagAbstractRepository;
-import research_exchange.repositories.UserRepository;
+import research_exchange.services.ArticleCursor;
+import research_exchange.services.ArticleHydrator;
+import research_exchange.services.ArticleLeaderboard;
+import research_exchange.services.ArticlePdfStore;
+import research_exchange.services.ArticlePage;
+import research_exchange.services.ArticleSearchIndex;
+import research_exchange.services.ArticleSearchService;
+import research_exchange.services.ArticleTagIndex;
+import research_exchange.services.IdentityResolver;
+import research_exchange.services.VoteAggregator;
 
 @Controller("/articles")
 @Secured(SecurityRule.IS_ANONYMOUS)
 @ExecuteOn(TaskExecutors.IO)
 public class ArticleController {
 
-    @Inject
-    ObjectStorageClient objectStorageClient;
+    /** The response header holding the cursor for the next page of a listing. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /** The response header holding the number of items across every page. */
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    /** The number of top Articles listed when no limit is given. */
+    private static final int DEFAULT_TOP_ARTICLES = 3;
 
     private final ArticleRepository articleRepository;
 
     private final TagAbstractRepository tagAbstractRepository;
 
-    private final UserRepository userRepository;
+    private final IdentityResolver identityResolver;
 
     private final AuthorRepository authorRepository;
 
     private final LinkRepository linkRepository;
 
-    private final ExpertReviewRepository expertReviewRepository;
+    private final ArticleSearchService articleSearchService;
+
+    private final ArticleHydrator articleHydrator;
+
+    private final ArticleSearchIndex articleSearchIndex;
+
+    private final ArticleTagIndex articleTagIndex;
+
+    private final ArticleLeaderboard articleLeaderboard;
+
+    private final VoteAggregator voteAggregator;
+
+    private final ArticlePdfStore articlePdfStore;
 
     public ArticleController(ArticleRepository articleRepository, TagAbstractRepository tagAbstractRepository,
-            UserRepository userRepository, AuthorRepository authorRepository, LinkRepository linkRepository,
-            ExpertReviewRepository expertReviewRepository) {
+            IdentityResolver identityResolver, AuthorRepository authorRepository, LinkRepository linkRepository,
+            ArticleSearchService articleSearchService, ArticleHydrator articleHydrator,
+            ArticleSearchIndex articleSearchIndex, ArticleTagIndex articleTagIndex,
+            ArticleLeaderboard articleLeaderboard, VoteAggregator voteAggregator,
+            ArticlePdfStore articlePdfStore) {
         this.articleRepository = articleRepository;
         this.tagAbstractRepository = tagAbstractRepository;
-        this.userRepository = userRepository;
+        this.identityResolver = identityResolver;
         this.authorRepository = authorRepository;
         this.linkRepository = linkRepository;
-        this.expertReviewRepository = expertReviewRepository;
+        this.articleSearchService = articleSearchService;
+        this.articleHydrator = articleHydrator;
+        this.articleSearchIndex = articleSearchIndex;
+        this.articleTagIndex = articleTagIndex;
+        this.articleLeaderboard = articleLeaderboard;
+        this.voteAggregator = voteAggregator;
+        this.articlePdfStore = articlePdfStore;
     }
 
     @Get(value = "/{id}")
     public Optional<Article> viewAPost(@NotBlank Long id) throws Exception {
         Optional<Article> a = articleRepository.findById(id);
-        Article article = null;
-        if (a.isPresent()) {
-            article = a.get();
-            boolean isApproved = article.getApproved() == 1;
-
-            List<Author> authorsList = new ArrayList<>();
-            List<Tag> tagsList = tagAbstractRepository.findAllByArticleId(id);
-            if (isApproved) {
-                authorsList = authorRepository.findAllByArticleId(id);
-            }
-            List<Link> linksList = linkRepository.findAllByArticleId(id);
-            List<ExpertReview> expertReviewsList = expertReviewRepository
-                    .findAllByIdIsNotNullAnd_CommentPost_ArticleId(article.getId());
-
-            if (tagsList != null && !tagsList.isEmpty()) {
-                List<String> tags = new ArrayList<>();
-                for (Tag tag : tagsList) {
-                    tags.add(tag.getName());
-                }
-                article.setTags(tags);
-            }
-            if (isApproved) {
-                List<CommenterDTO> authors = new ArrayList<>();
-                for (Author author : authorsList) {
-                    String username = author.getUsername();
-                    Optional<User> user = userRepository.findByUsername(username);
-                    String name = user.isPresent() ? user.get().getName() : null;
-                    authors.add(new CommenterDTO(username, name));
-                }
-            }
-            if (linksList != null && !linksList.isEmpty()) {
-                List<String> links = new ArrayList<>();
-                for (Link link : linksList) {
-                    links.add(link.getUrl());
-                }
-                article.setLinks(links);
-            }
-            if (expertReviewsList != null && !expertReviewsList.isEmpty()) {
-                List<String> expertReviews = new ArrayList<>();
-                for (ExpertReview expertReview : expertReviewsList) {
-                    expertReviews.add(expertReview.getStatus());
-                }
-                article.setExpertReviews(expertReviews);
-            }
-        }
-
-        if (article == null) {
+        if (a.isEmpty()) {
             throw new Exception("No article found matching given ID.");
         }
 
+        articleHydrator.hydrate(Collections.singletonList(a.get()), false);
         return a;
     }
 
     @Secured(SecurityRule.IS_AUTHENTICATED)
     @Post(value = "/", consumes = MediaType.MULTIPART_FORM_DATA)
-    public HttpResponse<String> addArticle(Authentication authentication, CompletedFileUpload articlePdf, String title,
+    public Mono<HttpResponse<String>> addArticle(Authentication authentication, String title,
             String articleAbstract,
             String authors, @Nullable String tags, String mainField, String subField, @Nullable String repoUrl,
-            @Nullable String dataUrl, @Nullable String extraLinks) {
+            @Nullable String dataUrl, @Nullable String extraLinks, StreamingFileUpload articlePdf) {
 
         List<String> authorNames = Arrays.asList(authors.split(","));
         if (!authorNames.contains(authentication.getName())) {
-            return HttpResponse.badRequest("Your name must be included in the list of author names");
+            articlePdf.discard();
+            return Mono.just(HttpResponse.badRequest("Your name must be included in the list of author names"));
         }
 
-        for (String author : authorNames) {
-            if (userRepository.findByUsername(author).isEmpty()) {
-                return HttpResponse.badRequest("Every author must be the username of an existing user");
-            }
+        // Every author is resolved in one lookup before anything is uploaded
+        try {
+            identityResolver.requireAll(authorNames);
+        } catch (IllegalArgumentException e) {
+            articlePdf.discard();
+            return Mono.just(HttpResponse.badRequest(
+                    "Every author must be the username of an existing user. " + e.getMessage()));
         }
 
-        final String bucketName = "research-exchange-pdf-storage-bucket";
-        final String namespaceName = "idvpzhveofap";
-
         final String filename = articlePdf.getFilename();
 
         if (filename.length() < 4 || !filename.substring(filename.length() - 4).equals(".pdf")) {
-            return HttpResponse.badRequest("Filename should end with .pdf");
+            articlePdf.discard();
+            return Mono.just(HttpResponse.badRequest("Filename should end with .pdf"));
         }
 
         final String randomUuid = UUID.randomUUID().toString();
         final String objectName = filename.substring(0, filename.length() - 4) + "-" + randomUuid + ".pdf";
 
-        UploadConfiguration uploadConfiguration = UploadConfiguration.builder().allowMultipartUploads(true)
-                .allowParallelUploads(true).build();
-
-        UploadManager uploadManager = new UploadManager(objectStorageClient, uploadConfiguration);
-
-        PutObjectRequest request = PutObjectRequest.builder().bucketName(bucketName).namespaceName(namespaceName)
-                .objectName(objectName).build();
-
-        InputStream stream = null;
-        try {
-            stream = articlePdf.getInputStream();
-        } catch (IOException ex) {
-            return HttpResponse.badRequest("File was unable to be read");
-        }
-
-        UploadRequest uploadDetails = UploadRequest.builder(stream, articlePdf.getSize()).allowOverwrite(true)
-                .build(request);
-
-        uploadManager.upload(uploadDetails);
-
-        final String pdfUrl = "https://objectstorage.us-ashburn-1.oraclecloud.com/n/" + namespaceName + "/b/"
-                + bucketName + "/o/" + objectName;
+        // The PDF is streamed into storage as it arrives, rather than buffered
+        // in full first
+        return articlePdfStore.store(articlePdf, objectName)
+                .map(pdfUrl -> saveArticle(title, articleAbstract, authorNames, tags, mainField, subField,
+                        pdfUrl, repoUrl, dataUrl, extraLinks))
+                .onErrorResume(IllegalArgumentException.class,
+                        e -> Mono.just(HttpResponse.badRequest(e.getMessage())));
+    }
 
+    private HttpResponse<String> saveArticle(String title, String articleAbstract, List<String> authorNames,
+            @Nullable String tags, String mainField, String subField, String pdfUrl, @Nullable String repoUrl,
+            @Nullable String dataUrl, @Nullable String extraLinks) {
         Article a = new Article(title, articleAbstract, mainField, subField, pdfUrl, repoUrl, dataUrl);
         Article articleSaved = articleRepository.save(a);
 
+        List<String> tagNames = new ArrayList<>();
         if (tags != null && !tags.equals("")) {
-            String[] tagNames = tags.split(",");
+            tagNames = Arrays.asList(tags.split(","));
             for (String t : tagNames) {
                 Tag tagEntry = new Tag(t, articleSaved);
                 tagAbstractRepository.save(tagEntry);
@@ -213,173 +188,55 @@ public class ArticleController {
             }
         }
 
+        articleSearchIndex.indexArticle(articleSaved, tagNames);
+        articleTagIndex.indexArticle(articleSaved.getId(), tagNames);
+        articleLeaderboard.add(articleSaved);
+
         return HttpResponse.ok(articleSaved.getId().toString());
     }
 
-    @Get(value = "{?searchValue,mainField,subField,tags}")
-    public List<Article> viewArticlesByTag(@Nullable String searchValue, @Nullable String mainField,
-            @Nullable String subField, @Nullable @QueryValue List<String> tags, int pageNum, int recordsPerPage,
-            boolean approved) {
-        List<Article> retArticles = new ArrayList<>();
-
-        List<ExpertReview> allExpertReviews = expertReviewRepository.findAll();
-
-        // for search query specifying tags
-        if (tags != null && !tags.isEmpty()) {
-            for (String tag : tags) {
-                boolean matchesWithTags = true;
-                boolean nameMatchWithTags = false;
-                List<Tag> tagList = tagAbstractRepository.findByName(tag);
-                for (Tag t : tagList) {
-                    Article a = t.getArticle();
-                    boolean isApproved = a.getApproved() == 1;
-                    if (searchValue != null && !searchValue.equals("")) {
-                        if (a.getName().contains(searchValue)) {
-                            nameMatchWithTags = true;
-                        }
-                    }
-                    if (searchValue != null && !searchValue.equals("") && nameMatchWithTags == false) {
-                        List<Author> authorsMatch = authorRepository.findAllByArticleId(a.getId());
-                        for (Author authorInMatchList : authorsMatch) {
-                            if (authorInMatchList.getUsername().contains(searchValue)) {
-                                matchesWithTags = true;
-                                break;
-                            }
-                            matchesWithTags = false;
-                        }
-                    }
-                    if (mainField != null && !mainField.equals("")) {
-                        matchesWithTags = matchesWithTags && a.getMainField().equals(mainField);
-                    }
-                    if (subField != null && !subField.equals("")) {
-                        matchesWithTags = matchesWithTags && a.getSubField().equals(subField);
-                    }
-                    if (matchesWithTags) {
-                        List<Author> authorsList = new ArrayList<>();
-                        List<Tag> tagsList = tagAbstractRepository.findAllByArticleId(a.getId());
-                        if (isApproved) {
-                            authorsList = authorRepository.findAllByArticleId(a.getId());
-                        }
-
-                        List<String> reviewStatuses = new LinkedList<>();
-                        for (ExpertReview er : allExpertReviews) {
-                            if (er.getCommentPost().getArticle().getId().equals(a.getId())) {
-                                reviewStatuses.add(er.getStatus());
-                            }
-                        }
-
-                        if (tagList != null && !tagList.isEmpty()) {
-                            List<String> tagNames = new ArrayList<>();
-                            for (Tag tagObject : tagsList) {
-                                tagNames.add(tagObject.getName());
-                            }
-                            a.setTags(tagNames);
-                        }
-                        if (isApproved) {
-                            List<CommenterDTO> authors = new ArrayList<>();
-                            for (Author author : authorsList) {
-                                String username = author.getUsername();
-                                Optional<User> user = userRepository.findByUsername(username);
-                                String name = user.isPresent() ? user.get().getName() : null;
-                                authors.add(new CommenterDTO(username, name));
-                            }
-                            a.setAuthors(authors);
-                        }
-                        a.setExpertReviews(reviewStatuses);
-
-                        if (approved) {
-                            if (isApproved) {
-                                retArticles.add(a);
-                            }
-                        } else {
-                            retArticles.add(a);
-                        }
-                    }
-                }
-            }
-
-            // for search query not specifying tags
-        } else {
-            List<Article> articleList = articleRepository.findAll();
-            for (Article article : articleList) {
-                boolean isApproved = article.getApproved() == 1;
-                boolean matchesWithoutTags = true;
-                boolean nameMatch = false;
-                if (searchValue != null && !searchValue.equals("")) {
-                    if (article.getName().contains(searchValue)) {
-                        nameMatch = true;
-                    }
-                }
-                if (searchValue != null && !searchValue.equals("") && nameMatch == false) {
-                    List<Author> authorsMatch = authorRepository.findAllByArticleId(article.getId());
-                    for (Author authorInMatchList : authorsMatch) {
-                        if (authorInMatchList.getUsername().contains(searchValue)) {
-                            matchesWithoutTags = true;
-                            break;
-                        }
-                        matchesWithoutTags = false;
-                    }
-                }
-                if (mainField != null && !mainField.equals("")) {
-                    matchesWithoutTags = matchesWithoutTags && article.getMainField().equals(mainField);
-                }
-                if (subField != null && !subField.equals("")) {
-                    matchesWithoutTags = matchesWithoutTags && article.getSubField().equals(subField);
-                }
-                if (matchesWithoutTags) {
-                    List<Author> authorsList = new ArrayList<>();
-                    List<Tag> tagsList = tagAbstractRepository.findAllByArticleId(article.getId());
-                    if (isApproved) {
-                        authorsList = authorRepository.findAllByArticleId(article.getId());
-                    }
-
-                    List<String> reviewStatuses = new LinkedList<>();
-                    for (ExpertReview er : allExpertReviews) {
-                        if (er.getCommentPost().getArticle().getId().equals(article.getId())) {
-                            reviewStatuses.add(er.getStatus());
-                        }
-                    }
-
-                    if (tagsList != null && !tagsList.isEmpty()) {
-                        List<String> tagNames = new ArrayList<>();
-                        for (Tag tagObject : tagsList) {
-                            tagNames.add(tagObject.getName());
-                        }
-                        article.setTags(tagNames);
-                    }
-                    if (isApproved) {
-                        List<CommenterDTO> authors = new ArrayList<>();
-                        for (Author author : authorsList) {
-                            String username = author.getUsername();
-                            Optional<User> user = userRepository.findByUsername(username);
-                            String name = user.isPresent() ? user.get().getName() : null;
-                            authors.add(new CommenterDTO(username, name));
-                        }
-                        article.setAuthors(authors);
-                    }
-                    article.setExpertReviews(reviewStatuses);
-                    if (approved) {
-                        if (isApproved) {
-                            retArticles.add(article);
-                        }
-                    } else {
-                        retArticles.add(article);
-                    }
-                }
-            }
+    @Get(value = "{?searchValue,mainField,subField,tags,tagMatch,excludeTags,cursor,limit}")
+    public HttpResponse<?> viewArticlesByTag(@Nullable String searchValue, @Nullable String mainField,
+            @Nullable String subField, @Nullable @QueryValue List<String> tags, @Nullable String tagMatch,
+            @Nullable @QueryValue List<String> excludeTags, @Nullable Integer pageNum,
+            @Nullable Integer recordsPerPage, boolean approved, @Nullable String cursor, @Nullable Integer limit) {
+        if (tagMatch != null && !tagMatch.equals("any") && !tagMatch.equals("all")) {
+            return HttpResponse.status(HttpStatus.BAD_REQUEST)
+                    .body("Status " + HttpStatus.BAD_REQUEST + ": Tag match must be 'any' or 'all'.");
         }
-
-        if (retArticles.isEmpty()) {
-            return new ArrayList<>();
+        ArticleSearchForm search = new ArticleSearchForm(searchValue, mainField, subField, tags,
+                "all".equals(tagMatch), excludeTags, approved);
+
+        // Numbered pages are still served by offset for the page switcher
+        if (pageNum != null && cursor == null) {
+            int pageSize = recordsPerPage != null ? recordsPerPage : ArticleSearchService.MAX_RECORDS_PER_PAGE;
+            return HttpResponse.ok(articleHydrator.hydrate(articleSearchService.search(search, pageNum, pageSize),
+                    false));
         }
 
-        int startIndex = pageNum * recordsPerPage;
-        int endIndex = Math.min(startIndex + recordsPerPage, retArticles.size());
+        ArticleCursor after;
+        try {
+            after = cursor != null ? ArticleCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.status(HttpStatus.BAD_REQUEST)
+                    .body("Status " + HttpStatus.BAD_REQUEST + ": " + e.getMessage());
+        }
+        int pageSize = limit != null ? limit
+                : recordsPerPage != null ? recordsPerPage : ArticleSearchService.MAX_RECORDS_PER_PAGE;
+        return pageResponse(articleSearchService.search(search, after, pageSize), false);
+    }
 
-        if (startIndex >= retArticles.size()) {
-            throw new IndexOutOfBoundsException("Requested page number is out of bounds.");
+    @Get(value = "/tags/count{?searchValue,mainField,subField,tags,tagMatch,excludeTags}")
+    public HttpResponse<?> countArticlesByTag(@Nullable String searchValue, @Nullable String mainField,
+            @Nullable String subField, @Nullable @QueryValue List<String> tags, @Nullable String tagMatch,
+            @Nullable @QueryValue List<String> excludeTags, boolean approved) {
+        if (tagMatch != null && !tagMatch.equals("any") && !tagMatch.equals("all")) {
+            return HttpResponse.status(HttpStatus.BAD_REQUEST)
+                    .body("Status " + HttpStatus.BAD_REQUEST + ": Tag match must be 'any' or 'all'.");
         }
-        return retArticles.subList(startIndex, endIndex);
+        ArticleSearchForm search = new ArticleSearchForm(searchValue, mainField, subField, tags,
+                "all".equals(tagMatch), excludeTags, approved);
+        return HttpResponse.ok(articleSearchService.count(search));
     }
 
     @Get(value = "/numTotal")
@@ -387,128 +244,114 @@ public class ArticleController {
         return articleRepository.count();
     }
 
-    @Get(value = "/{username}/approved")
-    public List<Article> viewApprovedArticlesForUser(@NotBlank String username) {
-        List<Article> approvedArticles = new ArrayList<>();
-        List<Author> authors = authorRepository.findByUsername(username);
-        for (Author author : authors) {
-            Article a = author.getArticle();
-            if (a.getApproved() == 1) {
-                List<Tag> tagsList = tagAbstractRepository.findAllByArticleId(a.getId());
-                List<Author> authorsList = authorRepository.findAllByArticleId(a.getId());
-                List<ExpertReview> expertReviewsList = expertReviewRepository
-                        .findAllByIdIsNotNullAnd_CommentPost_ArticleId(a.getId());
-
-                if (tagsList != null && !tagsList.isEmpty()) {
-                    List<String> tagNames = new ArrayList<>();
-                    for (Tag tagObject : tagsList) {
-                        tagNames.add(tagObject.getName());
-                    }
-                    a.setTags(tagNames);
-                }
-                List<CommenterDTO> authorCommenters = new ArrayList<>();
-                for (Author authorObject : authorsList) {
-                    String uname = authorObject.getUsername();
-                    Optional<User> user = userRepository.findByUsername(uname);
-                    String name = user.isPresent() ? user.get().getName() : null;
-                    authorCommenters.add(new CommenterDTO(uname, name));
-                }
-                a.setAuthors(authorCommenters);
-                if (expertReviewsList != null && !expertReviewsList.isEmpty()) {
-                    List<String> expertReviews = new ArrayList<>();
-                    for (ExpertReview expertReview : expertReviewsList) {
-                        expertReviews.add(expertReview.getStatus());
-                    }
-                    a.setExpertReviews(expertReviews);
-                }
-                approvedArticles.add(a);
-            }
-        }
-
-        return approvedArticles;
-
+    @Get(value = "/{username}/approved{?cursor,limit}")
+    public HttpResponse<?> viewApprovedArticlesForUser(@NotBlank String username, @Nullable String cursor,
+            @Nullable Integer limit) {
+        return viewArticlesForAuthor(username, true, cursor, limit);
     }
 
     @Secured(SecurityRule.IS_AUTHENTICATED)
-    @Get(value = "/{username}/unapproved")
-    public List<Article> viewUnapprovedArticlesForUser(Authentication authentication, @NotBlank String username) {
+    @Get(value = "/{username}/unapproved{?cursor,limit}")
+    public HttpResponse<?> viewUnapprovedArticlesForUser(Authentication authentication, @NotBlank String username,
+            @Nullable String cursor, @Nullable Integer limit) {
         if (!authentication.getName().equals(username)) {
-            return Collections.emptyList();
+            return HttpResponse.ok(Collections.emptyList());
         }
-        
-        List<Article> unapprovedArticles = new ArrayList<>();
-        List<Author> authors = authorRepository.findByUsername(username);
-        List<ExpertReview> allExpertReviews = expertReviewRepository.findAll();
-
-        System.out.println("Authors: " + authors.toString());
-        for (Author author : authors) {
-            System.out.println("Author: " + author);
-            Article a = author.getArticle();
-            System.out.println("Article a approved: " + a.getApproved());
-            if (a.getApproved() == 0) {
-                List<Tag> tagsList = tagAbstractRepository.findAllByArticleId(a.getId());
-                List<Author> authorsList = authorRepository.findAllByArticleId(a.getId());
-                List<Link> linksList = linkRepository.findAllByArticleId(a.getId());
-                List<String> reviewStatuses = new LinkedList<>();
-                for (ExpertReview er : allExpertReviews) {
-                    if (er.getCommentPost().getArticle().getId().equals(a.getId())) {
-                        reviewStatuses.add(er.getStatus());
-                    }
-                }
 
-                if (tagsList != null && !tagsList.isEmpty()) {
-                    List<String> tagNames = new ArrayList<>();
-                    for (Tag tagObject : tagsList) {
-                        tagNames.add(tagObject.getName());
-                    }
-                    a.setTags(tagNames);
-                }
-                List<CommenterDTO> authorCommenters = new ArrayList<>();
-                for (Author authorObject : authorsList) {
-                    String uname = authorObject.getUsername();
-                    Optional<User> user = userRepository.findByUsername(uname);
-                    String name = user.isPresent() ? user.get().getName() : null;
-                    authorCommenters.add(new CommenterDTO(uname, name));
-                }
-                a.setAuthors(authorCommenters);
-                if (linksList != null && !linksList.isEmpty()) {
-                    List<String> links = new ArrayList<>();
-                    for (Link link : linksList) {
-                        links.add(link.getUrl());
-                    }
-                    a.setLinks(links);
+        return viewArticlesForAuthor(username, false, cursor, limit);
+    }
+
+    /**
+     * List the Articles of an author a page at a time. Without a cursor or limit
+     * every Article of the author is listed, as before paging was added.
+     */
+    private HttpResponse<?> viewArticlesForAuthor(String username, boolean approved, String cursor, Integer limit) {
+        if (cursor == null && limit == null) {
+            List<Article> articles = new ArrayList<>();
+            for (Author author : authorRepository.findByUsername(username)) {
+                if (author.getArticle().getApproved() == (approved ? 1 : 0)) {
+                    articles.add(author.getArticle());
                 }
-                a.setExpertReviews(reviewStatuses);
-                unapprovedArticles.add(a);
             }
+            return HttpResponse.ok(articleHydrator.hydrate(articles, true));
         }
 
-        return unapprovedArticles;
+        ArticleCursor after;
+        try {
+            after = cursor != null ? ArticleCursor.decode(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.status(HttpStatus.BAD_REQUEST)
+                    .body("Status " + HttpStatus.BAD_REQUEST + ": " + e.getMessage());
+        }
+        int pageSize = limit != null ? limit : ArticleSearchService.MAX_RECORDS_PER_PAGE;
+        return pageResponse(articleSearchService.searchByAuthor(username, approved, after, pageSize), true);
+    }
 
+    /**
+     * Respond with the hydrated Articles of the page. The cursor for the next
+     * page, if any, is sent in the X-Next-Cursor header.
+     */
+    private HttpResponse<List<Article>> pageResponse(ArticlePage page, boolean revealUnapprovedAuthors) {
+        MutableHttpResponse<List<Article>> response = HttpResponse
+                .ok(articleHydrator.hydrate(page.getArticles(), revealUnapprovedAuthors));
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().encode());
+        }
+        return response;
     }
 
     @Secured(SecurityRule.IS_AUTHENTICATED)
     @Post(value = "/{articleId}/vote", consumes = { "application/json" })
-    public HttpResponse<?> voteArticle(@NotBlank Long articleId, @Body String which) {
-        Optional<Article> article = articleRepository.findById(articleId);
-        if (article.isEmpty()) {
-            return HttpResponse.status(HttpStatus.NOT_FOUND)
-                    .body("Status " + HttpStatus.NOT_FOUND + ": Article does not exist.");
-        } else if (!which.equals("up") && !which.equals("down")) {
+    public HttpResponse<?> voteArticle(Authentication authentication, @NotBlank Long articleId,
+            @Body String which) {
+        if (!which.equals("up") && !which.equals("down")) {
             return HttpResponse.status(HttpStatus.BAD_REQUEST)
                     .body("Status " + HttpStatus.BAD_REQUEST + ": Vote must be 'up' or 'down'.");
         }
+        Optional<Long> userId = AuthenticationProviderUserPassword.userIdOf(authentication);
+        if (userId.isEmpty()) {
+            return HttpResponse.status(HttpStatus.NOT_FOUND)
+                    .body("Status " + HttpStatus.NOT_FOUND + ": User does not exist.");
+        }
 
-        int score = (which.equals("up")) ? article.get().getScore() + 1 : article.get().getScore() - 1;
-        articleRepository.update(articleId, score);
-        return HttpResponse.status(HttpStatus.OK).body(score);
+        Optional<Integer> score;
+        try {
+            score = voteAggregator.vote(VoteAggregator.Target.ARTICLE, articleId, userId.get(),
+                    which.equals("up") ? 1 : -1, articleRepository::findScoreById);
+        } catch (IllegalStateException e) {
+            return HttpResponse.status(HttpStatus.CONFLICT)
+                    .body("Status " + HttpStatus.CONFLICT + ": " + e.getMessage());
+        }
+        if (score.isEmpty()) {
+            return HttpResponse.status(HttpStatus.NOT_FOUND)
+                    .body("Status " + HttpStatus.NOT_FOUND + ": Article does not exist.");
+        }
+
+        articleLeaderboard.updateScore(articleId, score.get());
+        return HttpResponse.status(HttpStatus.OK).body(score.get());
     }
 
-    @Get(value = "/top")
-    public List<Article> getTopArticles() {
-        List<Article> orderedArticles = articleRepository.listOrderByScore();
-        Collections.reverse(orderedArticles);
-        return orderedArticles.subList(0, Math.min(orderedArticles.size(), 3));
+    @Get(value = "/top{?limit,mainField,approved}")
+    public List<Article> getTopArticles(@Nullable Integer limit, @Nullable String mainField,
+            @Nullable Boolean approved) {
+        int k = Math.min(limit != null ? limit : DEFAULT_TOP_ARTICLES, ArticleSearchService.MAX_RECORDS_PER_PAGE);
+        List<Long> topIds = articleLeaderboard.top(k, mainField, approved != null && approved);
+        if (topIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, Article> articlesById = new HashMap<>();
+        for (Article a : articleRepository.findByIdIn(topIds)) {
+            voteAggregator.applyScore(a);
+            articlesById.put(a.getId(), a);
+        }
+        List<Article> topArticles = new ArrayList<>();
+        for (Long id : topIds) {
+            if (articlesById.containsKey(id)) {
+                topArticles.add(articlesById.get(id));
+            }
+        }
+        return topArticles;
     }
 
 }
@@ -1,7 +1,9 @@
 package research_exchange.controllers;
 
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
@@ -14,7 +16,10 @@ import io.micronaut.security.rules.SecurityRule;
 import java.util.List;
 import javax.validation.constraints.NotBlank;
 import javax.ws.rs.NotFoundException;
+import research_exchange.authentication.AuthenticationProviderUserPassword;
 import research_exchange.services.CommentService;
+import research_exchange.services.CursorPage;
+import research_exchange.services.IdCursor;
 import research_exchange.forms.CommentForm;
 import research_exchange.dto.AbstractCommentDTO;
 import research_exchange.dto.TopLevelCommentDTO;
@@ -66,14 +71,27 @@ public class CommentController {
      * The API endpoint for getting all Comments from a User.
      *
      * @param username the username of the User
+     * @param cursor   where the previous page ended; omitted for the first page
+     * @param limit    the most Comments on the page; every Comment if omitted
      * @return response OK with list of Comments from the User; otherwise, response
      *         NOT_FOUND if User does not exist
      */
-    @Get(value = "/users/{username}/comments")
-    public HttpResponse<?> getUserAllComments(@NotBlank String username) {
+    @Get(value = "/users/{username}/comments{?cursor,limit}")
+    public HttpResponse<?> getUserAllComments(@NotBlank String username, @Nullable String cursor,
+            @Nullable Integer limit) {
         try {
-            List<UserCommentDTO> userComments = commentService.getUserAllComments(username);
-            return HttpResponse.status(HttpStatus.OK).body(userComments);
+            IdCursor after = cursor != null ? IdCursor.decode(cursor) : null;
+            CursorPage<UserCommentDTO> page = commentService.getUserAllComments(username, after, limit);
+
+            MutableHttpResponse<List<UserCommentDTO>> response = HttpResponse.ok(page.getItems());
+            response.header(ArticleController.TOTAL_COUNT_HEADER, Long.toString(page.getTotalCount()));
+            if (page.getNextCursor() != null) {
+                response.header(ArticleController.NEXT_CURSOR_HEADER, page.getNextCursor().encode());
+            }
+            return response;
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.status(HttpStatus.BAD_REQUEST)
+                    .body("Status " + HttpStatus.BAD_REQUEST + ": " + e.getMessage());
         } catch (NotFoundException e) {
             return HttpResponse.status(HttpStatus.NOT_FOUND)
                     .body("Status " + HttpStatus.NOT_FOUND + ": " + e.getMessage());
@@ -97,7 +115,8 @@ public class CommentController {
         }
 
         try {
-            AbstractCommentDTO comment = commentService.postComment(articleId, commentForm);
+            AbstractCommentDTO comment = commentService.postComment(articleId, commentForm,
+                    AuthenticationProviderUserPassword.userIdOf(authentication).orElse(null));
             return HttpResponse.status(HttpStatus.CREATED)
                     .body((comment instanceof TopLevelCommentDTO) ? (TopLevelCommentDTO) comment
                             : (FollowupCommentDTO) comment);
@@ -113,16 +132,21 @@ public class CommentController {
     /**
      * The API endpoint for upvoting or downvoting a Comment.
      *
-     * @param commentId the Comment ID to upvote/downvote
+     * @param authentication the authenticated User voting
+     * @param commentId      the Comment ID to upvote/downvote
+     * @param which          the vote action, 'up' or 'down'
      * @return response OK with the Comment score after the upvote/downvote;
      *         response NOT_FOUND if Article or Comment does not exist;
-     *         BAD_REQUEST if vote action is invalid
+     *         BAD_REQUEST if vote action is invalid; CONFLICT if the User
+     *         already voted the same way
      */
     @Secured(SecurityRule.IS_AUTHENTICATED)
     @Post(value = "/comment-posts/{commentPostId}/vote", consumes = { "application/json" })
-    public HttpResponse<?> voteComment(@NotBlank Long commentPostId, @Body String which) {
+    public HttpResponse<?> voteComment(Authentication authentication, @NotBlank Long commentPostId,
+            @Body String which) {
         try {
-            Integer commentScore = commentService.voteComment(commentPostId, which);
+            Integer commentScore = commentService.voteComment(commentPostId, which,
+                    AuthenticationProviderUserPassword.userIdOf(authentication).orElse(null));
             return HttpResponse.status(HttpStatus.OK).body(commentScore);
         } catch (NotFoundException e) {
             return HttpResponse.status(HttpStatus.NOT_FOUND)
@@ -130,6 +154,9 @@ public class CommentController {
         } catch (IllegalArgumentException e) {
             return HttpResponse.status(HttpStatus.BAD_REQUEST)
                     .body("Status " + HttpStatus.BAD_REQUEST + ": " + e.getMessage());
+        } catch (IllegalStateException e) {
+            return HttpResponse.status(HttpStatus.CONFLICT)
+                    .body("Status " + HttpStatus.CONFLICT + ": " + e.getMessage());
         }
     }
 
@@ -19,12 +19,16 @@ import io.micronaut.scheduling.TaskExecutors;
 import io.micronaut.scheduling.annotation.ExecuteOn;
 import io.micronaut.security.annotation.Secured;
 import io.micronaut.security.rules.SecurityRule;
+import research_exchange.authentication.ValidatedTokenCache;
 import research_exchange.repositories.ExpertRepository;
 import research_exchange.repositories.UserRepository;
 import research_exchange.models.Expert;
 import research_exchange.models.ExpertRequest;
 import research_exchange.models.User;
 import research_exchange.repositories.ExpertRequestRepository;
+import research_exchange.services.CommentTreeCache;
+import research_exchange.services.ExpertFieldCache;
+import research_exchange.services.IdentityResolver;
 
 @Controller("/experts")
 @Secured(SecurityRule.IS_ANONYMOUS)
@@ -40,11 +44,25 @@ public class ExpertController {
 
     private final ExpertRequestRepository expertRequestRepository;
 
+    private final ExpertFieldCache expertFieldCache;
+
+    private final IdentityResolver identityResolver;
+
+    private final ValidatedTokenCache validatedTokenCache;
+
+    private final CommentTreeCache commentTreeCache;
+
     public ExpertController(UserRepository userRepository, ExpertRepository expertRepository,
-            ExpertRequestRepository expertRequestRepository) {
+            ExpertRequestRepository expertRequestRepository, ExpertFieldCache expertFieldCache,
+            IdentityResolver identityResolver, ValidatedTokenCache validatedTokenCache,
+            CommentTreeCache commentTreeCache) {
         this.userRepository = userRepository;
         this.expertRepository = expertRepository;
         this.expertRequestRepository = expertRequestRepository;
+        this.expertFieldCache = expertFieldCache;
+        this.identityResolver = identityResolver;
+        this.validatedTokenCache = validatedTokenCache;
+        this.commentTreeCache = commentTreeCache;
     }
 
     @Secured({ "Admin" })
@@ -62,6 +80,10 @@ public class ExpertController {
             userRepository.update(user.get());
 
             expertRepository.save(expert);
+            expertFieldCache.invalidate(expert.getUsername());
+            identityResolver.invalidate(expert.getUsername());
+            validatedTokenCache.revokeUser(expert.getUsername());
+            commentTreeCache.invalidateCommenter(expert.getUsername());
 
             Optional<ExpertRequest> expertRequest = expertRequestRepository.findByUsername(expert.getUsername());
             if (expertRequest.isPresent()) {
@@ -86,6 +108,10 @@ public class ExpertController {
             if (expertOptional.isPresent()) {
                 expertRepository.delete(expertOptional.get());
             }
+            expertFieldCache.invalidate(username);
+            identityResolver.invalidate(username);
+            validatedTokenCache.revokeUser(username);
+            commentTreeCache.invalidateCommenter(username);
 
             return HttpResponse.status(HttpStatus.OK);
         } else {
@@ -1,7 +1,9 @@
 package research_exchange.controllers;
 
+import io.micronaut.core.annotation.Nullable;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.annotation.Body;
 import io.micronaut.http.annotation.Controller;
 import io.micronaut.http.annotation.Get;
@@ -16,9 +18,14 @@ import java.util.List;
 import javax.validation.constraints.NotBlank;
 import javax.ws.rs.NotAuthorizedException;
 import javax.ws.rs.NotFoundException;
+import research_exchange.authentication.AuthenticationProviderUserPassword;
 import research_exchange.forms.ExpertReviewForm;
 import research_exchange.services.ExpertReviewService;
+import research_exchange.services.CursorPage;
+import research_exchange.services.IdCursor;
+import research_exchange.dto.AnnotationHeatmapDTO;
 import research_exchange.dto.ExpertReviewDTO;
+import research_exchange.dto.InlineCommentDTO;
 import research_exchange.dto.UserReviewDTO;
 
 /**
@@ -62,18 +69,82 @@ public class ExpertReviewController {
         }
     }
 
+    /**
+     * The API endpoint for getting the Inline Comments highlighted within an area
+     * of a page of an Article post.
+     *
+     * @param articleId the Article post ID
+     * @param pageNum   the page number
+     * @param x         the left edge of the area; the whole page if the area is
+     *                  omitted
+     * @param y         the top edge of the area
+     * @param width     the width of the area
+     * @param height    the height of the area
+     * @return response OK with list of Inline Comments; otherwise, response
+     *         BAD_REQUEST if the area is invalid, or NOT_FOUND if Article post
+     *         does not exist
+     */
+    @Get(value = "/articles/{articleId}/pages/{pageNum}/inline-comments{?x,y,width,height}")
+    public HttpResponse<?> getPageInlineComments(@NotBlank Long articleId, @NotBlank Integer pageNum,
+            @Nullable Integer x, @Nullable Integer y, @Nullable Integer width, @Nullable Integer height) {
+        try {
+            List<InlineCommentDTO> inlineComments = expertReviewService.getPageInlineComments(articleId, pageNum, x,
+                    y, width, height);
+            return HttpResponse.status(HttpStatus.OK).body(inlineComments);
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.status(HttpStatus.BAD_REQUEST)
+                    .body("Status " + HttpStatus.BAD_REQUEST + ": " + e.getMessage());
+        } catch (NotFoundException e) {
+            return HttpResponse.status(HttpStatus.NOT_FOUND)
+                    .body("Status " + HttpStatus.NOT_FOUND + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * The API endpoint for getting how many Inline Comments highlight each area
+     * of each page of an Article post.
+     *
+     * @param articleId the Article post ID
+     * @return response OK with the heatmap of the Article; otherwise, response
+     *         NOT_FOUND if Article post does not exist
+     */
+    @Get(value = "/articles/{articleId}/annotation-heatmap")
+    public HttpResponse<?> getAnnotationHeatmap(@NotBlank Long articleId) {
+        try {
+            AnnotationHeatmapDTO heatmap = expertReviewService.getAnnotationHeatmap(articleId);
+            return HttpResponse.status(HttpStatus.OK).body(heatmap);
+        } catch (NotFoundException e) {
+            return HttpResponse.status(HttpStatus.NOT_FOUND)
+                    .body("Status " + HttpStatus.NOT_FOUND + ": " + e.getMessage());
+        }
+    }
+
     /**
      * The API endpoint for getting all Expert Reviews from a User.
      *
      * @param username the username of the User
+     * @param cursor   where the previous page ended; omitted for the first page
+     * @param limit    the most Expert Reviews on the page; every Expert Review if
+     *                 omitted
      * @return response OK with list of Expert Reviews from the User; otherwise,
      *         response NOT_FOUND if User does not exist
      */
-    @Get(value = "/users/{username}/expert-reviews")
-    public HttpResponse<?> getUserAllExpertReviews(@NotBlank String username) {
+    @Get(value = "/users/{username}/expert-reviews{?cursor,limit}")
+    public HttpResponse<?> getUserAllExpertReviews(@NotBlank String username, @Nullable String cursor,
+            @Nullable Integer limit) {
         try {
-            List<UserReviewDTO> userExpertReviews = expertReviewService.getUserAllExpertReviews(username);
-            return HttpResponse.status(HttpStatus.OK).body(userExpertReviews);
+            IdCursor after = cursor != null ? IdCursor.decode(cursor) : null;
+            CursorPage<UserReviewDTO> page = expertReviewService.getUserAllExpertReviews(username, after, limit);
+
+            MutableHttpResponse<List<UserReviewDTO>> response = HttpResponse.ok(page.getItems());
+            response.header(ArticleController.TOTAL_COUNT_HEADER, Long.toString(page.getTotalCount()));
+            if (page.getNextCursor() != null) {
+                response.header(ArticleController.NEXT_CURSOR_HEADER, page.getNextCursor().encode());
+            }
+            return response;
+        } catch (IllegalArgumentException e) {
+            return HttpResponse.status(HttpStatus.BAD_REQUEST)
+                    .body("Status " + HttpStatus.BAD_REQUEST + ": " + e.getMessage());
         } catch (NotFoundException e) {
             return HttpResponse.status(HttpStatus.NOT_FOUND)
                     .body("Status " + HttpStatus.NOT_FOUND + ": " + e.getMessage());
@@ -118,6 +189,9 @@ public class ExpertReviewController {
         } catch (IllegalArgumentException e) {
             return HttpResponse.status(HttpStatus.BAD_REQUEST)
                     .body("Status " + HttpStatus.BAD_REQUEST + ": " + e.getMessage());
+        } catch (IllegalStateException e) {
+            return HttpResponse.status(HttpStatus.CONFLICT)
+                    .body("Status " + HttpStatus.CONFLICT + ": " + e.getMessage());
         } catch (NotAuthorizedException e) {
             return HttpResponse.status(HttpStatus.UNAUTHORIZED)
                     .body("Status " + HttpStatus.UNAUTHORIZED + ": " + e.getMessage());
@@ -142,7 +216,8 @@ public class ExpertReviewController {
         }
 
         try {
-            ExpertReviewDTO expertReview = expertReviewService.postExpertReview(articleId, expertReviewForm);
+            ExpertReviewDTO expertReview = expertReviewService.postExpertReview(articleId, expertReviewForm,
+                    AuthenticationProviderUserPassword.userIdOf(authentication).orElse(null));
             return HttpResponse.status(HttpStatus.CREATED).body(expertReview);
         } catch (NotFoundException e) {
             return HttpResponse.status(HttpStatus.NOT_FOUND)
@@ -0,0 +1,39 @@
+package research_exchange.controllers;
+
+import io.micronaut.http.HttpHeaders;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.annotation.Controller;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.security.annotation.Secured;
+import io.micronaut.security.rules.SecurityRule;
+import research_exchange.authentication.ValidatedTokenCache;
+
+@Controller("/logout")
+@Secured(SecurityRule.IS_AUTHENTICATED)
+public class LogoutController {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ValidatedTokenCache validatedTokenCache;
+
+    public LogoutController(ValidatedTokenCache validatedTokenCache) {
+        this.validatedTokenCache = validatedTokenCache;
+    }
+
+    /**
+     * Revoke the bearer token the request was made with, so it cannot be used
+     * again even before it expires.
+     *
+     * @param authorization the Authorization header
+     * @return 200 once the token is revoked
+     */
+    @Post
+    public HttpResponse<?> logout(@Header(HttpHeaders.AUTHORIZATION) String authorization) {
+        if (authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            validatedTokenCache.revokeToken(authorization.substring(BEARER_PREFIX.length()).trim());
+        }
+        return HttpResponse.ok();
+    }
+
+}
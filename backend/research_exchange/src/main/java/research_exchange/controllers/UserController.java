@@ -28,8 +28,9 @@ import io.micronaut.security.rules.SecurityRule;
 import jakarta.inject.Inject;
 import research_exchange.dto.UserInfoDTO;
 import research_exchange.models.User;
-import research_exchange.repositories.ExpertRepository;
 import research_exchange.repositories.UserRepository;
+import research_exchange.services.ExpertFieldCache;
+import research_exchange.services.IdentityResolver;
 import research_exchange.services.UserService;
 
 @Controller("/users")
@@ -42,14 +43,18 @@ public class UserController {
 
     private final UserRepository userRepository;
 
-    private final ExpertRepository expertRepository;
+    private final ExpertFieldCache expertFieldCache;
 
     private final UserService userService;
 
-    public UserController(UserRepository userRepository, ExpertRepository expertRepository, UserService userService) {
+    private final IdentityResolver identityResolver;
+
+    public UserController(UserRepository userRepository, ExpertFieldCache expertFieldCache, UserService userService,
+            IdentityResolver identityResolver) {
         this.userRepository = userRepository;
-        this.expertRepository = expertRepository;
+        this.expertFieldCache = expertFieldCache;
         this.userService = userService;
+        this.identityResolver = identityResolver;
     }
 
     @Get(value = "/{username}/info")
@@ -61,7 +66,10 @@ public class UserController {
         User user = userOption.get();
         String role = user.getRole();
         if (role.equals("Expert")) {
-            role += " in " + expertRepository.findByUsername(username).get().getField();
+            Optional<String> field = expertFieldCache.getField(username);
+            if (field.isPresent()) {
+                role += " in " + field.get();
+            }
         }
         return HttpResponse.ok(new UserInfoDTO(user.getProfilePictureUrl(), user.getName(), user.getUsername(),
                 user.getEmail(), role));
@@ -82,8 +90,7 @@ public class UserController {
             return HttpResponse.notFound();
         }
         User user = userOption.get();
-        String hashed = userService.hashPassword(oldPassword, user.getSalt());
-        if (!newPassword.equals("") && !hashed.equals(user.getPassword())) {
+        if (!newPassword.equals("") && !userService.verifyPassword(user, oldPassword)) {
             return HttpResponse.badRequest("The oldPassword did not match user's password");
         }
 
@@ -143,6 +150,7 @@ public class UserController {
         }
 
         userRepository.update(user);
+        identityResolver.invalidate(username);
         return HttpResponse.ok();
     }
 
@@ -76,6 +76,15 @@ public abstract class AbstractCommentDTO {
         return score;
     }
 
+    /**
+     * Set the score of the Comment.
+     *
+     * @param score the Comment score to set
+     */
+    public void setScore(Integer score) {
+        this.score = score;
+    }
+
     /**
      * Get the creation date of the Comment.
      *
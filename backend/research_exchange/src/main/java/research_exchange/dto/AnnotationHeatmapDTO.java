@@ -0,0 +1,67 @@
+package research_exchange.dto;
+
+import java.util.List;
+
+/**
+ * The view for where the Inline Comments of an Article are concentrated.
+ *
+ * @author Tyrone Wu
+ */
+public class AnnotationHeatmapDTO {
+
+    /** The Article ID. */
+    private Long articleId;
+
+    /** The length of a side of a cell, in the units of the Highlight Sections. */
+    private Integer cellSize;
+
+    /** Every page with an Inline Comment, in page order. */
+    private List<PageHeatmapDTO> pages;
+
+    /**
+     * The constructor for creating the view of an Article.
+     *
+     * @param articleId the Article ID
+     * @param cellSize  the length of a side of a cell
+     * @param pages     every page with an Inline Comment, in page order
+     */
+    public AnnotationHeatmapDTO(Long articleId, Integer cellSize, List<PageHeatmapDTO> pages) {
+        this.articleId = articleId;
+        this.cellSize = cellSize;
+        this.pages = pages;
+    }
+
+    /**
+     * Default constructor for the Article view.
+     */
+    public AnnotationHeatmapDTO() {
+    }
+
+    /**
+     * Get the Article ID.
+     *
+     * @return the Article ID
+     */
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    /**
+     * Get the length of a side of a cell.
+     *
+     * @return the cell size
+     */
+    public Integer getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Get every page with an Inline Comment.
+     *
+     * @return the pages, in page order
+     */
+    public List<PageHeatmapDTO> getPages() {
+        return pages;
+    }
+
+}
@@ -0,0 +1,95 @@
+package research_exchange.dto;
+
+/**
+ * The view for the annotation density of one page of an Article.
+ *
+ * @author Tyrone Wu
+ */
+public class PageHeatmapDTO {
+
+    /** The page number. */
+    private Integer pageNum;
+
+    /** The number of cells across the page. */
+    private Integer columns;
+
+    /** The number of cells down the page. */
+    private Integer rows;
+
+    /** The number of Inline Comments highlighting each cell, row by row. */
+    private int[] counts;
+
+    /** The largest count on the page. */
+    private Integer max;
+
+    /**
+     * The constructor for creating the view of a page.
+     *
+     * @param pageNum the page number
+     * @param columns the number of cells across the page
+     * @param rows    the number of cells down the page
+     * @param counts  the number of Inline Comments highlighting each cell, row
+     *                by row
+     * @param max     the largest count on the page
+     */
+    public PageHeatmapDTO(Integer pageNum, Integer columns, Integer rows, int[] counts, Integer max) {
+        this.pageNum = pageNum;
+        this.columns = columns;
+        this.rows = rows;
+        this.counts = counts;
+        this.max = max;
+    }
+
+    /**
+     * Default constructor for the page view.
+     */
+    public PageHeatmapDTO() {
+    }
+
+    /**
+     * Get the page number.
+     *
+     * @return the page number
+     */
+    public Integer getPageNum() {
+        return pageNum;
+    }
+
+    /**
+     * Get the number of cells across the page.
+     *
+     * @return the number of columns
+     */
+    public Integer getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get the number of cells down the page.
+     *
+     * @return the number of rows
+     */
+    public Integer getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the number of Inline Comments highlighting each cell. The cell in
+     * column c of row r is at index {@code r * columns + c}.
+     *
+     * @return the counts of every cell, row by row
+     */
+    public int[] getCounts() {
+        return counts;
+    }
+
+    /**
+     * Get the largest count on the page.
+     *
+     * @return the largest count
+     */
+    public Integer getMax() {
+        return max;
+    }
+
+}
@@ -0,0 +1,125 @@
+package research_exchange.forms;
+
+import java.util.List;
+
+/**
+ * The Article Search Form class which holds the filters of an Article listing
+ * query.
+ *
+ * @author Tyrone Wu
+ */
+public class ArticleSearchForm {
+
+    /** Words to match against the Article title, abstract, tags, or authors. (optional) */
+    private String searchValue;
+
+    /** The main field the Article must be in. (optional) */
+    private String mainField;
+
+    /** The sub field the Article must be in. (optional) */
+    private String subField;
+
+    /** The tags that the Article must have. (optional) */
+    private List<String> tags;
+
+    /** If the Article must have all of the tags instead of any of them. */
+    private boolean matchAllTags;
+
+    /** The tags that the Article must not have. (optional) */
+    private List<String> excludeTags;
+
+    /** If only approved Articles should be listed. */
+    private boolean approved;
+
+    /**
+     * The constructor for an Article search.
+     *
+     * @param searchValue  the search text to set
+     * @param mainField    the main field to set
+     * @param subField     the sub field to set
+     * @param tags         the tags to set
+     * @param matchAllTags if all of the tags must match instead of any
+     * @param excludeTags  the excluded tags to set
+     * @param approved     if only approved Articles should be listed
+     */
+    public ArticleSearchForm(String searchValue, String mainField, String subField, List<String> tags,
+            boolean matchAllTags, List<String> excludeTags, boolean approved) {
+        this.searchValue = searchValue;
+        this.mainField = mainField;
+        this.subField = subField;
+        this.tags = tags;
+        this.matchAllTags = matchAllTags;
+        this.excludeTags = excludeTags;
+        this.approved = approved;
+    }
+
+    /**
+     * Default constructor for Article search form.
+     */
+    public ArticleSearchForm() {
+    }
+
+    /**
+     * Get the search text.
+     *
+     * @return the search text
+     */
+    public String getSearchValue() {
+        return searchValue;
+    }
+
+    /**
+     * Get the main field.
+     *
+     * @return the main field
+     */
+    public String getMainField() {
+        return mainField;
+    }
+
+    /**
+     * Get the sub field.
+     *
+     * @return the sub field
+     */
+    public String getSubField() {
+        return subField;
+    }
+
+    /**
+     * Get the tags.
+     *
+     * @return the tags
+     */
+    public List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Get if all of the tags must match instead of any.
+     *
+     * @return true if all of the tags must match
+     */
+    public boolean isMatchAllTags() {
+        return matchAllTags;
+    }
+
+    /**
+     * Get the excluded tags.
+     *
+     * @return the excluded tags
+     */
+    public List<String> getExcludeTags() {
+        return excludeTags;
+    }
+
+    /**
+     * Get if only approved Articles should be listed.
+     *
+     * @return true if only approved Articles should be listed
+     */
+    public boolean isApproved() {
+        return approved;
+    }
+
+}
@@ -27,6 +27,12 @@ public class Article {
 
     private int approved;
 
+    private int approvedReviews;
+
+    private int needsWorkReviews;
+
+    private int rejectedReviews;
+
     @DateCreated
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "EST")
     private Instant datePosted;
@@ -108,6 +114,30 @@ public class Article {
         this.approved = approved;
     }
 
+    public int getApprovedReviews() {
+        return approvedReviews;
+    }
+
+    public void setApprovedReviews(int approvedReviews) {
+        this.approvedReviews = approvedReviews;
+    }
+
+    public int getNeedsWorkReviews() {
+        return needsWorkReviews;
+    }
+
+    public void setNeedsWorkReviews(int needsWorkReviews) {
+        this.needsWorkReviews = needsWorkReviews;
+    }
+
+    public int getRejectedReviews() {
+        return rejectedReviews;
+    }
+
+    public void setRejectedReviews(int rejectedReviews) {
+        this.rejectedReviews = rejectedReviews;
+    }
+
     public Instant getDatePosted() {
         return datePosted;
     }
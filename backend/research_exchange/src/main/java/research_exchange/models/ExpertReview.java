@@ -33,6 +33,17 @@ public class ExpertReview {
     @MappedProperty("STATUS")
     private String status;
 
+    /**
+     * User ID of the CommentPost, kept on the Expert Review so that a unique
+     * constraint allows one Expert Review per User on each Article.
+     */
+    @MappedProperty("USER_ID")
+    private Long userId;
+
+    /** Article ID of the CommentPost, paired with the User ID. */
+    @MappedProperty("ARTICLE_ID")
+    private Long articleId;
+
     /**
      * Constructor for creating Expert Review on an Article. The date, score, and
      * foreign keys to User and Article are automatically set.
@@ -44,6 +55,10 @@ public class ExpertReview {
     public ExpertReview(@Nullable CommentPost commentPost, String status) {
         this.commentPost = commentPost;
         this.status = status;
+        if (commentPost != null && commentPost.getUser() != null && commentPost.getArticle() != null) {
+            this.userId = commentPost.getUser().getId();
+            this.articleId = commentPost.getArticle().getId();
+        }
     }
 
     /**
@@ -86,4 +101,40 @@ public class ExpertReview {
         this.status = status;
     }
 
+    /**
+     * Gets the ID of the User that posted the Expert Review.
+     *
+     * @return the User ID of the Expert Review
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    /**
+     * Sets the ID of the User that posted the Expert Review.
+     *
+     * @param userId the User ID of the Expert Review to set
+     */
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    /**
+     * Gets the ID of the Article that the Expert Review is on.
+     *
+     * @return the Article ID of the Expert Review
+     */
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    /**
+     * Sets the ID of the Article that the Expert Review is on.
+     *
+     * @param articleId the Article ID of the Expert Review to set
+     */
+    public void setArticleId(Long articleId) {
+        this.articleId = articleId;
+    }
+
 }
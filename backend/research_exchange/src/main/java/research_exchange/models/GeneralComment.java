@@ -50,6 +50,14 @@ public class GeneralComment {
     @MappedProperty("REPLY_TO_ID")
     private Long replyToId;
 
+    /**
+     * Comment foreign key ID of root thread that the current Comment is on.
+     * (generated from DB and not inserted)
+     */
+    @GeneratedValue
+    @MappedProperty("THREAD_ID")
+    private Long rootThreadId;
+
     /**
      * Constructor for creating a GeneralComment. The ID is automatically generated.
      *
@@ -129,4 +137,23 @@ public class GeneralComment {
         this.replyToId = replyToId;
     }
 
+    /**
+     * Get the root thread ID that the current GeneralComment is on.
+     *
+     * @return the root thread ID; null if the GeneralComment is top-level
+     */
+    public Long getRootThreadId() {
+        return rootThreadId;
+    }
+
+    /**
+     * Sets the root thread ID that the current GeneralComment is on.
+     *
+     * @param rootThreadId the root thread ID that the current GeneralComment is
+     *                     on
+     */
+    public void setRootThreadId(Long rootThreadId) {
+        this.rootThreadId = rootThreadId;
+    }
+
 }
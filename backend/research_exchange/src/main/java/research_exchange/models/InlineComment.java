@@ -35,6 +35,14 @@ public class InlineComment {
     @MappedProperty("EXPERT_REVIEW_ID")
     private ExpertReview expertReview;
 
+    /**
+     * Expert Review foreign key ID of the Inline Comment. (generated from DB and
+     * not inserted)
+     */
+    @GeneratedValue
+    @MappedProperty("EXPERT_REVIEW_ID")
+    private Long expertReviewId;
+
     /** The page number of the Inline Comment. */
     @MappedProperty("PAGE_NUM")
     private Integer pageNum;
@@ -104,6 +112,24 @@ public class InlineComment {
         return expertReview;
     }
 
+    /**
+     * Gets the Expert Review ID of the Inline Comment.
+     *
+     * @return the Expert Review ID of the Inline Comment
+     */
+    public Long getExpertReviewId() {
+        return expertReviewId;
+    }
+
+    /**
+     * Sets the Expert Review ID of the Inline Comment.
+     *
+     * @param expertReviewId the Expert Review ID of the Inline Comment
+     */
+    public void setExpertReviewId(Long expertReviewId) {
+        this.expertReviewId = expertReviewId;
+    }
+
     /**
      * Gets the page number of the Inline Comment.
      *
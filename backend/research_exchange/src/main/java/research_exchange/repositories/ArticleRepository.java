@@ -1,9 +1,11 @@
 package research_exchange.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import io.micronaut.core.annotation.NonNull;
 import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.Pageable;
 import io.micronaut.data.model.query.builder.sql.Dialect;
@@ -23,12 +25,22 @@ public interface ArticleRepository extends CrudRepository<Article, Long> {
     @Override
     Optional<Article> findById(Long id);
 
+    List<Article> findByIdIn(Collection<Long> ids);
+
     Optional<String> findNameById(Long id);
 
     Optional<Integer> findApprovedById(Long id);
 
-    List<Article> listOrderByScore();
+    Optional<Integer> findScoreById(Long id);
 
     void update(@Id Long id, int score);
 
+    @Query("UPDATE ARTICLE SET APPROVED_REVIEWS = APPROVED_REVIEWS + :approved,"
+            + " NEEDS_WORK_REVIEWS = NEEDS_WORK_REVIEWS + :needsWork, REJECTED_REVIEWS = REJECTED_REVIEWS + :rejected"
+            + " WHERE ID = :id")
+    void updateReviewTally(Long id, int approved, int needsWork, int rejected);
+
+    @Query("UPDATE ARTICLE SET APPROVED = 1 WHERE ID = :id AND APPROVED = 0 AND APPROVED_REVIEWS >= :approvalsNeeded")
+    long updateApprovedIfReviewed(Long id, int approvalsNeeded);
+
 }
@@ -1,5 +1,6 @@
 package research_exchange.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
 import javax.validation.constraints.NotBlank;
@@ -16,6 +17,9 @@ public interface AuthorRepository extends CrudRepository<Author, Long> {
     @Join("article")
     List<Author> findAllByArticleId(Long id);
 
+    @Join("article")
+    List<Author> findAllByArticleIdIn(Collection<Long> ids);
+
     @Join("article")
     List<Author> findByUsername(@NotBlank String name);
 
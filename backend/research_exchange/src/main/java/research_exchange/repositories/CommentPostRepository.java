@@ -2,9 +2,13 @@ package research_exchange.repositories;
 
 import research_exchange.models.CommentPost;
 import io.micronaut.data.annotation.Id;
+import io.micronaut.data.annotation.Join;
+import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -25,6 +29,60 @@ public interface CommentPostRepository extends CrudRepository<CommentPost, Long>
     @Override
     Optional<CommentPost> findById(Long id);
 
+    /**
+     * Gets several CommentPosts along with their User and Article by their IDs.
+     *
+     * @param ids the CommentPost IDs to filter by
+     * @return list of the CommentPosts with a matching ID
+     */
+    @Join(value = "user", type = Join.Type.FETCH)
+    @Join(value = "article", type = Join.Type.FETCH)
+    List<CommentPost> findByIdIn(Collection<Long> ids);
+
+    /**
+     * Gets the IDs of a page of General Comments made by the User, newest first.
+     *
+     * @param userId   the User ID to filter by
+     * @param beforeId only IDs below this one are returned
+     * @param limit    the most IDs to return
+     * @return list of the CommentPost IDs of the General Comments
+     */
+    @Query("SELECT cp.ID FROM COMMENT_POST cp JOIN GENERAL_COMMENT gc ON gc.COMMENT_POST_ID = cp.ID"
+            + " WHERE cp.USER_ID = :userId AND cp.ID < :beforeId ORDER BY cp.ID DESC FETCH FIRST :limit ROWS ONLY")
+    List<Long> findGeneralCommentIdsByUserId(Long userId, Long beforeId, Integer limit);
+
+    /**
+     * Count the General Comments made by the User.
+     *
+     * @param userId the User ID to filter by
+     * @return the number of General Comments made by the User
+     */
+    @Query("SELECT COUNT(*) FROM COMMENT_POST cp JOIN GENERAL_COMMENT gc ON gc.COMMENT_POST_ID = cp.ID"
+            + " WHERE cp.USER_ID = :userId")
+    long countGeneralCommentsByUserId(Long userId);
+
+    /**
+     * Gets the IDs of a page of Expert Reviews made by the User, newest first.
+     *
+     * @param userId   the User ID to filter by
+     * @param beforeId only IDs below this one are returned
+     * @param limit    the most IDs to return
+     * @return list of the CommentPost IDs of the Expert Reviews
+     */
+    @Query("SELECT cp.ID FROM COMMENT_POST cp JOIN EXPERT_REVIEW er ON er.COMMENT_POST_ID = cp.ID"
+            + " WHERE cp.USER_ID = :userId AND cp.ID < :beforeId ORDER BY cp.ID DESC FETCH FIRST :limit ROWS ONLY")
+    List<Long> findExpertReviewIdsByUserId(Long userId, Long beforeId, Integer limit);
+
+    /**
+     * Count the Expert Reviews made by the User.
+     *
+     * @param userId the User ID to filter by
+     * @return the number of Expert Reviews made by the User
+     */
+    @Query("SELECT COUNT(*) FROM COMMENT_POST cp JOIN EXPERT_REVIEW er ON er.COMMENT_POST_ID = cp.ID"
+            + " WHERE cp.USER_ID = :userId")
+    long countExpertReviewsByUserId(Long userId);
+
     /**
      * Check if CommentPost exists in the Article.
      *
@@ -34,6 +92,14 @@ public interface CommentPostRepository extends CrudRepository<CommentPost, Long>
      */
     boolean existsByIdAndArticleId(Long id, Long articleId);
 
+    /**
+     * Gets the score of the CommentPost.
+     *
+     * @param id the CommentPost ID to filter by
+     * @return the stored score of the CommentPost
+     */
+    Optional<Integer> findScoreById(Long id);
+
     /**
      * Update CommentPost score by incrementing/decrementing it.
      *
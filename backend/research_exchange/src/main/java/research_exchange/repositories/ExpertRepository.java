@@ -1,5 +1,6 @@
 package research_exchange.repositories;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,4 +19,6 @@ public interface ExpertRepository extends CrudRepository<Expert, Long> {
 
     Optional<Expert> findByUsername(String username);
 
+    List<Expert> findByUsernameIn(Collection<String> usernames);
+
 }
@@ -2,9 +2,11 @@ package research_exchange.repositories;
 
 import research_exchange.models.ExpertReview;
 import io.micronaut.data.annotation.Join;
+import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -62,24 +64,38 @@ public interface ExpertReviewRepository extends CrudRepository<ExpertReview, Lon
     List<ExpertReview> findAllByCommentPostUserId(Long userId);
 
     /**
-     * Check if the Expert Review exists by User ID and Article ID.
+     * Get several Expert Reviews by the IDs of their CommentPosts.
+     *
+     * @param commentPostIds the CommentPost IDs to filter by
+     * @return list of the Expert Reviews with a matching CommentPost ID
+     */
+    @Join(value = "commentPost", type = Join.Type.FETCH)
+    @Join(value = "commentPost.user", type = Join.Type.FETCH)
+    @Join(value = "commentPost.article", type = Join.Type.FETCH)
+    List<ExpertReview> findAllByCommentPostIdIn(Collection<Long> commentPostIds);
+
+    /**
+     * Check if the User has posted an Expert Review on the Article. Answered from
+     * the unique index on the User and Article ID.
      * 
      * @param userId    the User ID to filter by
      * @param articleId the Article ID to filter by
      * @return true if Expert Review exists with the matching User and Article ID;
      *         otherwise, return false
      */
-    @Join(value = "commentPost", type = Join.Type.FETCH)
-    @Join(value = "commentPost.user", type = Join.Type.FETCH)
-    @Join(value = "commentPost.article", type = Join.Type.FETCH)
-    boolean existsByIdIsNotNullAnd_CommentPost_UserIdAnd_CommentPost_ArticleId(Long userId, Long articleId);
+    boolean existsByUserIdAndArticleId(Long userId, Long articleId);
 
     /**
-     * Update the status of an Expert Review by their ID.
+     * Update the status of an Expert Review by their ID, only if it still has the
+     * status it was read with.
      *
      * @param commentPostId the Expert Review ID to filter by
+     * @param oldStatus     the status the Expert Review was read with
      * @param status        the new status to update
+     * @return the number of Expert Reviews updated: 1 if the status was changed;
+     *         otherwise, 0
      */
-    void updateByCommentPostId(Long commentPostId, String status);
+    @Query("UPDATE EXPERT_REVIEW SET STATUS = :status WHERE COMMENT_POST_ID = :commentPostId AND STATUS = :oldStatus")
+    long updateStatusIfUnchanged(Long commentPostId, String oldStatus, String status);
 
 }
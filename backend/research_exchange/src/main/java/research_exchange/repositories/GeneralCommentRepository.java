@@ -6,6 +6,7 @@ import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
 import io.micronaut.data.repository.jpa.JpaSpecificationExecutor;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import research_exchange.models.GeneralComment;
@@ -66,14 +67,27 @@ public interface GeneralCommentRepository
     List<GeneralComment> findAllByRootThreadIdIsNullAnd_CommentPost_ArticleId(Long articleId);
 
     /**
-     * Get all followup GeneralComments of a GeneralComment thread.
+     * Get every GeneralComment on an Article post, top-level and followup, in
+     * the order they were posted.
      *
-     * @param rootThreadId the GeneralComment thread ID to filter by
-     * @return list of all followup GeneralComments of a GeneralComment thread
+     * @param articleId the Article ID to filter by
+     * @return list of all GeneralComments on the Article
+     */
+    @NonNull
+    @Join(value = "commentPost", type = Join.Type.FETCH)
+    @Join(value = "commentPost.user", type = Join.Type.FETCH)
+    List<GeneralComment> findAllByIdIsNotNullAnd_CommentPost_ArticleIdOrderById(Long articleId);
+
+    /**
+     * Get all followup GeneralComments of several GeneralComment threads at once,
+     * oldest first.
+     *
+     * @param rootThreadIds the GeneralComment thread IDs to filter by
+     * @return list of all followup GeneralComments of any of the threads
      */
     @NonNull
     @Join(value = "commentPost", type = Join.Type.FETCH)
     @Join(value = "commentPost.user", type = Join.Type.FETCH)
-    List<GeneralComment> findAllByRootThreadId(Long rootThreadId);
+    List<GeneralComment> findAllByRootThreadIdInOrderById(Collection<Long> rootThreadIds);
 
 }
@@ -5,6 +5,7 @@ import io.micronaut.data.annotation.Join;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -28,4 +29,29 @@ public interface InlineCommentRepository extends CrudRepository<InlineComment, L
     @Join(value = "highlightSections", type = Join.Type.FETCH)
     List<InlineComment> findAllByExpertReviewId(Long expertReviewId);
 
+    /**
+     * Get all the Inline Comments of several Expert Reviews at once.
+     *
+     * @param expertReviewIds the Expert Review IDs to filter by
+     * @return list of all the Inline Comments associated with any of the Expert
+     *         Reviews
+     */
+    @Join(value = "commentPost", type = Join.Type.FETCH)
+    @Join(value = "commentPost.user", type = Join.Type.FETCH)
+    @Join(value = "commentPost.article", type = Join.Type.FETCH)
+    @Join(value = "highlightSections", type = Join.Type.FETCH)
+    List<InlineComment> findAllByExpertReviewIdIn(Collection<Long> expertReviewIds);
+
+    /**
+     * Get several Inline Comments by their IDs.
+     *
+     * @param ids the Inline Comment IDs
+     * @return list of the Inline Comments that exist
+     */
+    @Join(value = "commentPost", type = Join.Type.FETCH)
+    @Join(value = "commentPost.user", type = Join.Type.FETCH)
+    @Join(value = "commentPost.article", type = Join.Type.FETCH)
+    @Join(value = "highlightSections", type = Join.Type.FETCH)
+    List<InlineComment> findAllByIdIn(Collection<Long> ids);
+
 }
@@ -1,5 +1,6 @@
 package research_exchange.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
 import io.micronaut.data.annotation.Join;
@@ -14,4 +15,7 @@ public interface LinkRepository extends CrudRepository<Link, Long> {
     @Join("article")
     List<Link> findAllByArticleId(Long id);
 
+    @Join("article")
+    List<Link> findAllByArticleIdIn(Collection<Long> ids);
+
 }
@@ -1,5 +1,6 @@
 package research_exchange.repositories;
 
+import java.util.Collection;
 import java.util.List;
 
 import io.micronaut.data.annotation.Join;
@@ -17,4 +18,7 @@ public interface TagAbstractRepository extends CrudRepository<Tag, Long> {
     @Join("article")
     List<Tag> findAllByArticleId(Long id);
 
+    @Join("article")
+    List<Tag> findAllByArticleIdIn(Collection<Long> ids);
+
 }
@@ -1,9 +1,11 @@
 package research_exchange.repositories;
 
+import io.micronaut.data.annotation.Query;
 import io.micronaut.data.jdbc.annotation.JdbcRepository;
 import io.micronaut.data.model.query.builder.sql.Dialect;
 import io.micronaut.data.repository.CrudRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import research_exchange.models.User;
@@ -15,10 +17,15 @@ public interface UserRepository extends CrudRepository<User, Long> {
 
     Optional<User> findByUsername(String username);
 
+    List<User> findByUsernameIn(Collection<String> usernames);
+
     Optional<String> findUsernameById(Long id);
 
     Optional<Long> findIdByUsername(String username);
 
     Optional<String> findPasswordByUsername(String username);
 
+    @Query("UPDATE \"USER\" SET PASSWORD = :newPassword WHERE ID = :id AND PASSWORD = :oldPassword")
+    long updatePassword(Long id, String oldPassword, String newPassword);
+
 }
@@ -0,0 +1,289 @@
+package research_exchange.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.transaction.annotation.TransactionalEventListener;
+import jakarta.inject.Singleton;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import javax.transaction.Transactional;
+import research_exchange.dto.AnnotationHeatmapDTO;
+import research_exchange.dto.PageHeatmapDTO;
+import research_exchange.models.HighlightSection;
+import research_exchange.models.InlineComment;
+
+/**
+ * The Annotation Heatmap class which counts how many Inline Comments highlight
+ * each area of each page of an Article. Every page is divided into square
+ * cells, and the Highlight Sections of an Inline Comment add one to every cell
+ * they cover. The counts of an Article are loaded in one query the first time
+ * they are read and then kept up to date as Expert Reviews are committed, and
+ * reloaded once they have been kept for a while. Hit and miss counts are
+ * published under the {@code cache.*} metrics with the name
+ * {@code annotation-heatmaps}.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class AnnotationHeatmap {
+
+    /**
+     * The most cells along either side of a page. Highlight Sections past the
+     * last cell are counted in it, so a bad position cannot grow the grid
+     * without bound.
+     */
+    private static final int MAX_CELLS_PER_SIDE = 200;
+
+    /** For loading the Highlight Sections of an Article. */
+    private final JdbcOperations jdbcOperations;
+
+    /** The counts of each loaded Article. */
+    private final Cache<Long, ArticleCounts> articles;
+
+    /** The length of a side of a cell. */
+    private final int cellSize;
+
+    /**
+     * Setup the JDBC operations into the Annotation Heatmap and register its
+     * metrics.
+     *
+     * @param jdbcOperations the JDBC operations
+     * @param meterRegistry  the registry to publish the hit and miss counts to
+     * @param maximumSize    the most Articles whose counts are kept
+     * @param expireAfter    how long the counts of an Article are kept after
+     *                       they are loaded
+     * @param cellSize       the length of a side of a cell
+     */
+    public AnnotationHeatmap(JdbcOperations jdbcOperations, MeterRegistry meterRegistry,
+            @Value("${research-exchange.heatmaps.maximum-size:1000}") long maximumSize,
+            @Value("${research-exchange.heatmaps.expire-after-write:1h}") Duration expireAfter,
+            @Value("${research-exchange.heatmaps.cell-size:50}") int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Heatmap cell size must be positive.");
+        }
+        this.jdbcOperations = jdbcOperations;
+        this.cellSize = cellSize;
+        this.articles = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, articles, "annotation-heatmaps");
+    }
+
+    /**
+     * Get the counts of every page of an Article that has an Inline Comment.
+     *
+     * @param articleId the Article ID
+     * @return the heatmap of the Article
+     */
+    @Transactional
+    public AnnotationHeatmapDTO get(Long articleId) {
+        return new AnnotationHeatmapDTO(articleId, cellSize, articles.get(articleId, this::load).snapshot());
+    }
+
+    /**
+     * Count the Inline Comments of an Expert Review once it is committed.
+     *
+     * @param event the posted Inline Comments
+     */
+    @TransactionalEventListener
+    void onInlineCommentsPosted(InlineCommentsPostedEvent event) {
+        addInlineComments(event.getArticleId(), event.getInlineComments());
+    }
+
+    /**
+     * Count the Inline Comments of a newly posted Expert Review. Nothing is done
+     * if the counts of the Article are not loaded, since loading them will
+     * include the new Inline Comments. The counts are added in place, so they
+     * still expire when they were due to and are reloaded from the database.
+     *
+     * @param articleId      the Article ID
+     * @param inlineComments the posted Inline Comments, with their Highlight
+     *                       Sections
+     */
+    public void addInlineComments(Long articleId, List<InlineComment> inlineComments) {
+        ArticleCounts counts = articles.getIfPresent(articleId);
+        if (counts == null) {
+            return;
+        }
+        // Counts loaded after the commit already hold these, and are not
+        // counted twice since each Inline Comment is only counted once
+        for (InlineComment ic : inlineComments) {
+            List<int[]> rectangles = new ArrayList<>(ic.getHighlightSections().size());
+            for (HighlightSection hs : ic.getHighlightSections()) {
+                rectangles.add(new int[] { hs.getXPosition(), hs.getYPosition(), hs.getWidth(),
+                        hs.getHeight() });
+            }
+            counts.add(ic.getId(), ic.getPageNum(), rectangles);
+        }
+    }
+
+    /**
+     * Load the Highlight Sections of every Inline Comment on an Article and
+     * count them.
+     *
+     * @param articleId the Article ID
+     * @return the counts of the Article
+     */
+    private ArticleCounts load(Long articleId) {
+        ArticleCounts counts = new ArticleCounts(cellSize);
+        jdbcOperations.prepareStatement("SELECT ic.ID, ic.PAGE_NUM, hs.X_POSITION, hs.Y_POSITION, hs.WIDTH,"
+                + " hs.HEIGHT FROM COMMENT_POST cp JOIN INLINE_COMMENT ic ON ic.COMMENT_POST_ID = cp.ID"
+                + " JOIN HIGHLIGHT_SECTION hs ON hs.INLINE_COMMENT_ID = ic.ID WHERE cp.ARTICLE_ID = ?"
+                + " ORDER BY ic.ID", statement -> {
+                    statement.setLong(1, articleId);
+                    ResultSet resultSet = statement.executeQuery();
+
+                    // The rows of an Inline Comment are next to each other
+                    long inlineCommentId = -1;
+                    int pageNum = 0;
+                    List<int[]> rectangles = new ArrayList<>();
+                    while (resultSet.next()) {
+                        if (resultSet.getLong(1) != inlineCommentId) {
+                            if (!rectangles.isEmpty()) {
+                                counts.add(inlineCommentId, pageNum, rectangles);
+                            }
+                            inlineCommentId = resultSet.getLong(1);
+                            pageNum = resultSet.getInt(2);
+                            rectangles = new ArrayList<>();
+                        }
+                        rectangles.add(new int[] { resultSet.getInt(3), resultSet.getInt(4), resultSet.getInt(5),
+                                resultSet.getInt(6) });
+                    }
+                    if (!rectangles.isEmpty()) {
+                        counts.add(inlineCommentId, pageNum, rectangles);
+                    }
+                    return null;
+                });
+        return counts;
+    }
+
+    /**
+     * The counts of every page of a single Article.
+     */
+    private static final class ArticleCounts {
+
+        private final int cellSize;
+
+        private final Map<Integer, PageCounts> pages = new TreeMap<>();
+
+        /**
+         * The Inline Comments already counted, so one that is both loaded and
+         * added after its review is posted is only counted once.
+         */
+        private final Set<Long> counted = new HashSet<>();
+
+        private ArticleCounts(int cellSize) {
+            this.cellSize = cellSize;
+        }
+
+        /**
+         * Add one to every cell covered by the Highlight Sections of an Inline
+         * Comment. A cell covered by several of its Highlight Sections is only
+         * counted once.
+         *
+         * @param inlineCommentId the Inline Comment ID
+         * @param pageNum         the page of the Inline Comment
+         * @param rectangles      the x, y, width, and height of each Highlight
+         *                        Section
+         */
+        private synchronized void add(long inlineCommentId, int pageNum, List<int[]> rectangles) {
+            if (!counted.add(inlineCommentId)) {
+                return;
+            }
+
+            Set<Integer> cells = new HashSet<>();
+            int columns = 0;
+            int rows = 0;
+            for (int[] rectangle : rectangles) {
+                int firstColumn = cell(rectangle[0]);
+                int lastColumn = cell((long) rectangle[0] + rectangle[2]);
+                int firstRow = cell(rectangle[1]);
+                int lastRow = cell((long) rectangle[1] + rectangle[3]);
+                for (int column = firstColumn; column <= lastColumn; column++) {
+                    for (int row = firstRow; row <= lastRow; row++) {
+                        cells.add(row * MAX_CELLS_PER_SIDE + column);
+                    }
+                }
+                columns = Math.max(columns, lastColumn + 1);
+                rows = Math.max(rows, lastRow + 1);
+            }
+            if (cells.isEmpty()) {
+                return;
+            }
+
+            PageCounts page = pages.computeIfAbsent(pageNum, p -> new PageCounts());
+            page.ensureSize(columns, rows);
+            for (int cell : cells) {
+                page.increment(cell % MAX_CELLS_PER_SIDE, cell / MAX_CELLS_PER_SIDE);
+            }
+        }
+
+        private synchronized List<PageHeatmapDTO> snapshot() {
+            List<PageHeatmapDTO> snapshot = new ArrayList<>(pages.size());
+            for (Map.Entry<Integer, PageCounts> entry : pages.entrySet()) {
+                PageCounts page = entry.getValue();
+                snapshot.add(new PageHeatmapDTO(entry.getKey(), page.columns, page.rows, page.counts.clone(),
+                        page.max));
+            }
+            return snapshot;
+        }
+
+        /** The cell holding a position, kept within the page. */
+        private int cell(long position) {
+            return (int) Math.min(Math.max(position, 0) / cellSize, MAX_CELLS_PER_SIDE - 1);
+        }
+
+    }
+
+    /**
+     * The counts of the cells of a single page, row by row.
+     */
+    private static final class PageCounts {
+
+        private int columns;
+
+        private int rows;
+
+        private int[] counts = new int[0];
+
+        private int max;
+
+        /**
+         * Grow the grid to hold at least the given number of columns and rows,
+         * keeping the existing counts in their cells.
+         */
+        private void ensureSize(int neededColumns, int neededRows) {
+            if (neededColumns <= columns && neededRows <= rows) {
+                return;
+            }
+            int newColumns = Math.max(columns, neededColumns);
+            int newRows = Math.max(rows, neededRows);
+            int[] grown = new int[newColumns * newRows];
+            for (int row = 0; row < rows; row++) {
+                System.arraycopy(counts, row * columns, grown, row * newColumns, columns);
+            }
+            columns = newColumns;
+            rows = newRows;
+            counts = grown;
+        }
+
+        private void increment(int column, int row) {
+            int count = ++counts[row * columns + column];
+            max = Math.max(max, count);
+        }
+
+    }
+
+}
@@ -0,0 +1,33 @@
+package research_exchange.services;
+
+/**
+ * The Article Approved Event class which is published when an Expert Review
+ * approves an Article, so everything kept in memory about the Article is only
+ * updated once the approval is committed.
+ *
+ * @author Tyrone Wu
+ */
+public final class ArticleApprovedEvent {
+
+    /** The approved Article. */
+    private final Long articleId;
+
+    /**
+     * The constructor for an Article Approved Event.
+     *
+     * @param articleId the approved Article ID
+     */
+    public ArticleApprovedEvent(Long articleId) {
+        this.articleId = articleId;
+    }
+
+    /**
+     * Get the approved Article.
+     *
+     * @return the Article ID
+     */
+    public Long getArticleId() {
+        return articleId;
+    }
+
+}
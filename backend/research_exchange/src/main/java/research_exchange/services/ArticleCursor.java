@@ -0,0 +1,97 @@
+package research_exchange.services;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import research_exchange.models.Article;
+
+/**
+ * The Article Cursor class which marks where a page of an Article listing
+ * ended. Listings are ordered newest first by date posted and then by ID, so
+ * the cursor holds both of those from the last Article of a page. Clients only
+ * see it as an opaque token.
+ *
+ * @author Tyrone Wu
+ */
+public final class ArticleCursor {
+
+    /** The date posted of the last Article on the page. */
+    private final Instant datePosted;
+
+    /** The ID of the last Article on the page. */
+    private final long id;
+
+    /**
+     * The constructor for an Article cursor.
+     *
+     * @param datePosted the date posted of the last Article on the page
+     * @param id         the ID of the last Article on the page
+     */
+    public ArticleCursor(Instant datePosted, long id) {
+        this.datePosted = datePosted;
+        this.id = id;
+    }
+
+    /**
+     * Create the cursor that continues after the given Article.
+     *
+     * @param article the last Article on the page
+     * @return the cursor for the next page
+     */
+    public static ArticleCursor after(Article article) {
+        return new ArticleCursor(article.getDatePosted(), article.getId());
+    }
+
+    /**
+     * Turn a token from a client back into a cursor.
+     *
+     * @param token the token returned with the previous page
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token was not created by
+     *                                  {@link #encode()}
+     */
+    public static ArticleCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Cursor is invalid.");
+            }
+            long epochMilli = Long.parseLong(decoded.substring(0, separator));
+            long id = Long.parseLong(decoded.substring(separator + 1));
+            return new ArticleCursor(Instant.ofEpochMilli(epochMilli), id);
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and bad Base64 both land here
+            throw new IllegalArgumentException("Cursor is invalid.");
+        }
+    }
+
+    /**
+     * Turn the cursor into a URL-safe token for the client.
+     *
+     * @return the token
+     */
+    public String encode() {
+        String raw = datePosted.toEpochMilli() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the date posted of the last Article on the page.
+     *
+     * @return the date posted
+     */
+    public Instant getDatePosted() {
+        return datePosted;
+    }
+
+    /**
+     * Get the ID of the last Article on the page.
+     *
+     * @return the Article ID
+     */
+    public long getId() {
+        return id;
+    }
+
+}
@@ -0,0 +1,139 @@
+package research_exchange.services;
+
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import research_exchange.dto.CommenterDTO;
+import research_exchange.models.Article;
+import research_exchange.models.Author;
+import research_exchange.models.Link;
+import research_exchange.models.Tag;
+import research_exchange.repositories.AuthorRepository;
+import research_exchange.repositories.LinkRepository;
+import research_exchange.repositories.TagAbstractRepository;
+
+/**
+ * The Article Hydrator class which fills in the tags, authors, links, and
+ * review statuses of a page of Articles. Every relation is loaded with one
+ * query for the whole page instead of one query per Article, and review
+ * statuses come from the tally kept on each Article. Scores include the votes
+ * the VoteAggregator has not written yet.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ArticleHydrator {
+
+    /** For accessing Tag DB table. */
+    private final TagAbstractRepository tagAbstractRepository;
+
+    /** For accessing Author DB table. */
+    private final AuthorRepository authorRepository;
+
+    /** For accessing Link DB table. */
+    private final LinkRepository linkRepository;
+
+    /** For resolving the display names of authors. */
+    private final IdentityResolver identityResolver;
+
+    /** For adding the votes not yet written to the scores. */
+    private final VoteAggregator voteAggregator;
+
+    /**
+     * Setup Tag, Author, and Link repository and the Identity Resolver into the
+     * Article Hydrator.
+     *
+     * @param tagAbstractRepository the Tag Repository
+     * @param authorRepository      the Author Repository
+     * @param linkRepository        the Link Repository
+     * @param identityResolver      the Identity Resolver
+     * @param voteAggregator        the Vote Aggregator
+     */
+    public ArticleHydrator(TagAbstractRepository tagAbstractRepository, AuthorRepository authorRepository,
+            LinkRepository linkRepository, IdentityResolver identityResolver, VoteAggregator voteAggregator) {
+        this.tagAbstractRepository = tagAbstractRepository;
+        this.authorRepository = authorRepository;
+        this.linkRepository = linkRepository;
+        this.identityResolver = identityResolver;
+        this.voteAggregator = voteAggregator;
+    }
+
+    /**
+     * Attach the tags, authors, links, and review statuses to every Article in
+     * the list. Authors of unapproved Articles are only attached when
+     * revealUnapprovedAuthors is set, so anonymous listings stay anonymous.
+     *
+     * @param articles                the Articles to hydrate
+     * @param revealUnapprovedAuthors if authors of unapproved Articles are shown
+     * @return the same list of Articles, hydrated
+     */
+    public List<Article> hydrate(List<Article> articles, boolean revealUnapprovedAuthors) {
+        if (articles.isEmpty()) {
+            return articles;
+        }
+
+        Map<Long, Article> articlesById = new HashMap<>();
+        for (Article a : articles) {
+            a.setTags(new ArrayList<>());
+            a.setLinks(new ArrayList<>());
+            a.setExpertReviews(reviewStatuses(a));
+            voteAggregator.applyScore(a);
+            if (a.getApproved() == 1 || revealUnapprovedAuthors) {
+                a.setAuthors(new ArrayList<>());
+            }
+            articlesById.put(a.getId(), a);
+        }
+        Set<Long> articleIds = articlesById.keySet();
+
+        for (Tag tag : tagAbstractRepository.findAllByArticleIdIn(articleIds)) {
+            articlesById.get(tag.getArticle().getId()).getTags().add(tag.getName());
+        }
+
+        for (Link link : linkRepository.findAllByArticleIdIn(articleIds)) {
+            articlesById.get(link.getArticle().getId()).getLinks().add(link.getUrl());
+        }
+
+        // Authors are resolved to display names in one batch for every username
+        // on the page, and only the ones not cached are queried
+        List<Author> visibleAuthors = new ArrayList<>();
+        Set<String> usernames = new HashSet<>();
+        for (Author author : authorRepository.findAllByArticleIdIn(articleIds)) {
+            if (articlesById.get(author.getArticle().getId()).getAuthors() != null) {
+                visibleAuthors.add(author);
+                usernames.add(author.getUsername());
+            }
+        }
+        if (!visibleAuthors.isEmpty()) {
+            Map<String, Identity> identities = identityResolver.resolveAll(usernames);
+            for (Author author : visibleAuthors) {
+                Identity identity = identities.get(author.getUsername());
+                articlesById.get(author.getArticle().getId()).getAuthors().add(new CommenterDTO(
+                        author.getUsername(), identity != null ? identity.getName() : null));
+            }
+        }
+
+        return articles;
+    }
+
+    /**
+     * List the status of every Expert Review on the Article from its tally, so
+     * the Expert Review DB table is not read.
+     *
+     * @param article the Article
+     * @return one status per Expert Review
+     */
+    private static List<String> reviewStatuses(Article article) {
+        List<String> statuses = new ArrayList<>(
+                article.getApprovedReviews() + article.getNeedsWorkReviews() + article.getRejectedReviews());
+        statuses.addAll(Collections.nCopies(article.getApprovedReviews(), "Approved"));
+        statuses.addAll(Collections.nCopies(article.getNeedsWorkReviews(), "Needs Work"));
+        statuses.addAll(Collections.nCopies(article.getRejectedReviews(), "Rejected"));
+        return statuses;
+    }
+
+}
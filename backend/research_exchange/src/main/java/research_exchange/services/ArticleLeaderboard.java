@@ -0,0 +1,414 @@
+package research_exchange.services;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.runtime.event.annotation.EventListener;
+import io.micronaut.scheduling.annotation.Scheduled;
+import jakarta.inject.Singleton;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import javax.transaction.Transactional;
+import research_exchange.models.Article;
+import research_exchange.repositories.ArticleRepository;
+
+/**
+ * The Article Leaderboard class which keeps the Articles ranked by score in
+ * memory, both overall and within each main field, so the top Articles can be
+ * read without sorting the Article DB table. Only the top Articles of each
+ * ranking are kept, with some to spare so an Article voted down out of the top
+ * is replaced by the next one. Votes and approvals update the ranking as they
+ * happen, and it is reconciled with the database periodically to pick up
+ * anything that bypassed it.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ArticleLeaderboard {
+
+    /** Highest score first, then newest Article first. */
+    private static final Comparator<Entry> BY_RANK = Comparator.comparingInt((Entry e) -> e.score).reversed()
+            .thenComparing(Comparator.comparingLong((Entry e) -> e.id).reversed());
+
+    /** For loading the scores when the ranking is reconciled. */
+    private final JdbcOperations jdbcOperations;
+
+    /** For looking up an Article voted into the ranking from outside it. */
+    private final ArticleRepository articleRepository;
+
+    /** For the current scores of the recently voted Articles. */
+    private final VoteAggregator voteAggregator;
+
+    /** The most Articles kept in each ranking. */
+    private final int capacity;
+
+    /**
+     * Bumped by every change to an entry, so a reconcile can tell which entries
+     * changed while it was loading.
+     */
+    private long version;
+
+    /** The ranking of every Article. */
+    private Ranking all = new Ranking();
+
+    /** The ranking of approved Articles only. */
+    private Ranking approved = new Ranking();
+
+    /** Each Article ID mapped to its current entry. */
+    private Map<Long, Entry> entries = new HashMap<>();
+
+    /**
+     * Setup the JDBC operations, Article repository, and vote aggregator into
+     * the Article Leaderboard.
+     *
+     * @param jdbcOperations    the JDBC operations
+     * @param articleRepository the Article repository
+     * @param voteAggregator    the Vote Aggregator
+     * @param capacity          the most Articles kept in each ranking
+     */
+    public ArticleLeaderboard(JdbcOperations jdbcOperations, ArticleRepository articleRepository,
+            VoteAggregator voteAggregator, @Value("${research-exchange.leaderboard.capacity:200}") int capacity) {
+        if (capacity < ArticleSearchService.MAX_RECORDS_PER_PAGE) {
+            throw new IllegalArgumentException("Leaderboard capacity must be at least "
+                    + ArticleSearchService.MAX_RECORDS_PER_PAGE + ".");
+        }
+        this.jdbcOperations = jdbcOperations;
+        this.articleRepository = articleRepository;
+        this.voteAggregator = voteAggregator;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Load the ranking from the database once the application has started.
+     *
+     * @param event the startup event
+     */
+    @EventListener
+    @Transactional
+    void onStartup(StartupEvent event) {
+        reconcile();
+    }
+
+    /**
+     * Reconcile the ranking with the scores in the database. The scores are
+     * loaded without holding the ranking, then merged into it, keeping the
+     * entries that changed while they were loading since those are newer than
+     * what was loaded.
+     */
+    @Transactional
+    @Scheduled(fixedDelay = "${research-exchange.leaderboard.reconcile-interval:5m}",
+            initialDelay = "${research-exchange.leaderboard.reconcile-interval:5m}")
+    public void reconcile() {
+        long loadedAt;
+        synchronized (this) {
+            loadedAt = version;
+        }
+
+        Map<Long, Entry> merged = load();
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                if (entry.version > loadedAt) {
+                    merged.put(entry.id, entry);
+                }
+            }
+
+            all = new Ranking();
+            approved = new Ranking();
+            for (Entry entry : merged.values()) {
+                all.add(entry, capacity);
+                if (entry.approved) {
+                    approved.add(entry, capacity);
+                }
+            }
+            entries = new HashMap<>();
+            all.collectInto(entries);
+            approved.collectInto(entries);
+        }
+    }
+
+    /**
+     * Load the top Articles of each ranking from the database, with the scores
+     * of recently voted Articles taken from memory. The scores in memory are
+     * taken once the scan is done, so they are at least as new as any score it
+     * read, however long it took.
+     *
+     * @return the loaded entries by Article ID
+     */
+    private Map<Long, Entry> load() {
+        List<Entry> scanned = new ArrayList<>();
+        jdbcOperations.prepareStatement("SELECT ID, SCORE, MAIN_FIELD, APPROVED FROM ARTICLE", statement -> {
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                scanned.add(new Entry(resultSet.getLong(1), resultSet.getInt(2), resultSet.getString(3),
+                        resultSet.getInt(4) == 1, 0));
+            }
+            return null;
+        });
+
+        Map<Long, Integer> scores = voteAggregator.scores(VoteAggregator.Target.ARTICLE);
+        Ranking loadedAll = new Ranking();
+        Ranking loadedApproved = new Ranking();
+        for (Entry scannedEntry : scanned) {
+            Integer score = scores.get(scannedEntry.id);
+            Entry entry = score == null ? scannedEntry
+                    : new Entry(scannedEntry.id, score, scannedEntry.mainField, scannedEntry.approved, 0);
+            loadedAll.add(entry, capacity);
+            if (entry.approved) {
+                loadedApproved.add(entry, capacity);
+            }
+        }
+
+        Map<Long, Entry> loaded = new HashMap<>();
+        loadedAll.collectInto(loaded);
+        loadedApproved.collectInto(loaded);
+        return loaded;
+    }
+
+    /**
+     * Add a newly posted Article to the ranking.
+     *
+     * @param article the posted Article
+     */
+    public synchronized void add(Article article) {
+        put(article.getId(), article.getScore(), article.getMainField(), article.getApproved() == 1);
+    }
+
+    /**
+     * Move an Article to the rank of its new score. An Article that is not
+     * ranked is looked up and added if the new score places it.
+     *
+     * @param articleId the Article ID
+     * @param score     the new score of the Article
+     */
+    public void updateScore(Long articleId, int score) {
+        synchronized (this) {
+            Entry current = entries.get(articleId);
+            if (current != null) {
+                if (current.score != score) {
+                    put(current.id, score, current.mainField, current.approved);
+                }
+                return;
+            }
+            if (!all.places(score, capacity) && !approved.places(score, capacity)) {
+                return;
+            }
+        }
+
+        Optional<Article> article = articleRepository.findById(articleId);
+        if (article.isPresent()) {
+            synchronized (this) {
+                put(articleId, score, article.get().getMainField(), article.get().getApproved() == 1);
+            }
+        }
+    }
+
+    /**
+     * Add an Article that has just been approved to the approved ranking. An
+     * Article that is not ranked is looked up and added with its current score,
+     * votes not yet written included, if that score places it.
+     *
+     * @param articleId the approved Article ID
+     */
+    public void approve(Long articleId) {
+        synchronized (this) {
+            Entry current = entries.get(articleId);
+            if (current != null) {
+                if (!current.approved) {
+                    put(current.id, current.score, current.mainField, true);
+                }
+                return;
+            }
+        }
+
+        Optional<Article> article = articleRepository.findById(articleId);
+        if (article.isEmpty()) {
+            return;
+        }
+        int score = voteAggregator.score(VoteAggregator.Target.ARTICLE, articleId, article.get().getScore());
+        synchronized (this) {
+            // A vote may have ranked the Article while it was looked up
+            Entry current = entries.get(articleId);
+            if (current != null) {
+                if (!current.approved) {
+                    put(current.id, current.score, current.mainField, true);
+                }
+            } else if (approved.places(score, capacity)) {
+                put(articleId, score, article.get().getMainField(), true);
+            }
+        }
+    }
+
+    /**
+     * Get the IDs of the highest scoring Articles.
+     *
+     * @param limit        the most Article IDs to return
+     * @param mainField    the main field to rank within, or null to rank all
+     *                     Articles
+     * @param approvedOnly if only approved Articles are ranked
+     * @return the Article IDs, highest score first
+     */
+    public synchronized List<Long> top(int limit, String mainField, boolean approvedOnly) {
+        Ranking ranking = approvedOnly ? approved : all;
+        NavigableSet<Entry> ranked = mainField == null ? ranking.overall : ranking.byMainField.get(mainField);
+
+        List<Long> ids = new ArrayList<>();
+        if (ranked == null) {
+            return ids;
+        }
+        for (Entry entry : ranked) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            ids.add(entry.id);
+        }
+        return ids;
+    }
+
+    /**
+     * Replace the entry of an Article in every ranking it belongs to, and drop
+     * the Articles it pushes out of every ranking.
+     *
+     * @param id        the Article ID
+     * @param score     the score of the Article
+     * @param mainField the main field of the Article
+     * @param approved  if the Article is approved
+     */
+    private void put(long id, int score, String mainField, boolean approved) {
+        Entry entry = new Entry(id, score, mainField, approved, ++version);
+        Entry previous = entries.put(entry.id, entry);
+        if (previous != null) {
+            all.remove(previous);
+            if (previous.approved) {
+                this.approved.remove(previous);
+            }
+        }
+
+        List<Entry> dropped = new ArrayList<>();
+        dropped.addAll(all.add(entry, capacity));
+        if (entry.approved) {
+            dropped.addAll(this.approved.add(entry, capacity));
+        }
+        for (Entry d : dropped) {
+            if (!all.contains(d) && !this.approved.contains(d)) {
+                entries.remove(d.id, d);
+            }
+        }
+    }
+
+    /**
+     * Articles in rank order, overall and within each main field.
+     */
+    private static final class Ranking {
+
+        private final NavigableSet<Entry> overall = new TreeSet<>(BY_RANK);
+
+        private final Map<String, NavigableSet<Entry>> byMainField = new HashMap<>();
+
+        /**
+         * Rank an entry, dropping the lowest entries past the capacity.
+         *
+         * @return the entries dropped from a ranking
+         */
+        private List<Entry> add(Entry entry, int capacity) {
+            List<Entry> dropped = new ArrayList<>();
+            add(overall, entry, capacity, dropped);
+            if (entry.mainField != null) {
+                add(byMainField.computeIfAbsent(entry.mainField, f -> new TreeSet<>(BY_RANK)), entry, capacity,
+                        dropped);
+            }
+            return dropped;
+        }
+
+        private static void add(NavigableSet<Entry> ranked, Entry entry, int capacity, List<Entry> dropped) {
+            ranked.add(entry);
+            if (ranked.size() > capacity) {
+                dropped.add(ranked.pollLast());
+            }
+        }
+
+        private void remove(Entry entry) {
+            overall.remove(entry);
+            if (entry.mainField != null) {
+                NavigableSet<Entry> field = byMainField.get(entry.mainField);
+                if (field != null) {
+                    field.remove(entry);
+                }
+            }
+        }
+
+        private boolean contains(Entry entry) {
+            if (overall.contains(entry)) {
+                return true;
+            }
+            NavigableSet<Entry> field = entry.mainField != null ? byMainField.get(entry.mainField) : null;
+            return field != null && field.contains(entry);
+        }
+
+        /**
+         * If an unranked Article with the score could be placed in any of the
+         * rankings, not knowing its main field.
+         */
+        private boolean places(int score, int capacity) {
+            if (places(overall, score, capacity)) {
+                return true;
+            }
+            for (NavigableSet<Entry> field : byMainField.values()) {
+                if (places(field, score, capacity)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean places(NavigableSet<Entry> ranked, int score, int capacity) {
+            return ranked.size() < capacity || score >= ranked.last().score;
+        }
+
+        /** Put every ranked entry into the map by Article ID. */
+        private void collectInto(Map<Long, Entry> entries) {
+            for (Entry entry : overall) {
+                entries.put(entry.id, entry);
+            }
+            for (NavigableSet<Entry> field : byMainField.values()) {
+                for (Entry entry : field) {
+                    entries.put(entry.id, entry);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * The score of a single Article at one point in time.
+     */
+    private static final class Entry {
+
+        private final long id;
+
+        private final int score;
+
+        private final String mainField;
+
+        private final boolean approved;
+
+        /** The version of the leaderboard when the entry was put. */
+        private final long version;
+
+        private Entry(long id, int score, String mainField, boolean approved, long version) {
+            this.id = id;
+            this.score = score;
+            this.mainField = mainField;
+            this.approved = approved;
+            this.version = version;
+        }
+
+    }
+
+}
@@ -0,0 +1,49 @@
+package research_exchange.services;
+
+import java.util.List;
+import research_exchange.models.Article;
+
+/**
+ * The Article Page class which holds one page of an Article listing along with
+ * the cursor for the page after it.
+ *
+ * @author Tyrone Wu
+ */
+public final class ArticlePage {
+
+    /** The Articles on the page. */
+    private final List<Article> articles;
+
+    /** The cursor for the next page, or null if this is the last page. */
+    private final ArticleCursor nextCursor;
+
+    /**
+     * The constructor for an Article page.
+     *
+     * @param articles   the Articles on the page
+     * @param nextCursor the cursor for the next page, or null if there is none
+     */
+    public ArticlePage(List<Article> articles, ArticleCursor nextCursor) {
+        this.articles = articles;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Get the Articles on the page.
+     *
+     * @return the Articles
+     */
+    public List<Article> getArticles() {
+        return articles;
+    }
+
+    /**
+     * Get the cursor for the next page.
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public ArticleCursor getNextCursor() {
+        return nextCursor;
+    }
+
+}
@@ -0,0 +1,276 @@
+package research_exchange.services;
+
+import com.oracle.bmc.objectstorage.ObjectStorageClient;
+import com.oracle.bmc.objectstorage.model.CommitMultipartUploadDetails;
+import com.oracle.bmc.objectstorage.model.CommitMultipartUploadPartDetails;
+import com.oracle.bmc.objectstorage.model.CreateMultipartUploadDetails;
+import com.oracle.bmc.objectstorage.requests.AbortMultipartUploadRequest;
+import com.oracle.bmc.objectstorage.requests.CommitMultipartUploadRequest;
+import com.oracle.bmc.objectstorage.requests.CreateMultipartUploadRequest;
+import com.oracle.bmc.objectstorage.requests.DeleteObjectRequest;
+import com.oracle.bmc.objectstorage.requests.UploadPartRequest;
+import com.oracle.bmc.objectstorage.responses.CommitMultipartUploadResponse;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.core.convert.format.ReadableBytes;
+import io.micronaut.http.multipart.PartData;
+import io.micronaut.http.multipart.StreamingFileUpload;
+import io.micronaut.scheduling.TaskExecutors;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * The Article PDF Store class which streams the PDF of an Article into object
+ * storage as it is received, as a multipart upload. The PDF is never held in
+ * full: chunks are gathered into a single part buffer, and no more chunks are
+ * requested while a full part is uploaded, so the memory of an upload is
+ * bounded by the part size. Every part is sent with its MD5, and once the
+ * upload is committed the MD5 object storage computed over the parts is
+ * checked against the one computed here.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ArticlePdfStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ArticlePdfStore.class);
+
+    /** The bucket the PDFs are stored in. */
+    private static final String BUCKET_NAME = "research-exchange-pdf-storage-bucket";
+
+    /** The namespace of the bucket. */
+    private static final String NAMESPACE_NAME = "idvpzhveofap";
+
+    /** The smallest part size, so a PDF is not split into a great many parts. */
+    private static final int MIN_PART_SIZE = 1024 * 1024;
+
+    /** For uploading the parts. */
+    private final ObjectStorageClient objectStorageClient;
+
+    /** Where the blocking object storage calls are made. */
+    private final Scheduler scheduler;
+
+    /** The size of each part but the last. */
+    private final int partSize;
+
+    /**
+     * Setup the object storage client into the store.
+     *
+     * @param objectStorageClient the object storage client
+     * @param executorService     the IO executor, for the blocking object
+     *                            storage calls
+     * @param partSize            the size of each part but the last
+     */
+    public ArticlePdfStore(ObjectStorageClient objectStorageClient,
+            @Named(TaskExecutors.IO) ExecutorService executorService,
+            @ReadableBytes @Value("${research-exchange.pdf-uploads.part-size:5MB}") int partSize) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("PDF upload part size must be at least 1MB.");
+        }
+        this.objectStorageClient = objectStorageClient;
+        this.scheduler = Schedulers.fromExecutorService(executorService);
+        this.partSize = partSize;
+    }
+
+    /**
+     * Stream a PDF into object storage. The upload is aborted if the PDF cannot
+     * be read or any part fails to upload.
+     *
+     * @param pdf        the PDF as it is received
+     * @param objectName the name to store the PDF under
+     * @return the URL of the stored PDF, once every part is uploaded and the
+     *         upload is committed; failed with an IllegalArgumentException if
+     *         the PDF is empty
+     */
+    public Mono<String> store(StreamingFileUpload pdf, String objectName) {
+        return Mono.fromCallable(() -> new PartWriter(objectName, createUpload(objectName)))
+                .subscribeOn(scheduler)
+                .flatMap(writer -> Flux.from(pdf)
+                        // One chunk at a time, and none while a part is uploading
+                        .concatMap(part -> {
+                            if (!writer.append(bytesOf(part))) {
+                                return Mono.<Void>empty();
+                            }
+                            return Mono.<Void>fromRunnable(writer::uploadFullParts).subscribeOn(scheduler);
+                        }, 1)
+                        .then(Mono.fromRunnable(writer::commit).subscribeOn(scheduler))
+                        .onErrorResume(e -> Mono.fromRunnable(writer::abort).subscribeOn(scheduler)
+                                .then(Mono.error(e))))
+                .thenReturn("https://objectstorage.us-ashburn-1.oraclecloud.com/n/" + NAMESPACE_NAME + "/b/"
+                        + BUCKET_NAME + "/o/" + objectName);
+    }
+
+    private String createUpload(String objectName) {
+        CreateMultipartUploadRequest request = CreateMultipartUploadRequest.builder()
+                .namespaceName(NAMESPACE_NAME)
+                .bucketName(BUCKET_NAME)
+                .createMultipartUploadDetails(CreateMultipartUploadDetails.builder()
+                        .object(objectName)
+                        .contentType("application/pdf")
+                        .build())
+                .build();
+        return objectStorageClient.createMultipartUpload(request).getMultipartUpload().getUploadId();
+    }
+
+    /** The bytes of a chunk, releasing the buffer it was received in. */
+    private static byte[] bytesOf(PartData part) {
+        try {
+            return part.getBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("PDF could not be read.", e);
+        }
+    }
+
+    private static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available.", e);
+        }
+    }
+
+    /**
+     * The parts of a single upload. Only one thread uses it at a time, since
+     * every chunk waits for the one before it.
+     */
+    private final class PartWriter {
+
+        private final String objectName;
+
+        private final String uploadId;
+
+        private final byte[] buffer = new byte[partSize];
+
+        /** The bytes of the buffer that are filled. */
+        private int filled;
+
+        /** The chunk being copied into the buffer. */
+        private byte[] chunk = new byte[0];
+
+        /** The bytes of the chunk already copied. */
+        private int chunkOffset;
+
+        private final List<CommitMultipartUploadPartDetails> parts = new ArrayList<>();
+
+        /** The MD5 of every part, one after the other. */
+        private final ByteArrayOutputStream partMd5s = new ByteArrayOutputStream();
+
+        private PartWriter(String objectName, String uploadId) {
+            this.objectName = objectName;
+            this.uploadId = uploadId;
+        }
+
+        /**
+         * Copy a chunk into the part buffer.
+         *
+         * @return true if a full part is waiting to be uploaded
+         */
+        private boolean append(byte[] bytes) {
+            chunk = bytes;
+            chunkOffset = 0;
+            fill();
+            return filled == buffer.length;
+        }
+
+        private void fill() {
+            int length = Math.min(buffer.length - filled, chunk.length - chunkOffset);
+            System.arraycopy(chunk, chunkOffset, buffer, filled, length);
+            filled += length;
+            chunkOffset += length;
+        }
+
+        private void uploadFullParts() {
+            while (filled == buffer.length) {
+                uploadPart();
+                fill();
+            }
+        }
+
+        private void uploadPart() {
+            byte[] md5 = bufferMd5();
+            int partNum = parts.size() + 1;
+            UploadPartRequest request = UploadPartRequest.builder()
+                    .namespaceName(NAMESPACE_NAME)
+                    .bucketName(BUCKET_NAME)
+                    .objectName(objectName)
+                    .uploadId(uploadId)
+                    .uploadPartNum(partNum)
+                    .contentLength((long) filled)
+                    .contentMD5(Base64.getEncoder().encodeToString(md5))
+                    .uploadPartBody(new ByteArrayInputStream(buffer, 0, filled))
+                    .build();
+            String etag = objectStorageClient.uploadPart(request).getETag();
+
+            parts.add(CommitMultipartUploadPartDetails.builder().partNum(partNum).etag(etag).build());
+            partMd5s.writeBytes(md5);
+            filled = 0;
+        }
+
+        private byte[] bufferMd5() {
+            MessageDigest digest = md5();
+            digest.update(buffer, 0, filled);
+            return digest.digest();
+        }
+
+        private void commit() {
+            if (filled > 0) {
+                uploadPart();
+            }
+            if (parts.isEmpty()) {
+                throw new IllegalArgumentException("The PDF is empty.");
+            }
+
+            CommitMultipartUploadRequest request = CommitMultipartUploadRequest.builder()
+                    .namespaceName(NAMESPACE_NAME)
+                    .bucketName(BUCKET_NAME)
+                    .objectName(objectName)
+                    .uploadId(uploadId)
+                    .commitMultipartUploadDetails(CommitMultipartUploadDetails.builder()
+                            .partsToCommit(parts)
+                            .build())
+                    .build();
+            CommitMultipartUploadResponse response = objectStorageClient.commitMultipartUpload(request);
+
+            // The MD5 of a multipart object is the MD5 of its part MD5s
+            String expected = Base64.getEncoder().encodeToString(md5().digest(partMd5s.toByteArray()))
+                    + "-" + parts.size();
+            if (response.getOpcMultipartMd5() != null && !response.getOpcMultipartMd5().equals(expected)) {
+                objectStorageClient.deleteObject(DeleteObjectRequest.builder()
+                        .namespaceName(NAMESPACE_NAME)
+                        .bucketName(BUCKET_NAME)
+                        .objectName(objectName)
+                        .build());
+                throw new IllegalStateException("Stored PDF " + objectName + " does not match the upload.");
+            }
+        }
+
+        private void abort() {
+            try {
+                objectStorageClient.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                        .namespaceName(NAMESPACE_NAME)
+                        .bucketName(BUCKET_NAME)
+                        .objectName(objectName)
+                        .uploadId(uploadId)
+                        .build());
+            } catch (RuntimeException e) {
+                LOG.warn("Upload {} of {} could not be aborted", uploadId, objectName, e);
+            }
+        }
+
+    }
+
+}
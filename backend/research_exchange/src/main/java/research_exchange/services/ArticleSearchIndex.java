@@ -0,0 +1,354 @@
+package research_exchange.services;
+
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Singleton;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.transaction.Transactional;
+import org.roaringbitmap.RoaringBitmap;
+import research_exchange.models.Article;
+
+/**
+ * The Article Search Index class which keeps an in-memory inverted index from
+ * words to Article IDs. Titles, abstracts, and tags are indexed when an Article
+ * is posted; author usernames and names are only indexed once the Article is
+ * approved, so searching cannot reveal the authors of anonymous Articles.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ArticleSearchIndex {
+
+    /** Prefixes shorter than this are matched as whole words only. */
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    /** Words too common to narrow down a search. */
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList("a", "an", "and", "are", "as", "at",
+            "be", "by", "for", "from", "in", "is", "it", "of", "on", "or", "that", "the", "to", "with"));
+
+    /** For loading the Articles when the index is rebuilt. */
+    private final JdbcOperations jdbcOperations;
+
+    /** Each word mapped to the sorted IDs of the Articles containing it. */
+    private volatile ConcurrentSkipListMap<String, PostingList> terms = new ConcurrentSkipListMap<>();
+
+    /**
+     * Setup the JDBC operations into the Article Search Index.
+     *
+     * @param jdbcOperations the JDBC operations
+     */
+    public ArticleSearchIndex(JdbcOperations jdbcOperations) {
+        this.jdbcOperations = jdbcOperations;
+    }
+
+    /**
+     * Rebuild the index from the database once the application has started.
+     *
+     * @param event the startup event
+     */
+    @EventListener
+    @Transactional
+    void onStartup(StartupEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Replace the index with one built from every Article in the database.
+     */
+    @Transactional
+    public synchronized void rebuild() {
+        Map<String, IntList> built = new HashMap<>();
+
+        jdbcOperations.prepareStatement("SELECT ID, NAME, ARTICLE_ABSTRACT FROM ARTICLE", statement -> {
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                int articleId = Math.toIntExact(resultSet.getLong(1));
+                addTokens(built, articleId, resultSet.getString(2));
+                addTokens(built, articleId, resultSet.getString(3));
+            }
+            return null;
+        });
+        jdbcOperations.prepareStatement("SELECT ARTICLE_ID, NAME FROM TAG", statement -> {
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                addTokens(built, Math.toIntExact(resultSet.getLong(1)), resultSet.getString(2));
+            }
+            return null;
+        });
+        jdbcOperations.prepareStatement("SELECT au.ARTICLE_ID, au.USERNAME, u.NAME FROM AUTHOR au"
+                + " JOIN ARTICLE a ON a.ID = au.ARTICLE_ID LEFT JOIN \"USER\" u ON u.USERNAME = au.USERNAME"
+                + " WHERE a.APPROVED = 1", statement -> {
+                    ResultSet resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        int articleId = Math.toIntExact(resultSet.getLong(1));
+                        addTokens(built, articleId, resultSet.getString(2));
+                        addTokens(built, articleId, resultSet.getString(3));
+                    }
+                    return null;
+                });
+
+        ConcurrentSkipListMap<String, PostingList> rebuilt = new ConcurrentSkipListMap<>();
+        for (Map.Entry<String, IntList> entry : built.entrySet()) {
+            rebuilt.put(entry.getKey(), new PostingList(entry.getValue().toSortedUniqueArray()));
+        }
+        terms = rebuilt;
+    }
+
+    /**
+     * Index the title, abstract, and tags of a newly posted Article.
+     *
+     * @param article the posted Article
+     * @param tags    the tags of the Article
+     */
+    public synchronized void indexArticle(Article article, Collection<String> tags) {
+        int articleId = Math.toIntExact(article.getId());
+        Set<String> words = new HashSet<>();
+        words.addAll(tokenize(article.getName()));
+        words.addAll(tokenize(article.getArticleAbstract()));
+        for (String tag : tags) {
+            words.addAll(tokenize(tag));
+        }
+        addAll(articleId, words);
+    }
+
+    /**
+     * Index the author usernames and names of an Article that has just been
+     * approved. Runs in a transaction of its own, since it is called once the
+     * approval has committed.
+     *
+     * @param articleId the approved Article ID
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public synchronized void indexAuthors(Long articleId) {
+        Set<String> words = new HashSet<>();
+        jdbcOperations.prepareStatement("SELECT au.USERNAME, u.NAME FROM AUTHOR au"
+                + " LEFT JOIN \"USER\" u ON u.USERNAME = au.USERNAME WHERE au.ARTICLE_ID = ?", statement -> {
+                    statement.setLong(1, articleId);
+                    ResultSet resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        words.addAll(tokenize(resultSet.getString(1)));
+                        words.addAll(tokenize(resultSet.getString(2)));
+                    }
+                    return null;
+                });
+        addAll(Math.toIntExact(articleId), words);
+    }
+
+    /**
+     * Find the Articles containing every word of the search text. The last word
+     * also matches as a prefix, so partially typed words still find results.
+     * Search text made only of stop words has nothing to narrow the search by,
+     * so it matches every Article.
+     *
+     * @param searchValue the search text
+     * @return the IDs of the matching Articles, or null if the search text has
+     *         no words to search by
+     */
+    public RoaringBitmap search(String searchValue) {
+        List<String> words = new ArrayList<>(tokenize(searchValue));
+        if (words.isEmpty()) {
+            return null;
+        }
+
+        ConcurrentSkipListMap<String, PostingList> current = terms;
+        Postings result = null;
+        for (int i = 0; i < words.size(); i++) {
+            String word = words.get(i);
+            Postings matches;
+            if (i == words.size() - 1 && word.length() >= MIN_PREFIX_LENGTH) {
+                matches = prefixMatches(current, word);
+            } else {
+                PostingList postings = current.get(word);
+                matches = postings == null ? Postings.EMPTY : postings.postings;
+            }
+            result = result == null ? matches : intersect(result, matches);
+            if (result.size == 0) {
+                break;
+            }
+        }
+
+        RoaringBitmap matchingIds = new RoaringBitmap();
+        matchingIds.addN(result.ids, 0, result.size);
+        return matchingIds;
+    }
+
+    private void addAll(int articleId, Set<String> words) {
+        for (String word : words) {
+            terms.computeIfAbsent(word, w -> new PostingList(new int[0])).add(articleId);
+        }
+    }
+
+    private static void addTokens(Map<String, IntList> built, int articleId, String text) {
+        for (String word : tokenize(text)) {
+            built.computeIfAbsent(word, w -> new IntList()).add(articleId);
+        }
+    }
+
+    private static Postings prefixMatches(ConcurrentSkipListMap<String, PostingList> current, String prefix) {
+        NavigableMap<String, PostingList> range = current.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        if (range.size() == 1) {
+            return range.firstEntry().getValue().postings;
+        }
+        IntList union = new IntList();
+        for (PostingList postingList : range.values()) {
+            Postings postings = postingList.postings;
+            union.addAll(postings.ids, postings.size);
+        }
+        int[] ids = union.toSortedUniqueArray();
+        return new Postings(ids, ids.length);
+    }
+
+    /**
+     * Split text into lower-cased words of letters and digits, dropping stop
+     * words. The order of first appearance is kept.
+     *
+     * @param text the text to split
+     * @return the words of the text
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null) {
+            return words;
+        }
+        String folded = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                String word = folded.substring(start, i);
+                if (!STOP_WORDS.contains(word)) {
+                    words.add(word);
+                }
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    private static Postings intersect(Postings a, Postings b) {
+        int[] out = new int[Math.min(a.size, b.size)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.size && j < b.size) {
+            if (a.ids[i] < b.ids[j]) {
+                i++;
+            } else if (a.ids[i] > b.ids[j]) {
+                j++;
+            } else {
+                out[n++] = a.ids[i];
+                i++;
+                j++;
+            }
+        }
+        return new Postings(out, n);
+    }
+
+    /**
+     * Sorted Article IDs of a single word, kept in a buffer with room to grow.
+     * New Articles have the highest IDs, so most adds append in place; only an
+     * add into the middle, or into a full buffer, copies it.
+     */
+    private static final class PostingList {
+
+        /** The IDs readers see. Only the IDs past its size are ever written. */
+        private volatile Postings postings;
+
+        private PostingList(int[] ids) {
+            this.postings = new Postings(ids, ids.length);
+        }
+
+        private synchronized void add(int articleId) {
+            Postings current = postings;
+            int index = Arrays.binarySearch(current.ids, 0, current.size, articleId);
+            if (index >= 0) {
+                return;
+            }
+            int insertAt = -index - 1;
+            if (insertAt == current.size && current.size < current.ids.length) {
+                current.ids[insertAt] = articleId;
+                postings = new Postings(current.ids, current.size + 1);
+                return;
+            }
+            int[] next = new int[Math.max(current.size * 2, 4)];
+            System.arraycopy(current.ids, 0, next, 0, insertAt);
+            next[insertAt] = articleId;
+            System.arraycopy(current.ids, insertAt, next, insertAt + 1, current.size - insertAt);
+            postings = new Postings(next, current.size + 1);
+        }
+
+    }
+
+    /**
+     * The first {@code size} IDs of a sorted array, as seen at one point in
+     * time.
+     */
+    private static final class Postings {
+
+        private static final Postings EMPTY = new Postings(new int[0], 0);
+
+        private final int[] ids;
+
+        private final int size;
+
+        private Postings(int[] ids, int size) {
+            this.ids = ids;
+            this.size = size;
+        }
+
+    }
+
+    /**
+     * Growable array of primitive ints used while building posting lists.
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private void addAll(int[] other, int length) {
+            if (size + length > values.length) {
+                values = Arrays.copyOf(values, Math.max(values.length * 2, size + length));
+            }
+            System.arraycopy(other, 0, values, size, length);
+            size += length;
+        }
+
+        private int[] toSortedUniqueArray() {
+            int[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int n = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (n == 0 || sorted[n - 1] != sorted[i]) {
+                    sorted[n++] = sorted[i];
+                }
+            }
+            return Arrays.copyOf(sorted, n);
+        }
+
+    }
+
+}
@@ -0,0 +1,328 @@
+package research_exchange.services;
+
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import jakarta.inject.Singleton;
+import java.sql.Clob;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.transaction.Transactional;
+import org.roaringbitmap.RoaringBitmap;
+import research_exchange.forms.ArticleSearchForm;
+import research_exchange.models.Article;
+
+/**
+ * The Article Search Service class which turns the filters of an Article
+ * listing into a single SQL statement, so filtering, ordering, and paging all
+ * happen in the database. The search text and tags are matched by the
+ * in-memory ArticleSearchIndex and ArticleTagIndex, whose matches are bound to
+ * the query as a single parameter, so the statement is the same however many
+ * Articles match.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ArticleSearchService {
+
+    /** The largest page that can be requested at once. */
+    public static final int MAX_RECORDS_PER_PAGE = 100;
+
+    /** For running the generated queries on the Article DB table. */
+    private final JdbcOperations jdbcOperations;
+
+    /** For matching the search text against the Articles. */
+    private final ArticleSearchIndex articleSearchIndex;
+
+    /** For matching the tag filters against the Articles. */
+    private final ArticleTagIndex articleTagIndex;
+
+    /**
+     * Setup the JDBC operations, search index, and tag index into the Article
+     * Search service.
+     *
+     * @param jdbcOperations     the JDBC operations
+     * @param articleSearchIndex the Article Search Index
+     * @param articleTagIndex    the Article Tag Index
+     */
+    public ArticleSearchService(JdbcOperations jdbcOperations, ArticleSearchIndex articleSearchIndex,
+            ArticleTagIndex articleTagIndex) {
+        this.jdbcOperations = jdbcOperations;
+        this.articleSearchIndex = articleSearchIndex;
+        this.articleTagIndex = articleTagIndex;
+    }
+
+    /**
+     * Get a page of the Articles matching the search, newest first. The page is
+     * found by offset, so deep pages cost more than the first one; prefer
+     * {@link #search(ArticleSearchForm, ArticleCursor, int)}.
+     *
+     * @param search         the filters to apply
+     * @param pageNum        the zero-based page number
+     * @param recordsPerPage the number of Articles per page
+     * @return the Articles on the requested page; empty if the page is past the
+     *         last match
+     */
+    @Transactional
+    public List<Article> search(ArticleSearchForm search, int pageNum, int recordsPerPage) {
+        if (pageNum < 0 || recordsPerPage <= 0) {
+            return new ArrayList<>();
+        }
+        int limit = Math.min(recordsPerPage, MAX_RECORDS_PER_PAGE);
+
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT a.* FROM ARTICLE a WHERE 1 = 1");
+        if (!appendSearchFilters(search, sql, parameters)) {
+            return new ArrayList<>();
+        }
+        sql.append(" ORDER BY a.DATE_POSTED DESC, a.ID DESC OFFSET ? ROWS FETCH NEXT ? ROWS ONLY");
+        parameters.add((long) pageNum * limit);
+        parameters.add(limit);
+
+        return query(sql.toString(), parameters);
+    }
+
+    /**
+     * Get the page of Articles matching the search that comes after the cursor,
+     * newest first. The page is found by seeking on the date posted index, so
+     * every page costs the same no matter how deep it is, and Articles posted
+     * in the meantime do not shift later pages.
+     *
+     * @param search the filters to apply
+     * @param cursor where the previous page ended, or null for the first page
+     * @param limit  the number of Articles per page
+     * @return the page of Articles and the cursor for the next one
+     */
+    @Transactional
+    public ArticlePage search(ArticleSearchForm search, ArticleCursor cursor, int limit) {
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT a.* FROM ARTICLE a WHERE 1 = 1");
+        if (!appendSearchFilters(search, sql, parameters)) {
+            return new ArticlePage(new ArrayList<>(), null);
+        }
+        return seek(sql, parameters, cursor, limit);
+    }
+
+    /**
+     * Count the Articles matching the search. A search with only tag filters is
+     * counted from the ArticleTagIndex alone; any other filter is applied in
+     * the database to the Articles the indexes matched.
+     *
+     * @param search the filters to apply
+     * @return the exact number of matching Articles
+     */
+    @Transactional
+    public long count(ArticleSearchForm search) {
+        if (!search.isApproved() && !isPresent(search.getMainField()) && !isPresent(search.getSubField())
+                && !isPresent(search.getSearchValue())) {
+            return articleTagIndex.count(search.getTags(), search.isMatchAllTags(), search.getExcludeTags());
+        }
+
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM ARTICLE a WHERE 1 = 1");
+        if (!appendSearchFilters(search, sql, parameters)) {
+            return 0;
+        }
+        return jdbcOperations.prepareStatement(sql.toString(), statement -> {
+            bindParameters(statement, parameters);
+            ResultSet resultSet = statement.executeQuery();
+            resultSet.next();
+            return resultSet.getLong(1);
+        });
+    }
+
+    /**
+     * Get the page of Articles by the author that comes after the cursor, newest
+     * first.
+     *
+     * @param username the username of the author
+     * @param approved if approved or unapproved Articles are listed
+     * @param cursor   where the previous page ended, or null for the first page
+     * @param limit    the number of Articles per page
+     * @return the page of Articles and the cursor for the next one
+     */
+    @Transactional
+    public ArticlePage searchByAuthor(String username, boolean approved, ArticleCursor cursor, int limit) {
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(
+                "SELECT a.* FROM ARTICLE a JOIN AUTHOR au ON au.ARTICLE_ID = a.ID WHERE au.USERNAME = ?"
+                        + " AND a.APPROVED = ?");
+        parameters.add(username);
+        parameters.add(approved ? 1 : 0);
+        return seek(sql, parameters, cursor, limit);
+    }
+
+    /**
+     * Finish the query with the seek condition, ordering, and limit, then run
+     * it. One more Article than the limit is fetched to tell if there is a next
+     * page.
+     *
+     * @param sql        the query so far
+     * @param parameters the bind parameters of the query
+     * @param cursor     where the previous page ended, or null for the first page
+     * @param limit      the number of Articles per page
+     * @return the page of Articles and the cursor for the next one
+     */
+    private ArticlePage seek(StringBuilder sql, List<Object> parameters, ArticleCursor cursor, int limit) {
+        if (limit <= 0) {
+            return new ArticlePage(new ArrayList<>(), null);
+        }
+        int pageSize = Math.min(limit, MAX_RECORDS_PER_PAGE);
+
+        if (cursor != null) {
+            // Written so the leading DATE_POSTED bound can drive an index range scan
+            sql.append(" AND a.DATE_POSTED <= CAST(? AS DATE)"
+                    + " AND (a.DATE_POSTED < CAST(? AS DATE) OR a.ID < ?)");
+            Timestamp datePosted = Timestamp.from(cursor.getDatePosted());
+            parameters.add(datePosted);
+            parameters.add(datePosted);
+            parameters.add(cursor.getId());
+        }
+        sql.append(" ORDER BY a.DATE_POSTED DESC, a.ID DESC FETCH FIRST ? ROWS ONLY");
+        parameters.add(pageSize + 1);
+
+        List<Article> articles = query(sql.toString(), parameters);
+        if (articles.size() <= pageSize) {
+            return new ArticlePage(articles, null);
+        }
+        articles.remove(pageSize);
+        return new ArticlePage(articles, ArticleCursor.after(articles.get(pageSize - 1)));
+    }
+
+    /**
+     * Append the search text and the other filters of the search to the query.
+     *
+     * @param search     the filters to apply
+     * @param sql        the query to append to
+     * @param parameters the bind parameters of the query
+     * @return false if the search text matches no Articles, so the query does
+     *         not need to run
+     */
+    private boolean appendSearchFilters(ArticleSearchForm search, StringBuilder sql, List<Object> parameters) {
+        RoaringBitmap candidates = null;
+        if (hasTagFilter(search)) {
+            candidates = articleTagIndex.match(search.getTags(), search.isMatchAllTags(), search.getExcludeTags());
+        }
+        // Search text of only stop words is left out, like no search text at all
+        RoaringBitmap matchingIds = isPresent(search.getSearchValue())
+                ? articleSearchIndex.search(search.getSearchValue())
+                : null;
+        if (matchingIds != null) {
+            candidates = candidates == null ? matchingIds : RoaringBitmap.and(candidates, matchingIds);
+        }
+        if (candidates != null) {
+            if (candidates.isEmpty()) {
+                return false;
+            }
+            appendIdFilter(candidates, sql, parameters);
+        }
+        appendFilters(search, sql, parameters);
+        return true;
+    }
+
+    private boolean hasTagFilter(ArticleSearchForm search) {
+        return (search.getTags() != null && !search.getTags().isEmpty())
+                || (search.getExcludeTags() != null && !search.getExcludeTags().isEmpty());
+    }
+
+    /**
+     * Run the query and map every row to an Article.
+     *
+     * @param sql        the query
+     * @param parameters the bind parameters of the query
+     * @return the Articles
+     */
+    private List<Article> query(String sql, List<Object> parameters) {
+        return jdbcOperations.prepareStatement(sql, statement -> {
+            bindParameters(statement, parameters);
+            ResultSet resultSet = statement.executeQuery();
+            return jdbcOperations.entityStream(resultSet, Article.class).collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * Append the WHERE conditions of the search to the query.
+     *
+     * @param search     the filters to apply
+     * @param sql        the query to append to
+     * @param parameters the bind parameters of the query
+     */
+    private void appendFilters(ArticleSearchForm search, StringBuilder sql, List<Object> parameters) {
+        if (search.isApproved()) {
+            sql.append(" AND a.APPROVED = 1");
+        }
+        if (isPresent(search.getMainField())) {
+            sql.append(" AND a.MAIN_FIELD = ?");
+            parameters.add(search.getMainField());
+        }
+        if (isPresent(search.getSubField())) {
+            sql.append(" AND a.SUB_FIELD = ?");
+            parameters.add(search.getSubField());
+        }
+    }
+
+    /**
+     * Restrict the query to the given Article IDs. The IDs are bound as one JSON
+     * array that Oracle expands with JSON_TABLE, rather than written into the
+     * query, so every search shares one parsed statement and the query text
+     * does not grow with the matches.
+     *
+     * @param articleIds the Article IDs to restrict to
+     * @param sql        the query to append to
+     * @param parameters the bind parameters of the query
+     */
+    private void appendIdFilter(RoaringBitmap articleIds, StringBuilder sql, List<Object> parameters) {
+        sql.append(" AND a.ID IN (SELECT ids.ID FROM JSON_TABLE(?, '$[*]' COLUMNS (ID NUMBER PATH '$')) ids)");
+        parameters.add(articleIds);
+    }
+
+    /**
+     * Bind the parameters to the statement in order.
+     *
+     * @param statement  the statement to bind to
+     * @param parameters the parameters to bind
+     * @throws SQLException if a parameter cannot be bound
+     */
+    private void bindParameters(PreparedStatement statement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            Object parameter = parameters.get(i);
+            if (parameter instanceof RoaringBitmap) {
+                statement.setClob(i + 1, idArray(statement, (RoaringBitmap) parameter));
+            } else {
+                statement.setObject(i + 1, parameter);
+            }
+        }
+    }
+
+    /**
+     * Write the Article IDs as a JSON array. It is bound as a CLOB, since a
+     * large match is longer than a VARCHAR2 can hold.
+     *
+     * @param statement  the statement the array is bound to
+     * @param articleIds the Article IDs
+     * @return the JSON array of the IDs
+     * @throws SQLException if the CLOB cannot be created
+     */
+    private Clob idArray(PreparedStatement statement, RoaringBitmap articleIds) throws SQLException {
+        StringBuilder json = new StringBuilder("[");
+        articleIds.forEach((int id) -> {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(id);
+        });
+        json.append(']');
+
+        Clob clob = statement.getConnection().createClob();
+        clob.setString(1, json.toString());
+        return clob;
+    }
+
+    private boolean isPresent(String value) {
+        return value != null && !value.equals("");
+    }
+
+}
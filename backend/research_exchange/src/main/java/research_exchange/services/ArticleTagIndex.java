@@ -0,0 +1,178 @@
+package research_exchange.services;
+
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.runtime.event.annotation.EventListener;
+import jakarta.inject.Singleton;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import javax.transaction.Transactional;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * The Article Tag Index class which keeps one compressed bitmap of Article IDs
+ * per tag name, so tag filters are answered with set operations in memory
+ * instead of joins on the Tag DB table. A bitmap of every Article is kept as
+ * well so excluded tags can be subtracted from it.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ArticleTagIndex {
+
+    /** For loading the tags when the index is rebuilt. */
+    private final JdbcOperations jdbcOperations;
+
+    /** Guards the bitmaps, which are not safe to read while being written. */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Each tag name mapped to the IDs of the Articles with that tag. */
+    private Map<String, RoaringBitmap> tags = new HashMap<>();
+
+    /** The IDs of every Article. */
+    private RoaringBitmap allArticles = new RoaringBitmap();
+
+    /**
+     * Setup the JDBC operations into the Article Tag Index.
+     *
+     * @param jdbcOperations the JDBC operations
+     */
+    public ArticleTagIndex(JdbcOperations jdbcOperations) {
+        this.jdbcOperations = jdbcOperations;
+    }
+
+    /**
+     * Rebuild the index from the database once the application has started.
+     *
+     * @param event the startup event
+     */
+    @EventListener
+    @Transactional
+    void onStartup(StartupEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Replace the index with one built from every Article and Tag in the
+     * database.
+     */
+    @Transactional
+    public void rebuild() {
+        RoaringBitmap builtArticles = new RoaringBitmap();
+        Map<String, RoaringBitmap> builtTags = new HashMap<>();
+
+        jdbcOperations.prepareStatement("SELECT ID FROM ARTICLE", statement -> {
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                builtArticles.add(Math.toIntExact(resultSet.getLong(1)));
+            }
+            return null;
+        });
+        jdbcOperations.prepareStatement("SELECT ARTICLE_ID, NAME FROM TAG", statement -> {
+            ResultSet resultSet = statement.executeQuery();
+            while (resultSet.next()) {
+                builtTags.computeIfAbsent(resultSet.getString(2), name -> new RoaringBitmap())
+                        .add(Math.toIntExact(resultSet.getLong(1)));
+            }
+            return null;
+        });
+        for (RoaringBitmap bitmap : builtTags.values()) {
+            bitmap.runOptimize();
+        }
+
+        lock.writeLock().lock();
+        try {
+            tags = builtTags;
+            allArticles = builtArticles;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a newly posted Article and its tags to the index.
+     *
+     * @param articleId the posted Article ID
+     * @param tagNames  the tags of the Article
+     */
+    public void indexArticle(Long articleId, Collection<String> tagNames) {
+        int id = Math.toIntExact(articleId);
+        lock.writeLock().lock();
+        try {
+            allArticles.add(id);
+            for (String name : tagNames) {
+                tags.computeIfAbsent(name, n -> new RoaringBitmap()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find the Articles matching the tag filters. Each Article appears once no
+     * matter how many of the tags it has.
+     *
+     * @param includeTags the tags to match; every Article matches if empty
+     * @param matchAll    if an Article needs all of the included tags instead of
+     *                    any of them
+     * @param excludeTags the tags an Article must not have
+     * @return the IDs of the matching Articles; owned by the caller
+     */
+    public RoaringBitmap match(List<String> includeTags, boolean matchAll, List<String> excludeTags) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap result;
+            if (includeTags == null || includeTags.isEmpty()) {
+                result = allArticles.clone();
+            } else if (matchAll) {
+                result = null;
+                for (String name : includeTags) {
+                    RoaringBitmap bitmap = tags.get(name);
+                    if (bitmap == null) {
+                        return new RoaringBitmap();
+                    }
+                    result = result == null ? bitmap.clone() : RoaringBitmap.and(result, bitmap);
+                }
+            } else {
+                result = new RoaringBitmap();
+                for (String name : includeTags) {
+                    RoaringBitmap bitmap = tags.get(name);
+                    if (bitmap != null) {
+                        result.or(bitmap);
+                    }
+                }
+            }
+
+            if (excludeTags != null) {
+                for (String name : excludeTags) {
+                    RoaringBitmap bitmap = tags.get(name);
+                    if (bitmap != null) {
+                        result.andNot(bitmap);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Count the Articles matching the tag filters.
+     *
+     * @param includeTags the tags to match; every Article matches if empty
+     * @param matchAll    if an Article needs all of the included tags instead of
+     *                    any of them
+     * @param excludeTags the tags an Article must not have
+     * @return the exact number of matching Articles
+     */
+    public long count(List<String> includeTags, boolean matchAll, List<String> excludeTags) {
+        return match(includeTags, matchAll, excludeTags).getLongCardinality();
+    }
+
+}
@@ -0,0 +1,33 @@
+package research_exchange.services;
+
+/**
+ * The Comment Posted Event class which is published when a Comment is posted
+ * on an Article, so the caches built from its Comments can be dropped once the
+ * Comment is committed.
+ *
+ * @author Tyrone Wu
+ */
+public final class CommentPostedEvent {
+
+    /** The Article the Comment was posted on. */
+    private final Long articleId;
+
+    /**
+     * The constructor for a Comment Posted Event.
+     *
+     * @param articleId the Article ID the Comment was posted on
+     */
+    public CommentPostedEvent(Long articleId) {
+        this.articleId = articleId;
+    }
+
+    /**
+     * Get the Article the Comment was posted on.
+     *
+     * @return the Article ID
+     */
+    public Long getArticleId() {
+        return articleId;
+    }
+
+}
@@ -1,10 +1,17 @@
 package research_exchange.services;
 
+import io.micronaut.context.event.ApplicationEventPublisher;
 import io.micronaut.data.exceptions.DataAccessException;
 import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import javax.transaction.Transactional;
 import javax.ws.rs.NotFoundException;
 import research_exchange.dto.AbstractCommentDTO;
 import research_exchange.dto.CommenterDTO;
@@ -20,9 +27,7 @@ import research_exchange.models.User;
 import research_exchange.repositories.ArticleRepository;
 import research_exchange.repositories.AuthorRepository;
 import research_exchange.repositories.CommentPostRepository;
-import research_exchange.repositories.ExpertRepository;
 import research_exchange.repositories.GeneralCommentRepository;
-import research_exchange.repositories.UserRepository;
 
 /**
  * The Comment Service class which handles the error checking before inserting
@@ -36,14 +41,14 @@ public class CommentService {
     /** For accessing Article DB table. */
     private final ArticleRepository articleRepository;
 
-    /** For accessing User DB table. */
-    private final UserRepository userRepository;
+    /** For resolving the usernames of Users. */
+    private final IdentityResolver identityResolver;
 
     /** For accessing Author DB table. */
     private final AuthorRepository authorRepository;
 
-    /** For accessing Expert DB table. */
-    private final ExpertRepository expertRepository;
+    /** For looking up the fields of Expert commenters. */
+    private final ExpertFieldCache expertFieldCache;
 
     /** For accessing CommentPost DB table. */
     private final CommentPostRepository commentPostRepository;
@@ -51,45 +56,72 @@ public class CommentService {
     /** For accessing GeneralComment DB table. */
     private final GeneralCommentRepository generalCommentRepository;
 
+    /** For recording votes and reading the current scores. */
+    private final VoteAggregator voteAggregator;
+
+    /** For reusing the Comment threads of recently viewed Articles. */
+    private final CommentTreeCache commentTreeCache;
+
+    /** For dropping the cached threads of an Article once a Comment commits. */
+    private final ApplicationEventPublisher<CommentPostedEvent> commentPostedPublisher;
+
     /**
      * Setup Article, User, CommentPost, and GeneralComment repository into the
      * Comment service.
      * 
      * @param articleRepository        the Article Repository
-     * @param userRepository           the User Repository
+     * @param identityResolver         the Identity Resolver
+     * @param expertFieldCache         the Expert Field Cache
      * @param commentPostRepository    the CommentPost Repository
      * @param generalCommentRepository the GeneralComment Repository
+     * @param voteAggregator           the Vote Aggregator
+     * @param commentTreeCache         the Comment Tree Cache
+     * @param commentPostedPublisher   the publisher of posted Comments
      */
-    public CommentService(ArticleRepository articleRepository, UserRepository userRepository,
-            AuthorRepository authorRepository, ExpertRepository expertRepository,
+    public CommentService(ArticleRepository articleRepository, IdentityResolver identityResolver,
+            AuthorRepository authorRepository, ExpertFieldCache expertFieldCache,
             CommentPostRepository commentPostRepository,
-            GeneralCommentRepository generalCommentRepository) {
+            GeneralCommentRepository generalCommentRepository, VoteAggregator voteAggregator,
+            CommentTreeCache commentTreeCache,
+            ApplicationEventPublisher<CommentPostedEvent> commentPostedPublisher) {
         this.articleRepository = articleRepository;
-        this.userRepository = userRepository;
+        this.identityResolver = identityResolver;
         this.authorRepository = authorRepository;
-        this.expertRepository = expertRepository;
+        this.expertFieldCache = expertFieldCache;
         this.commentPostRepository = commentPostRepository;
         this.generalCommentRepository = generalCommentRepository;
+        this.voteAggregator = voteAggregator;
+        this.commentTreeCache = commentTreeCache;
+        this.commentPostedPublisher = commentPostedPublisher;
     }
 
-    private void modifyCommentAuthor(boolean approved, List<Author> articleAuthors, CommenterDTO author) {
-        if (articleAuthors.stream().anyMatch(a -> a.getUsername().equals(author.getUsername()))) {
-            if (!approved) {
-                author.setUsername("Anonymous");
-                author.setName("Anonymous");
+    /**
+     * Set the roles of the Comment authors, and hide the Article authors if the
+     * Article is not approved. The fields of every Expert are looked up at once.
+     */
+    private void modifyCommentAuthors(boolean approved, List<Author> articleAuthors, List<CommenterDTO> authors) {
+        Set<String> authorUsernames = new HashSet<>();
+        for (Author a : articleAuthors) {
+            authorUsernames.add(a.getUsername());
+        }
+        Set<String> expertUsernames = new HashSet<>();
+        for (CommenterDTO author : authors) {
+            if (!authorUsernames.contains(author.getUsername()) && author.getRole().equals("Expert")) {
+                expertUsernames.add(author.getUsername());
             }
-            author.setRole("Author");
-        } else if (author.getRole().equals("Expert")) {
-            String expertField = expertRepository.findByUsername(author.getUsername()).get().getField();
-            author.setRole("Expert in " + expertField);
         }
-    }
-
-    private void modifyTopLevelCommentDTO(boolean approved, List<Author> articleAuthors, TopLevelCommentDTO comment) {
-        modifyCommentAuthor(approved, articleAuthors, comment.getAuthor());
+        Map<String, String> expertFields = expertFieldCache.getFields(expertUsernames);
 
-        for (FollowupCommentDTO followupView : comment.getFollowups()) {
-            modifyCommentAuthor(approved, articleAuthors, followupView.getAuthor());
+        for (CommenterDTO author : authors) {
+            if (authorUsernames.contains(author.getUsername())) {
+                if (!approved) {
+                    author.setUsername("Anonymous");
+                    author.setName("Anonymous");
+                }
+                author.setRole("Author");
+            } else if (author.getRole().equals("Expert") && expertFields.containsKey(author.getUsername())) {
+                author.setRole("Expert in " + expertFields.get(author.getUsername()));
+            }
         }
     }
 
@@ -102,52 +134,116 @@ public class CommentService {
      * @throws NotFoundException if the Article does not exist in the database
      */
     public List<TopLevelCommentDTO> getArticleAllComments(Long articleId) {
+        return commentTreeCache.get(articleId, this::buildArticleComments);
+    }
+
+    private List<TopLevelCommentDTO> buildArticleComments(Long articleId) {
         // Check if Article exists
         if (!articleRepository.existsById(articleId)) {
             throw new NotFoundException("Article does not exist.");
         }
 
-        List<GeneralComment> allComments = generalCommentRepository.findAll();
+        // Load every Comment on the Article at once, then group the followups
+        // under the thread they belong to
+        List<GeneralComment> articleComments = generalCommentRepository
+                .findAllByIdIsNotNullAnd_CommentPost_ArticleIdOrderById(articleId);
+        List<GeneralComment> topLevelComments = new ArrayList<>();
+        Map<Long, List<GeneralComment>> followupsByThread = new HashMap<>();
+        for (GeneralComment gc : articleComments) {
+            if (gc.getReplyToId() == null) {
+                topLevelComments.add(gc);
+            } else {
+                followupsByThread.computeIfAbsent(gc.getRootThreadId(), id -> new ArrayList<>()).add(gc);
+            }
+        }
+
         List<TopLevelCommentDTO> topLevelCommentsView = new LinkedList<>();
         List<Author> articleAuthors = authorRepository.findAllByArticleId(articleId);
-        boolean approved = articleRepository.findById(articleId).get().getApproved() == 1;
-        for (GeneralComment gc : allComments) {
-            if (gc.getCommentPost().getArticle().getId().equals(articleId) && gc.getReplyToId() == null) {
-                List<GeneralComment> followupComments = generalCommentRepository
-                        .findAllByRootThreadId(gc.getCommentPost().getId());
-                TopLevelCommentDTO view = new TopLevelCommentDTO(gc.getCommentPost(),
-                        new CommenterDTO(gc.getCommentPost().getUser()), followupComments);
-                modifyTopLevelCommentDTO(approved, articleAuthors, view);
-                topLevelCommentsView.add(view);
+        boolean approved = articleRepository.findApprovedById(articleId).orElse(0) == 1;
+        List<CommenterDTO> commentAuthors = new ArrayList<>();
+        for (GeneralComment gc : topLevelComments) {
+            TopLevelCommentDTO view = new TopLevelCommentDTO(gc.getCommentPost(),
+                    new CommenterDTO(gc.getCommentPost().getUser()),
+                    followupsByThread.get(gc.getCommentPost().getId()));
+            voteAggregator.applyScore(view);
+            commentAuthors.add(view.getAuthor());
+            for (FollowupCommentDTO followupView : view.getFollowups()) {
+                voteAggregator.applyScore(followupView);
+                commentAuthors.add(followupView.getAuthor());
             }
+            topLevelCommentsView.add(view);
         }
+        modifyCommentAuthors(approved, articleAuthors, commentAuthors);
         return topLevelCommentsView;
     }
 
     /**
-     * Get all the Comments associated with the User ID. A NotFoundException is
-     * thrown if the User does not exist.
+     * Get a page of the Comments made by a User, newest first. A
+     * NotFoundException is thrown if the User does not exist.
      * 
      * @param username the username used to retrieve the Comments
-     * @return array of Comments associated with the User ID
+     * @param cursor   where the previous page ended, or null for the first page
+     * @param limit    the most Comments on the page, or null for every Comment
+     * @return page of Comments made by the User along with their total count
      * @throws NotFoundException if the User does not exist in the database
      */
-    public List<UserCommentDTO> getUserAllComments(String username) throws NotFoundException {
+    public CursorPage<UserCommentDTO> getUserAllComments(String username, IdCursor cursor, Integer limit)
+            throws NotFoundException {
         // Check if User exists
-        Optional<Long> userId = userRepository.findIdByUsername(username);
+        Optional<Long> userId = identityResolver.resolveId(username);
         if (userId.isEmpty()) {
             throw new NotFoundException("User does not exist.");
         }
 
-        List<GeneralComment> allComments = generalCommentRepository.findAll();
-        List<UserCommentDTO> userCommentsView = new LinkedList<>();
-        for (GeneralComment gc : allComments) {
-            if (gc.getCommentPost().getUser().getId().equals(userId.get())) {
-                userCommentsView.add(new UserCommentDTO(gc.getCommentPost()));
+        long totalCount = commentPostRepository.countGeneralCommentsByUserId(userId.get());
+        List<UserCommentDTO> userCommentsView = new ArrayList<>();
+        if (limit != null && limit <= 0) {
+            return new CursorPage<>(userCommentsView, null, totalCount);
+        }
+        int pageSize = limit == null ? ArticleSearchService.MAX_RECORDS_PER_PAGE
+                : Math.min(limit, ArticleSearchService.MAX_RECORDS_PER_PAGE);
+        long beforeId = cursor == null ? Long.MAX_VALUE : cursor.getId();
+
+        // Without a limit every page is read, one bounded IN query at a time
+        while (true) {
+            List<Long> ids = commentPostRepository.findGeneralCommentIdsByUserId(userId.get(), beforeId,
+                    pageSize + 1);
+            boolean hasNext = ids.size() > pageSize;
+            if (hasNext) {
+                ids = ids.subList(0, pageSize);
+            }
+            addUserComments(ids, userCommentsView);
+            if (!hasNext) {
+                return new CursorPage<>(userCommentsView, null, totalCount);
+            }
+
+            beforeId = ids.get(ids.size() - 1);
+            if (limit != null) {
+                return new CursorPage<>(userCommentsView, new IdCursor(beforeId), totalCount);
             }
         }
+    }
 
-        return userCommentsView;
+    /**
+     * Load the CommentPosts of the IDs in one query and add them to the view in
+     * the order of the IDs.
+     */
+    private void addUserComments(List<Long> ids, List<UserCommentDTO> userCommentsView) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Long, CommentPost> commentPosts = new HashMap<>();
+        for (CommentPost cp : commentPostRepository.findByIdIn(ids)) {
+            commentPosts.put(cp.getId(), cp);
+        }
+        for (Long id : ids) {
+            CommentPost cp = commentPosts.get(id);
+            if (cp != null) {
+                UserCommentDTO comment = new UserCommentDTO(cp);
+                voteAggregator.applyScore(comment);
+                userCommentsView.add(comment);
+            }
+        }
     }
 
     /**
@@ -162,9 +258,27 @@ public class CommentService {
      *                                  exist in the database
      * @throws IllegalArgumentException if Comment is empty
      */
+    @Transactional
     public AbstractCommentDTO postComment(Long articleId, CommentForm commentForm) {
+        return postComment(articleId, commentForm, null);
+    }
+
+    /**
+     * Post Comment to an Article post as a User whose ID may already be known.
+     *
+     * @param articleId   the Article ID of where to post the Comment
+     * @param commentForm the Comment to post
+     * @param authorId    the ID of the author from their token, or null to look
+     *                    it up by username
+     * @return the posted Comment
+     * @throws NotFoundException        if the User, Article, or Comment does not
+     *                                  exist in the database
+     * @throws IllegalArgumentException if Comment is empty
+     */
+    @Transactional
+    public AbstractCommentDTO postComment(Long articleId, CommentForm commentForm, Long authorId) {
         // Check if User exists
-        Optional<Long> userId = userRepository.findIdByUsername(commentForm.getAuthor());
+        Optional<Long> userId = identityResolver.resolveId(commentForm.getAuthor(), authorId);
         if (userId.isEmpty()) {
             throw new NotFoundException("User does not exist.");
         }
@@ -192,6 +306,8 @@ public class CommentService {
                     new CommentPost(commentForm.getRootThreadId()),
                     new CommentPost(commentForm.getReplyToId()));
             generalComment = generalCommentRepository.save(generalComment);
+            // The cached threads are dropped once the Comment is committed
+            commentPostedPublisher.publishEvent(new CommentPostedEvent(articleId));
 
             // Return the saved comment in the view format
             if (commentForm.getRootThreadId() == null) {
@@ -209,30 +325,37 @@ public class CommentService {
 
     /**
      * Upvote or downvote a Comment post from the User. A NotFoundException is
-     * thrown if Comment does not exist. If the vote action is
-     * not valid, then an IllegalArgumentException is thrown.
+     * thrown if Comment or User does not exist. If the vote action is
+     * not valid, then an IllegalArgumentException is thrown. If the User already
+     * voted the same way, then an IllegalStateException is thrown.
      *
      * @param commentPostId the Comment ID to upvote/downvote
      * @param which         the vote action, 'up' or 'down'
+     * @param userId        the ID of the User voting
      * @return the updated score of the Comment
-     * @throws NotFoundException        if the Comment does not exist in the
-     *                                  database
+     * @throws NotFoundException        if the Comment or User does not exist in
+     *                                  the database
      * @throws IllegalArgumentException if the vote action is not 'up' or 'down'
+     * @throws IllegalStateException    if the User already voted the same way
      */
-    public Integer voteComment(Long commentPostId, String which) {
-        // Check if CommentPost exists
-        Optional<CommentPost> commentPost = commentPostRepository.findById(commentPostId);
-        if (commentPost.isEmpty()) {
-            throw new NotFoundException("Comment post does not exist.");
-        }
+    public Integer voteComment(Long commentPostId, String which, Long userId) {
         // Check if vote action is valid
-        else if (!which.equals("up") && !which.equals("down")) {
+        if (!which.equals("up") && !which.equals("down")) {
             throw new IllegalArgumentException("Vote must be 'up' or 'down'.");
         }
-        // Update score
-        Integer score = which.equals("up") ? commentPost.get().upvote() : commentPost.get().downvote();
-        commentPostRepository.update(commentPostId, score);
-        return score;
+        // Check if User is known
+        else if (userId == null) {
+            throw new NotFoundException("User does not exist.");
+        }
+        // Record the vote; the score is written behind by the aggregator
+        Optional<Integer> score = voteAggregator.vote(VoteAggregator.Target.COMMENT_POST, commentPostId, userId,
+                which.equals("up") ? 1 : -1, commentPostRepository::findScoreById);
+        // Check if CommentPost exists
+        if (score.isEmpty()) {
+            throw new NotFoundException("Comment post does not exist.");
+        }
+        commentTreeCache.updateScore(commentPostId, score.get());
+        return score.get();
     }
 
 }
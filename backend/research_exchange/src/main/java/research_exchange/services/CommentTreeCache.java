@@ -0,0 +1,170 @@
+package research_exchange.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.transaction.annotation.TransactionalEventListener;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import research_exchange.dto.AbstractCommentDTO;
+import research_exchange.dto.FollowupCommentDTO;
+import research_exchange.dto.TopLevelCommentDTO;
+
+/**
+ * The Comment Tree Cache class which keeps the assembled Comment threads of
+ * recently viewed Articles. Entries are evicted by size and age, dropped once a
+ * Comment posted on the Article commits, the Article is approved, or one of its
+ * commenters becomes or stops being an Expert, and votes update the cached
+ * scores in place. Hit and miss counts are published under
+ * the {@code cache.*} metrics with the name {@code comment-trees}.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class CommentTreeCache {
+
+    /** The Comment threads of each cached Article. */
+    private final Cache<Long, List<TopLevelCommentDTO>> trees;
+
+    /** Every cached Comment by its CommentPost ID, for updating scores. */
+    private final Map<Long, AbstractCommentDTO> cachedComments = new ConcurrentHashMap<>();
+
+    /**
+     * The cached threads each User has commented in, by username and then
+     * Article ID, for dropping the threads that show their role.
+     */
+    private final Map<String, Map<Long, List<TopLevelCommentDTO>>> treesByCommenter = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped whenever the role of a User changes, so threads built while it
+     * changed are built again.
+     */
+    private final AtomicLong roleChanges = new AtomicLong();
+
+    /**
+     * Setup the cache and register its metrics.
+     *
+     * @param meterRegistry the registry to publish the hit and miss counts to
+     * @param maximumSize   the most Articles whose threads are cached
+     * @param expireAfter   how long a cached thread is kept after it is built
+     */
+    public CommentTreeCache(MeterRegistry meterRegistry,
+            @Value("${research-exchange.comment-trees.maximum-size:1000}") long maximumSize,
+            @Value("${research-exchange.comment-trees.expire-after-write:10m}") Duration expireAfter) {
+        this.trees = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .removalListener((Long articleId, List<TopLevelCommentDTO> tree, RemovalCause cause) -> {
+                    if (tree != null && cause != RemovalCause.REPLACED) {
+                        forEachComment(tree, comment -> {
+                            cachedComments.remove(comment.getId(), comment);
+                            treesByCommenter.computeIfPresent(comment.getAuthor().getUsername(), (u, commented) -> {
+                                commented.remove(articleId, tree);
+                                return commented.isEmpty() ? null : commented;
+                            });
+                        });
+                    }
+                })
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, trees, "comment-trees");
+    }
+
+    /**
+     * Get the Comment threads of an Article, building and caching them if they
+     * are not cached.
+     *
+     * @param articleId the Article ID
+     * @param loader    builds the Comment threads of the Article
+     * @return the Comment threads; shared with other callers, so not to be
+     *         modified
+     */
+    public List<TopLevelCommentDTO> get(Long articleId, Function<Long, List<TopLevelCommentDTO>> loader) {
+        return trees.get(articleId, id -> {
+            while (true) {
+                long changesBefore = roleChanges.get();
+                List<TopLevelCommentDTO> tree = loader.apply(id);
+                forEachComment(tree, comment -> {
+                    cachedComments.put(comment.getId(), comment);
+                    treesByCommenter.compute(comment.getAuthor().getUsername(), (u, commented) -> {
+                        Map<Long, List<TopLevelCommentDTO>> updated = commented != null ? commented
+                                : new ConcurrentHashMap<>();
+                        updated.put(id, tree);
+                        return updated;
+                    });
+                });
+                // Otherwise a role changed while the roles were being read
+                if (roleChanges.get() == changesBefore) {
+                    return tree;
+                }
+            }
+        });
+    }
+
+    /**
+     * Update the score of a cached Comment after a vote.
+     *
+     * @param commentPostId the CommentPost ID of the Comment
+     * @param score         the new score
+     */
+    public void updateScore(Long commentPostId, Integer score) {
+        AbstractCommentDTO comment = cachedComments.get(commentPostId);
+        if (comment != null) {
+            comment.setScore(score);
+        }
+    }
+
+    /**
+     * Drop the cached Comment threads of an Article, so they are rebuilt on the
+     * next view.
+     *
+     * @param articleId the Article ID
+     */
+    public void invalidate(Long articleId) {
+        trees.invalidate(articleId);
+    }
+
+    /**
+     * Drop the cached Comment threads that a User has commented in, after they
+     * have become or stopped being an Expert, so their new role is shown.
+     *
+     * @param username the username of the User
+     */
+    public void invalidateCommenter(String username) {
+        roleChanges.incrementAndGet();
+        Map<Long, List<TopLevelCommentDTO>> commented = treesByCommenter.get(username);
+        if (commented != null) {
+            trees.invalidateAll(commented.keySet());
+        }
+    }
+
+    /**
+     * Drop the cached Comment threads of an Article once a Comment posted on it
+     * is committed, so a view cannot cache the threads without it again.
+     *
+     * @param event the posted Comment
+     */
+    @TransactionalEventListener
+    void onCommentPosted(CommentPostedEvent event) {
+        invalidate(event.getArticleId());
+    }
+
+    private static void forEachComment(List<TopLevelCommentDTO> tree, Consumer<AbstractCommentDTO> action) {
+        for (TopLevelCommentDTO topLevel : tree) {
+            action.accept(topLevel);
+            for (FollowupCommentDTO followup : topLevel.getFollowups()) {
+                action.accept(followup);
+            }
+        }
+    }
+
+}
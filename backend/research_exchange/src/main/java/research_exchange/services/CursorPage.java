@@ -0,0 +1,63 @@
+package research_exchange.services;
+
+import java.util.List;
+
+/**
+ * The Cursor Page class which holds one page of a listing ordered by ID, the
+ * cursor for the page after it, and the number of items across every page.
+ *
+ * @param <T> the type of the listed items
+ * @author Tyrone Wu
+ */
+public final class CursorPage<T> {
+
+    /** The items on the page. */
+    private final List<T> items;
+
+    /** The cursor for the next page, or null if this is the last page. */
+    private final IdCursor nextCursor;
+
+    /** The number of items across every page. */
+    private final long totalCount;
+
+    /**
+     * The constructor for a cursor page.
+     *
+     * @param items      the items on the page
+     * @param nextCursor the cursor for the next page, or null if there is none
+     * @param totalCount the number of items across every page
+     */
+    public CursorPage(List<T> items, IdCursor nextCursor, long totalCount) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Get the items on the page.
+     *
+     * @return the items
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Get the cursor for the next page.
+     *
+     * @return the cursor, or null if this is the last page
+     */
+    public IdCursor getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Get the number of items across every page.
+     *
+     * @return the total count
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+}
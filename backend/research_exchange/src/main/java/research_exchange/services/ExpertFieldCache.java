@@ -0,0 +1,106 @@
+package research_exchange.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import research_exchange.models.Expert;
+import research_exchange.repositories.ExpertRepository;
+
+/**
+ * The Expert Field Cache class which keeps the field of recently seen Experts,
+ * so the role of every Expert commenter in a response does not cost its own
+ * query. Entries are evicted by size and age, and dropped when an Expert is
+ * assigned or removed. Hit and miss counts are published under the
+ * {@code cache.*} metrics with the name {@code expert-fields}.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ExpertFieldCache {
+
+    /** The most usernames listed in a single IN condition. */
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
+    /** For accessing Expert DB table. */
+    private final ExpertRepository expertRepository;
+
+    /** The field of each cached Expert by username. */
+    private final Cache<String, String> fields;
+
+    /**
+     * Setup the Expert repository into the cache and register its metrics.
+     *
+     * @param expertRepository the Expert repository
+     * @param meterRegistry    the registry to publish the hit and miss counts to
+     * @param maximumSize      the most Experts whose field is cached
+     * @param expireAfter      how long a field is kept after it is loaded
+     */
+    public ExpertFieldCache(ExpertRepository expertRepository, MeterRegistry meterRegistry,
+            @Value("${research-exchange.expert-fields.maximum-size:10000}") long maximumSize,
+            @Value("${research-exchange.expert-fields.expire-after-write:10m}") Duration expireAfter) {
+        this.expertRepository = expertRepository;
+        this.fields = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, fields, "expert-fields");
+    }
+
+    /**
+     * Get the field of an Expert.
+     *
+     * @param username the username of the Expert
+     * @return the field of the Expert; empty if the User is not an Expert
+     */
+    public Optional<String> getField(String username) {
+        return Optional.ofNullable(getFields(List.of(username)).get(username));
+    }
+
+    /**
+     * Get the fields of several Experts, loading every one that is not cached in
+     * a single query.
+     *
+     * @param usernames the usernames of the Experts
+     * @return the field of each username that belongs to an Expert
+     */
+    public Map<String, String> getFields(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return new HashMap<>();
+        }
+        return fields.getAll(usernames, this::load);
+    }
+
+    /**
+     * Drop the cached field of an Expert after it is assigned or removed.
+     *
+     * @param username the username of the Expert
+     */
+    public void invalidate(String username) {
+        fields.invalidate(username);
+    }
+
+    private Map<String, String> load(Set<? extends String> usernames) {
+        List<String> missing = new ArrayList<>(usernames);
+        Map<String, String> loaded = new HashMap<>();
+        for (int i = 0; i < missing.size(); i += MAX_IN_LIST_SIZE) {
+            List<String> chunk = missing.subList(i, Math.min(i + MAX_IN_LIST_SIZE, missing.size()));
+            for (Expert expert : expertRepository.findByUsernameIn(chunk)) {
+                loaded.put(expert.getUsername(), expert.getField());
+            }
+        }
+        return loaded;
+    }
+
+}
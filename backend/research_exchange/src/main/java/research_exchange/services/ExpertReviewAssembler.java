@@ -0,0 +1,206 @@
+package research_exchange.services;
+
+import jakarta.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import research_exchange.dto.CommenterDTO;
+import research_exchange.dto.ExpertReviewDTO;
+import research_exchange.dto.FollowupCommentDTO;
+import research_exchange.dto.InlineCommentDTO;
+import research_exchange.dto.UserReviewDTO;
+import research_exchange.models.ExpertReview;
+import research_exchange.models.GeneralComment;
+import research_exchange.models.InlineComment;
+import research_exchange.repositories.GeneralCommentRepository;
+import research_exchange.repositories.InlineCommentRepository;
+
+/**
+ * The Expert Review Assembler class which builds the views of a list of Expert
+ * Reviews. The Inline Comments and Highlight Sections of every review are
+ * loaded in one query, and the followups of every review and Inline Comment in
+ * another, so the number of queries does not grow with the number of reviews.
+ * Scores include the votes the VoteAggregator has not written yet.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ExpertReviewAssembler {
+
+    /** The most IDs listed in a single IN condition. */
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
+    /** For accessing Inline Comment DB table. */
+    private final InlineCommentRepository inlineCommentRepository;
+
+    /** For accessing General Comment DB table. */
+    private final GeneralCommentRepository generalCommentRepository;
+
+    /** For adding the votes not yet written to the scores. */
+    private final VoteAggregator voteAggregator;
+
+    /**
+     * Setup Inline Comment and General Comment repository into the Expert Review
+     * Assembler.
+     *
+     * @param inlineCommentRepository  the Inline Comment repository
+     * @param generalCommentRepository the General Comment repository
+     * @param voteAggregator           the Vote Aggregator
+     */
+    public ExpertReviewAssembler(InlineCommentRepository inlineCommentRepository,
+            GeneralCommentRepository generalCommentRepository, VoteAggregator voteAggregator) {
+        this.inlineCommentRepository = inlineCommentRepository;
+        this.generalCommentRepository = generalCommentRepository;
+        this.voteAggregator = voteAggregator;
+    }
+
+    /**
+     * Build the views of the Expert Reviews along with their Inline Comments,
+     * Highlight Sections, and followups.
+     *
+     * @param expertReviews the Expert Reviews, with their CommentPost and User
+     * @param userView      if the views are for the user profile
+     * @return the views in the same order as the Expert Reviews
+     */
+    public List<ExpertReviewDTO> assemble(List<ExpertReview> expertReviews, boolean userView) {
+        List<ExpertReviewDTO> views = new LinkedList<>();
+        if (expertReviews.isEmpty()) {
+            return views;
+        }
+
+        // Gather the Inline Comments of every review
+        List<Long> expertReviewIds = new ArrayList<>(expertReviews.size());
+        for (ExpertReview er : expertReviews) {
+            expertReviewIds.add(er.getId());
+        }
+        Map<Long, List<InlineComment>> inlineCommentsByReview = new HashMap<>();
+        for (List<Long> ids : chunks(expertReviewIds)) {
+            for (InlineComment ic : inlineCommentRepository.findAllByExpertReviewIdIn(ids)) {
+                inlineCommentsByReview.computeIfAbsent(ic.getExpertReviewId(), id -> new ArrayList<>()).add(ic);
+            }
+        }
+
+        // Every review and Inline Comment is the root of its own followup thread
+        List<Long> threadIds = new ArrayList<>();
+        for (ExpertReview er : expertReviews) {
+            threadIds.add(er.getCommentPost().getId());
+            for (InlineComment ic : inlineCommentsByReview.getOrDefault(er.getId(), Collections.emptyList())) {
+                threadIds.add(ic.getCommentPost().getId());
+            }
+        }
+        Map<Long, List<GeneralComment>> followupsByThread = new HashMap<>();
+        for (List<Long> ids : chunks(threadIds)) {
+            for (GeneralComment gc : generalCommentRepository.findAllByRootThreadIdInOrderById(ids)) {
+                followupsByThread.computeIfAbsent(gc.getRootThreadId(), id -> new ArrayList<>()).add(gc);
+            }
+        }
+
+        for (ExpertReview er : expertReviews) {
+            CommenterDTO author = new CommenterDTO(er.getCommentPost().getUser());
+            List<InlineCommentDTO> icViews = new LinkedList<>();
+            for (InlineComment ic : inlineCommentsByReview.getOrDefault(er.getId(), Collections.emptyList())) {
+                InlineCommentDTO icView = new InlineCommentDTO(ic, author,
+                        followupsByThread.get(ic.getCommentPost().getId()));
+                voteAggregator.applyScore(icView);
+                for (FollowupCommentDTO followup : icView.getFollowups()) {
+                    voteAggregator.applyScore(followup);
+                }
+                icViews.add(icView);
+            }
+
+            List<GeneralComment> followups = followupsByThread.get(er.getCommentPost().getId());
+            ExpertReviewDTO view = userView ? new UserReviewDTO(er, author, followups, icViews)
+                    : new ExpertReviewDTO(er, author, followups, icViews);
+            voteAggregator.applyScore(view);
+            for (FollowupCommentDTO followup : view.getFollowups()) {
+                voteAggregator.applyScore(followup);
+            }
+            views.add(view);
+        }
+        return views;
+    }
+
+    /**
+     * Build the view of an Expert Review that was just posted, which has no
+     * followups or votes yet.
+     *
+     * @param expertReview   the posted Expert Review
+     * @param author         the author of the Expert Review
+     * @param inlineComments the posted Inline Comments; null if there are none
+     * @return the view of the Expert Review
+     */
+    public ExpertReviewDTO assembleNew(ExpertReview expertReview, CommenterDTO author,
+            List<InlineComment> inlineComments) {
+        List<InlineCommentDTO> icViews = new LinkedList<>();
+        if (inlineComments != null) {
+            for (InlineComment ic : inlineComments) {
+                icViews.add(new InlineCommentDTO(ic, author, null));
+            }
+        }
+        return new ExpertReviewDTO(expertReview, author, null, icViews);
+    }
+
+    /**
+     * Build the views of Inline Comments on their own, without the rest of
+     * their Expert Reviews.
+     *
+     * @param inlineCommentIds the Inline Comment IDs
+     * @return the views in the same order as the IDs, skipping any that do not
+     *         exist
+     */
+    public List<InlineCommentDTO> assembleInlineComments(List<Long> inlineCommentIds) {
+        List<InlineCommentDTO> views = new LinkedList<>();
+        if (inlineCommentIds.isEmpty()) {
+            return views;
+        }
+
+        Map<Long, InlineComment> inlineComments = new HashMap<>();
+        for (List<Long> ids : chunks(inlineCommentIds)) {
+            for (InlineComment ic : inlineCommentRepository.findAllByIdIn(ids)) {
+                inlineComments.put(ic.getId(), ic);
+            }
+        }
+
+        List<Long> threadIds = new ArrayList<>(inlineComments.size());
+        for (InlineComment ic : inlineComments.values()) {
+            threadIds.add(ic.getCommentPost().getId());
+        }
+        Map<Long, List<GeneralComment>> followupsByThread = new HashMap<>();
+        for (List<Long> ids : chunks(threadIds)) {
+            for (GeneralComment gc : generalCommentRepository.findAllByRootThreadIdInOrderById(ids)) {
+                followupsByThread.computeIfAbsent(gc.getRootThreadId(), id -> new ArrayList<>()).add(gc);
+            }
+        }
+
+        for (Long id : inlineCommentIds) {
+            InlineComment ic = inlineComments.get(id);
+            if (ic == null) {
+                continue;
+            }
+            InlineCommentDTO icView = new InlineCommentDTO(ic, new CommenterDTO(ic.getCommentPost().getUser()),
+                    followupsByThread.get(ic.getCommentPost().getId()));
+            voteAggregator.applyScore(icView);
+            for (FollowupCommentDTO followup : icView.getFollowups()) {
+                voteAggregator.applyScore(followup);
+            }
+            views.add(icView);
+        }
+        return views;
+    }
+
+    /**
+     * Split the IDs into lists small enough for one IN condition. Nearly always
+     * there is only one.
+     */
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += MAX_IN_LIST_SIZE) {
+            chunks.add(ids.subList(i, Math.min(i + MAX_IN_LIST_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
+}
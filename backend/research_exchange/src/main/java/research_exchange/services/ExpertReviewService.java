@@ -1,32 +1,32 @@
 package research_exchange.services;
 
+import io.micronaut.context.event.ApplicationEventPublisher;
 import io.micronaut.data.exceptions.DataAccessException;
+import io.micronaut.transaction.annotation.TransactionalEventListener;
 import jakarta.inject.Singleton;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
-
+import javax.transaction.Transactional;
 import javax.ws.rs.NotAuthorizedException;
 import javax.ws.rs.NotFoundException;
 import research_exchange.forms.ExpertReviewForm;
-import research_exchange.forms.HighlightSectionForm;
-import research_exchange.forms.InlineCommentForm;
 import research_exchange.models.Article;
 import research_exchange.models.CommentPost;
 import research_exchange.models.ExpertReview;
-import research_exchange.models.GeneralComment;
-import research_exchange.models.HighlightSection;
 import research_exchange.models.InlineComment;
 import research_exchange.models.User;
 import research_exchange.repositories.ArticleRepository;
 import research_exchange.repositories.AuthorRepository;
-import research_exchange.repositories.ExpertRepository;
+import research_exchange.repositories.CommentPostRepository;
 import research_exchange.repositories.ExpertReviewRepository;
-import research_exchange.repositories.GeneralCommentRepository;
-import research_exchange.repositories.InlineCommentRepository;
-import research_exchange.repositories.UserRepository;
+import research_exchange.dto.AnnotationHeatmapDTO;
 import research_exchange.dto.ExpertReviewDTO;
 import research_exchange.dto.FollowupCommentDTO;
 import research_exchange.dto.InlineCommentDTO;
@@ -42,48 +42,103 @@ import research_exchange.dto.CommenterDTO;
 @Singleton
 public class ExpertReviewService {
 
-    /** For accessing User DB table. */
-    private final UserRepository userRepository;
+    /** The number of approving Expert Reviews that approves an Article. */
+    private static final int APPROVALS_NEEDED = 3;
+
+    /** The constraint allowing one Expert Review per User on each Article. */
+    private static final String UNIQUE_AUTHOR_CONSTRAINT = "UQ_EXPERT_REVIEW_USER_ARTICLE";
+
+    /** The error for a User reviewing the same Article twice. */
+    private static final String DUPLICATE_REVIEW = "User has already posted an Expert Review on this Article.";
+
+    /** For resolving the usernames of Users. */
+    private final IdentityResolver identityResolver;
 
     /** For accessing Author DB table. */
     private final AuthorRepository authorRepository;
 
-    /** For accessing Expert DB table. */
-    private final ExpertRepository expertRepository;
+    /** For looking up the fields of Expert commenters. */
+    private final ExpertFieldCache expertFieldCache;
 
     /** For accessing Article DB table. */
     private final ArticleRepository articleRepository;
 
+    /** For accessing CommentPost DB table. */
+    private final CommentPostRepository commentPostRepository;
+
     /** For accessing Expert Review DB table. */
     private final ExpertReviewRepository expertReviewRepository;
 
-    /** For accessing Inline Comment DB table. */
-    private final InlineCommentRepository inlineCommentRepository;
+    /** For inserting Inline Comments and Highlight Sections in batches. */
+    private final ReviewGraphWriter reviewGraphWriter;
+
+    /** For building the views of Expert Reviews. */
+    private final ExpertReviewAssembler expertReviewAssembler;
+
+    /** For making the authors of approved Articles searchable. */
+    private final ArticleSearchIndex articleSearchIndex;
 
-    /** For accessing General Comment DB table. */
-    private final GeneralCommentRepository generalCommentRepository;
+    /** For ranking approved Articles. */
+    private final ArticleLeaderboard articleLeaderboard;
+
+    /** For dropping Comment threads whose authors are no longer anonymous. */
+    private final CommentTreeCache commentTreeCache;
+
+    /** For finding the Inline Comments under an area of a page. */
+    private final HighlightIndex highlightIndex;
+
+    /** For counting where on each page Inline Comments are made. */
+    private final AnnotationHeatmap annotationHeatmap;
+
+    /** For updating what is kept in memory once an approval commits. */
+    private final ApplicationEventPublisher<ArticleApprovedEvent> articleApprovedPublisher;
+
+    /** For updating the indexes of Inline Comments once a review commits. */
+    private final ApplicationEventPublisher<InlineCommentsPostedEvent> inlineCommentsPublisher;
 
     /**
      * Setup Expert Review, Article, and User repository into the Expert Review
      * service.
      * 
-     * @param userRepository           the User Repository
+     * @param identityResolver         the Identity Resolver
+     * @param expertFieldCache         the Expert Field Cache
      * @param articleRepository        the Article Repository
+     * @param commentPostRepository    the CommentPost repository
      * @param expertReviewRepository   the Expert Review repository
-     * @param inlineCommentRepository  the Inline Comment repository
-     * @param generalCommentRepository the General Comment repository
+     * @param reviewGraphWriter        the Review Graph Writer
+     * @param expertReviewAssembler    the Expert Review Assembler
+     * @param articleSearchIndex       the Article Search Index
+     * @param articleLeaderboard       the Article Leaderboard
+     * @param commentTreeCache         the Comment Tree Cache
+     * @param highlightIndex           the Highlight Index
+     * @param annotationHeatmap        the Annotation Heatmap
+     * @param articleApprovedPublisher the publisher of approved Articles
+     * @param inlineCommentsPublisher  the publisher of posted Inline Comments
      */
-    public ExpertReviewService(UserRepository userRepository, AuthorRepository authorRepository,
-            ExpertRepository expertRepository, ArticleRepository articleRepository,
-            ExpertReviewRepository expertReviewRepository, InlineCommentRepository inlineCommentRepository,
-            GeneralCommentRepository generalCommentRepository) {
-        this.userRepository = userRepository;
+    public ExpertReviewService(IdentityResolver identityResolver, AuthorRepository authorRepository,
+            ExpertFieldCache expertFieldCache, ArticleRepository articleRepository,
+            CommentPostRepository commentPostRepository, ExpertReviewRepository expertReviewRepository,
+            ReviewGraphWriter reviewGraphWriter, ExpertReviewAssembler expertReviewAssembler,
+            ArticleSearchIndex articleSearchIndex, ArticleLeaderboard articleLeaderboard,
+            CommentTreeCache commentTreeCache, HighlightIndex highlightIndex,
+            AnnotationHeatmap annotationHeatmap,
+            ApplicationEventPublisher<ArticleApprovedEvent> articleApprovedPublisher,
+            ApplicationEventPublisher<InlineCommentsPostedEvent> inlineCommentsPublisher) {
+        this.identityResolver = identityResolver;
         this.authorRepository = authorRepository;
-        this.expertRepository = expertRepository;
+        this.expertFieldCache = expertFieldCache;
         this.articleRepository = articleRepository;
+        this.commentPostRepository = commentPostRepository;
         this.expertReviewRepository = expertReviewRepository;
-        this.inlineCommentRepository = inlineCommentRepository;
-        this.generalCommentRepository = generalCommentRepository;
+        this.reviewGraphWriter = reviewGraphWriter;
+        this.expertReviewAssembler = expertReviewAssembler;
+        this.articleSearchIndex = articleSearchIndex;
+        this.articleLeaderboard = articleLeaderboard;
+        this.commentTreeCache = commentTreeCache;
+        this.highlightIndex = highlightIndex;
+        this.annotationHeatmap = annotationHeatmap;
+        this.articleApprovedPublisher = articleApprovedPublisher;
+        this.inlineCommentsPublisher = inlineCommentsPublisher;
     }
 
     /**
@@ -101,68 +156,142 @@ public class ExpertReviewService {
             throw new NotFoundException("Article does not exist.");
         }
 
-        List<ExpertReview> allExpertReviews = expertReviewRepository.findAll();
-        List<ExpertReview> articleExpertReviews = new LinkedList<>();
-        for (ExpertReview er : allExpertReviews) {
-            if (er.getCommentPost().getArticle().getId().equals(articleId)) {
-                articleExpertReviews.add(er);
-            }
-        }
+        List<ExpertReview> articleExpertReviews = expertReviewRepository
+                .findAllByIdIsNotNullAnd_CommentPost_ArticleId(articleId);
 
         List<String> articleAuthors = authorRepository.findAllByArticleId(articleId).stream().map(a -> a.getUsername())
                 .collect(Collectors.toList());
         ;
         boolean approved = articleOption.get().getApproved() == 1;
-        List<ExpertReviewDTO> expertReviewDTOs = formatExpertReviewList(articleExpertReviews, false);
-        for (ExpertReviewDTO review : expertReviewDTOs) {
-            modifyExpertReviewDTO(approved, articleAuthors, review);
-        }
+        List<ExpertReviewDTO> expertReviewDTOs = expertReviewAssembler.assemble(articleExpertReviews, false);
+        modifyExpertReviewDTOs(approved, articleAuthors, expertReviewDTOs);
         return expertReviewDTOs;
     }
 
     /**
-     * Get all the Expert Reviews associated with the User ID. A NotFoundException
-     * is thrown if the User does not exist.
+     * Get the Inline Comments on a page of an Article whose Highlight Sections
+     * overlap an area of the page, or every Inline Comment on the page if no
+     * area is given. A NotFoundException is thrown if the Article does not
+     * exist.
+     *
+     * @param articleId the Article ID
+     * @param pageNum   the page number
+     * @param x         the left edge of the area, or null for the whole page
+     * @param y         the top edge of the area, or null for the whole page
+     * @param width     the width of the area, or null for the whole page
+     * @param height    the height of the area, or null for the whole page
+     * @return list of the Inline Comments, oldest first
+     * @throws NotFoundException        if the Article does not exist in the
+     *                                  database
+     * @throws IllegalArgumentException if the area is only partly given or has
+     *                                  a negative size
+     */
+    public List<InlineCommentDTO> getPageInlineComments(Long articleId, int pageNum, Integer x, Integer y,
+            Integer width, Integer height) {
+        boolean wholePage = x == null && y == null && width == null && height == null;
+        if (!wholePage && (x == null || y == null || width == null || height == null)) {
+            throw new IllegalArgumentException("Area must have x, y, width, and height.");
+        } else if (!wholePage && (width < 0 || height < 0)) {
+            throw new IllegalArgumentException("Area must not have a negative width or height.");
+        }
+
+        // Check if Article exists
+        Optional<Integer> approved = articleRepository.findApprovedById(articleId);
+        if (approved.isEmpty()) {
+            throw new NotFoundException("Article does not exist.");
+        }
+
+        List<Long> inlineCommentIds = wholePage ? highlightIndex.onPage(articleId, pageNum)
+                : highlightIndex.intersecting(articleId, pageNum, x, y, width, height);
+        List<InlineCommentDTO> inlineComments = expertReviewAssembler.assembleInlineComments(inlineCommentIds);
+        if (inlineComments.isEmpty()) {
+            return inlineComments;
+        }
+
+        List<String> articleAuthors = authorRepository.findAllByArticleId(articleId).stream().map(a -> a.getUsername())
+                .collect(Collectors.toList());
+        List<CommenterDTO> authors = new ArrayList<>();
+        addInlineCommentAuthors(inlineComments, authors);
+        modifyCommentAuthors(approved.get() == 1, articleAuthors, authors);
+        return inlineComments;
+    }
+
+    /**
+     * Get how many Inline Comments highlight each area of each page of an
+     * Article. A NotFoundException is thrown if the Article does not exist.
+     *
+     * @param articleId the Article ID
+     * @return the heatmap of every page with an Inline Comment
+     * @throws NotFoundException if the Article does not exist in the database
+     */
+    public AnnotationHeatmapDTO getAnnotationHeatmap(Long articleId) {
+        // Check if Article exists
+        if (articleRepository.findApprovedById(articleId).isEmpty()) {
+            throw new NotFoundException("Article does not exist.");
+        }
+        return annotationHeatmap.get(articleId);
+    }
+
+    /**
+     * Get a page of the Expert Reviews made by a User, newest first. A
+     * NotFoundException is thrown if the User does not exist.
      * 
      * @param username the User's username used to retrieve the Expert Reviews
-     * @return list of Expert Reviews associated with the User ID
+     * @param cursor   where the previous page ended, or null for the first page
+     * @param limit    the most Expert Reviews on the page, or null for every
+     *                 Expert Review
+     * @return page of Expert Reviews made by the User along with their total
+     *         count
      * @throws NotFoundException if the User does not exist in the database
      */
-    public List<UserReviewDTO> getUserAllExpertReviews(String username) {
+    public CursorPage<UserReviewDTO> getUserAllExpertReviews(String username, IdCursor cursor, Integer limit) {
         // Check if User exists
-        Optional<Long> userId = userRepository.findIdByUsername(username);
+        Optional<Long> userId = identityResolver.resolveId(username);
         if (userId.isEmpty()) {
             throw new NotFoundException("User does not exist.");
         }
 
-        List<ExpertReview> allExpertReviews = expertReviewRepository.findAll();
-        List<ExpertReview> userExpertReviews = new LinkedList<>();
-        for (ExpertReview er : allExpertReviews) {
-            if (er.getCommentPost().getUser().getId().equals(userId.get())) {
-                userExpertReviews.add(er);
-            }
+        long totalCount = commentPostRepository.countExpertReviewsByUserId(userId.get());
+        List<UserReviewDTO> expertReviewViews = new ArrayList<>();
+        if (limit != null && limit <= 0) {
+            return new CursorPage<>(expertReviewViews, null, totalCount);
         }
-        List<UserReviewDTO> expertReviewViews = formatExpertReviewList(userExpertReviews, true).stream()
-                .map(element -> (UserReviewDTO) element)
-                .collect(Collectors.toList());
-        return expertReviewViews;
-    }
+        int pageSize = limit == null ? ArticleSearchService.MAX_RECORDS_PER_PAGE
+                : Math.min(limit, ArticleSearchService.MAX_RECORDS_PER_PAGE);
+        long beforeId = cursor == null ? Long.MAX_VALUE : cursor.getId();
+
+        // Without a limit every page is read, one bounded IN query at a time
+        while (true) {
+            List<Long> ids = commentPostRepository.findExpertReviewIdsByUserId(userId.get(), beforeId,
+                    pageSize + 1);
+            boolean hasNext = ids.size() > pageSize;
+            if (hasNext) {
+                ids = ids.subList(0, pageSize);
+            }
+            if (!ids.isEmpty()) {
+                Map<Long, ExpertReview> byCommentPost = new HashMap<>();
+                for (ExpertReview er : expertReviewRepository.findAllByCommentPostIdIn(ids)) {
+                    byCommentPost.put(er.getCommentPost().getId(), er);
+                }
+                List<ExpertReview> pageReviews = new ArrayList<>();
+                for (Long id : ids) {
+                    if (byCommentPost.containsKey(id)) {
+                        pageReviews.add(byCommentPost.get(id));
+                    }
+                }
+                for (ExpertReviewDTO review : expertReviewAssembler.assemble(pageReviews, true)) {
+                    expertReviewViews.add((UserReviewDTO) review);
+                }
+            }
+            if (!hasNext) {
+                return new CursorPage<>(expertReviewViews, null, totalCount);
+            }
 
-    /**
-     * Format a list of expert reviews.
-     *
-     * @param expertReviews list of expert reviews to format
-     * @param userView      if the view is on the user profile
-     * @return array of formatted expert reviews
-     */
-    private List<ExpertReviewDTO> formatExpertReviewList(List<ExpertReview> expertReviews, boolean userView) {
-        List<ExpertReviewDTO> expertReviewViews = new LinkedList<>();
-        for (ExpertReview er : expertReviews) {
-            List<InlineComment> inlineComments = inlineCommentRepository.findAllByExpertReviewId(er.getId());
-            expertReviewViews.add(formatExpertReview(er, new CommenterDTO(er.getCommentPost().getUser()),
-                    inlineComments, false, userView));
+            beforeId = ids.get(ids.size() - 1);
+            if (limit != null) {
+                return new CursorPage<>(expertReviewViews, new IdCursor(beforeId), totalCount);
+            }
         }
-        return expertReviewViews;
     }
 
     /**
@@ -186,11 +315,8 @@ public class ExpertReviewService {
         boolean approved = article.getApproved() == 1;
 
         // Get Expert Review
-        List<InlineComment> inlineComments = inlineCommentRepository
-                .findAllByExpertReviewId(expertReview.get().getId());
-        ExpertReviewDTO review = formatExpertReview(expertReview.get(),
-                new CommenterDTO(expertReview.get().getCommentPost().getUser()), inlineComments, false, false);
-        modifyExpertReviewDTO(approved, articleAuthors, review);
+        ExpertReviewDTO review = expertReviewAssembler.assemble(List.of(expertReview.get()), false).get(0);
+        modifyExpertReviewDTOs(approved, articleAuthors, List.of(review));
         return review;
     }
 
@@ -201,8 +327,12 @@ public class ExpertReviewService {
      * @param newStatus      the new status to update with
      * @throws NotFoundException        if the expert review does not exist
      * @throws IllegalArgumentException if the article of the expert review is
-     *                                  already approved
+     *                                  already approved or the new status is not
+     *                                  valid
+     * @throws IllegalStateException    if the status was changed by another edit
+     *                                  since it was read
      */
+    @Transactional
     public ExpertReviewDTO editExpertReviewStatus(String authorName, Long expertReviewId, String newStatus) {
         // Check if expert review exists
         Optional<ExpertReview> expertReview = expertReviewRepository.findByCommentPostId(expertReviewId);
@@ -214,15 +344,25 @@ public class ExpertReviewService {
             throw new NotAuthorizedException("Can only edit status of article you have posted");
         }
 
-        // Update the expert review's status
-        expertReviewRepository.updateByCommentPostId(expertReviewId, newStatus);
+        // Update the expert review's status and move it to the new tally. Only the
+        // edit that changes the status it read moves the tally, so concurrent
+        // edits cannot count the review twice.
+        Long articleId = expertReview.get().getCommentPost().getArticle().getId();
+        String oldStatus = expertReview.get().getStatus();
+        if (!oldStatus.equals(newStatus)) {
+            if (expertReviewRepository.updateStatusIfUnchanged(expertReviewId, oldStatus, newStatus) != 1) {
+                throw new IllegalStateException("Expert Review status was changed by another edit, try again.");
+            }
+            updateReviewTally(articleId, newStatus, 1);
+            updateReviewTally(articleId, oldStatus, -1);
+            expertReview.get().setStatus(newStatus);
+            if (articleRepository.updateApprovedIfReviewed(articleId, APPROVALS_NEEDED) > 0) {
+                articleApprovedPublisher.publishEvent(new ArticleApprovedEvent(articleId));
+            }
+        }
 
         // Get Expert Review
-        List<InlineComment> inlineComments = inlineCommentRepository
-                .findAllByExpertReviewId(expertReview.get().getId());
-        ExpertReviewDTO view = formatExpertReview(expertReview.get(),
-                new CommenterDTO(expertReview.get().getCommentPost().getUser()), inlineComments, false, false);
-        return view;
+        return expertReviewAssembler.assemble(List.of(expertReview.get()), false).get(0);
     }
 
     /**
@@ -238,9 +378,29 @@ public class ExpertReviewService {
      * @throws IllegalArgumentException if the review is empty or if status is not
      *                                  valid
      */
+    @Transactional
     public ExpertReviewDTO postExpertReview(Long articleId, ExpertReviewForm expertReviewForm) {
+        return postExpertReview(articleId, expertReviewForm, null);
+    }
+
+    /**
+     * Post an Expert Review to an Article post as a User whose ID may already be
+     * known.
+     *
+     * @param articleId        the Article ID of where to post the Expert Review
+     * @param expertReviewForm the Expert Review to post
+     * @param authorId         the ID of the author from their token, or null to
+     *                         look it up by username
+     * @return the posted Expert Review
+     * @throws NotFoundException        if the User and Article does not exist in
+     *                                  the database
+     * @throws IllegalArgumentException if the review is empty or if status is not
+     *                                  valid
+     */
+    @Transactional
+    public ExpertReviewDTO postExpertReview(Long articleId, ExpertReviewForm expertReviewForm, Long authorId) {
         // Check if User exists
-        Optional<Long> userId = userRepository.findIdByUsername(expertReviewForm.getAuthor());
+        Optional<Long> userId = identityResolver.resolveId(expertReviewForm.getAuthor(), authorId);
         if (userId.isEmpty()) {
             throw new NotFoundException("User does not exist.");
         }
@@ -255,11 +415,8 @@ public class ExpertReviewService {
         }
 
         // Check if User already posted Expert Review on the Article
-        for (ExpertReview er : expertReviewRepository.findAll()) {
-            if (er.getCommentPost().getUser().getId().equals(userId.get())
-                    && er.getCommentPost().getArticle().getId().equals(articleId)) {
-                throw new IllegalArgumentException("User has already posted an Expert Review on this Article.");
-            }
+        if (expertReviewRepository.existsByUserIdAndArticleId(userId.get(), articleId)) {
+            throw new IllegalArgumentException(DUPLICATE_REVIEW);
         }
 
         // Check if content of Expert Review is empty
@@ -280,122 +437,136 @@ public class ExpertReviewService {
             expertReview = new ExpertReview(commentPost, expertReviewForm.getStatus());
             expertReview = expertReviewRepository.save(expertReview);
 
-            // Check if this is the third approved review for specific article
-            List<ExpertReview> expertReviews = expertReviewRepository.findAll();
-            Article article = articleRepository.findById(articleId).get();
-            int approvedCount = 0;
-            for (ExpertReview er : expertReviews) {
-                if (er.getCommentPost().getArticle().getId().equals(articleId)) {
-                    if (er.getStatus().equals("Approved")) {
-                        approvedCount++;
-                    }
-                    if (approvedCount >= 3) {
-                        if (article.getApproved() == 0) {
-                            article.setApproved(1);
-                        }
-                        articleRepository.update(article);
-                    }
-                }
-            }
-
-            // Save inline comments
+            // Save inline comments, their CommentPosts, and Highlight Sections in batches
             List<InlineComment> inlineComments = null;
             if (expertReviewForm.getInlineComments() != null && !expertReviewForm.getInlineComments().isEmpty()) {
-                inlineComments = new ArrayList<>(expertReviewForm.getInlineComments().size());
-                for (InlineCommentForm icf : expertReviewForm.getInlineComments()) {
-                    commentPost = new CommentPost(new User(userId.get()), new Article(articleId), 0, icf.getContent());
-                    InlineComment ic = new InlineComment(commentPost, expertReview, icf.getPageNum(),
-                            icf.getSelectedContent());
-
-                    // Attach highlight sections to the inline comment
-                    List<HighlightSection> highlightSections = new ArrayList<>(icf.getHighlightSections().size());
-                    for (HighlightSectionForm hsf : icf.getHighlightSections()) {
-                        highlightSections.add(new HighlightSection(ic, hsf));
-                    }
-                    ic.setHighlightSections(highlightSections);
-
-                    inlineComments.add(ic);
+                inlineComments = reviewGraphWriter.insertInlineComments(expertReview,
+                        expertReviewForm.getInlineComments());
+                // The indexes of the Article are updated once the review is committed
+                inlineCommentsPublisher.publishEvent(new InlineCommentsPostedEvent(articleId, inlineComments));
+            }
 
-                }
-                inlineCommentRepository.saveAll(inlineComments);
+            // The Article is approved by the review that brings its tally to three
+            updateReviewTally(articleId, expertReview.getStatus(), 1);
+            if (articleRepository.updateApprovedIfReviewed(articleId, APPROVALS_NEEDED) > 0) {
+                articleApprovedPublisher.publishEvent(new ArticleApprovedEvent(articleId));
             }
 
-            return formatExpertReview(expertReview, new CommenterDTO(expertReviewForm.getAuthor()), inlineComments,
-                    true, false);
+            return expertReviewAssembler.assembleNew(expertReview, new CommenterDTO(expertReviewForm.getAuthor()),
+                    inlineComments);
         } catch (DataAccessException e) {
-            if (expertReview != null && expertReview.getId() != null) {
-                expertReviewRepository.deleteById(expertReview.getId());
+            // Rolls back the review and its tally along with the transaction
+            if (violatesUniqueAuthor(e)) {
+                // Another request posted the User's review after the check above
+                throw new IllegalArgumentException(DUPLICATE_REVIEW);
             }
             throw new IllegalArgumentException(e.getMessage());
         }
     }
 
-    private void modifyCommentAuthor(boolean approved, List<String> articleAuthors, CommenterDTO author) {
-        if (articleAuthors.contains(author.getUsername())) {
-            if (!approved) {
-                author.setUsername("Anonymous");
-                author.setName("Anonymous");
+    /**
+     * Check if the error was caused by a second Expert Review from the same User
+     * on the same Article.
+     *
+     * @param e the error from saving the Expert Review
+     * @return true if the one review per User and Article constraint was violated
+     */
+    private static boolean violatesUniqueAuthor(DataAccessException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLIntegrityConstraintViolationException && cause.getMessage() != null
+                    && cause.getMessage().toUpperCase().contains(UNIQUE_AUTHOR_CONSTRAINT)) {
+                return true;
             }
-            author.setRole("Author");
-        } else if (author.getRole().equals("Expert")) {
-            String expertField = expertRepository.findByUsername(author.getUsername()).get().getField();
-            author.setRole("Expert in " + expertField);
         }
+        return false;
     }
 
-    private void modifyExpertReviewDTO(boolean approved, List<String> articleAuthors, ExpertReviewDTO review) {
-        modifyCommentAuthor(approved, articleAuthors, review.getAuthor());
-
-        for (FollowupCommentDTO followupDTO : review.getFollowups()) {
-            modifyCommentAuthor(approved, articleAuthors, followupDTO.getAuthor());
-        }
-
-        for (InlineCommentDTO inlineDTO : review.getInlineComments()) {
-            modifyCommentAuthor(approved, articleAuthors, inlineDTO.getAuthor());
-
-            for (FollowupCommentDTO inlineFollowupDTO : inlineDTO.getFollowups()) {
-                modifyCommentAuthor(approved, articleAuthors, inlineFollowupDTO.getAuthor());
-            }
+    /**
+     * Add to the tally of one status on the Article.
+     *
+     * @param articleId the Article ID
+     * @param status    the status of the Expert Review
+     * @param delta     1 for a new review with the status; -1 for a review
+     *                  that no longer has it
+     * @throws IllegalArgumentException if the status is not valid
+     */
+    private void updateReviewTally(Long articleId, String status, int delta) {
+        switch (status) {
+            case "Approved":
+                articleRepository.updateReviewTally(articleId, delta, 0, 0);
+                break;
+            case "Needs Work":
+                articleRepository.updateReviewTally(articleId, 0, delta, 0);
+                break;
+            case "Rejected":
+                articleRepository.updateReviewTally(articleId, 0, 0, delta);
+                break;
+            default:
+                throw new IllegalArgumentException("Status must be 'Approved', 'Needs Work', or 'Rejected'.");
         }
     }
 
     /**
-     * Format an ExpertReview to follow to view.
+     * Update everything kept in memory that depends on the Article being
+     * approved, once the approval is committed.
      *
-     * @param expertReview   the expert review to format
-     * @param author         the author of the expert review
-     * @param inlineComments the inline comments of the expert review
-     * @param fresh          if the expert review is fresh
-     * @param userView       if the view is for the user
-     * @return a formatted Expert Review
+     * @param event the approved Article
      */
-    private ExpertReviewDTO formatExpertReview(ExpertReview expertReview, CommenterDTO author,
-            List<InlineComment> inlineComments,
-            boolean fresh, boolean userView) {
-        // Attach followups to expert review
-        List<GeneralComment> erFollowups = null;
-        if (!fresh) {
-            erFollowups = generalCommentRepository.findAllByRootThreadId(expertReview.getCommentPost().getId());
+    @TransactionalEventListener
+    void onArticleApproved(ArticleApprovedEvent event) {
+        Long articleId = event.getArticleId();
+        // Authors become searchable once the Article is no longer anonymous
+        articleSearchIndex.indexAuthors(articleId);
+        articleLeaderboard.approve(articleId);
+        // Authors of approved Articles are no longer shown as anonymous
+        commentTreeCache.invalidate(articleId);
+    }
+
+    /**
+     * Set the roles of the authors, and hide the Article authors if the Article
+     * is not approved. The fields of every Expert are looked up at once.
+     */
+    private void modifyCommentAuthors(boolean approved, List<String> articleAuthors, List<CommenterDTO> authors) {
+        Set<String> expertUsernames = new HashSet<>();
+        for (CommenterDTO author : authors) {
+            if (!articleAuthors.contains(author.getUsername()) && author.getRole().equals("Expert")) {
+                expertUsernames.add(author.getUsername());
+            }
         }
+        Map<String, String> expertFields = expertFieldCache.getFields(expertUsernames);
 
-        // Attach inline comments to expert review
-        List<InlineCommentDTO> icViews = new LinkedList<>();
-        if (inlineComments != null) {
-            for (InlineComment ic : inlineComments) {
-                // Attach followups to inline comment
-                List<GeneralComment> icFollowups = null;
-                if (!fresh) {
-                    icFollowups = generalCommentRepository.findAllByRootThreadId(ic.getCommentPost().getId());
+        for (CommenterDTO author : authors) {
+            if (articleAuthors.contains(author.getUsername())) {
+                if (!approved) {
+                    author.setUsername("Anonymous");
+                    author.setName("Anonymous");
                 }
-                icViews.add(new InlineCommentDTO(ic, author, icFollowups));
+                author.setRole("Author");
+            } else if (author.getRole().equals("Expert") && expertFields.containsKey(author.getUsername())) {
+                author.setRole("Expert in " + expertFields.get(author.getUsername()));
             }
         }
+    }
 
-        // Format if on user profile
-        if (userView) {
-            return new UserReviewDTO(expertReview, author, erFollowups, icViews);
-        } else {
-            return new ExpertReviewDTO(expertReview, author, erFollowups, icViews);
+    private void modifyExpertReviewDTOs(boolean approved, List<String> articleAuthors,
+            List<ExpertReviewDTO> reviews) {
+        List<CommenterDTO> authors = new ArrayList<>();
+        for (ExpertReviewDTO review : reviews) {
+            authors.add(review.getAuthor());
+            for (FollowupCommentDTO followupDTO : review.getFollowups()) {
+                authors.add(followupDTO.getAuthor());
+            }
+            addInlineCommentAuthors(review.getInlineComments(), authors);
+        }
+        modifyCommentAuthors(approved, articleAuthors, authors);
+    }
+
+    private static void addInlineCommentAuthors(List<InlineCommentDTO> inlineComments, List<CommenterDTO> authors) {
+        for (InlineCommentDTO inlineDTO : inlineComments) {
+            authors.add(inlineDTO.getAuthor());
+            for (FollowupCommentDTO inlineFollowupDTO : inlineDTO.getFollowups()) {
+                authors.add(inlineFollowupDTO.getAuthor());
+            }
         }
     }
 
@@ -0,0 +1,273 @@
+package research_exchange.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.transaction.annotation.TransactionalEventListener;
+import jakarta.inject.Singleton;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import javax.transaction.Transactional;
+
+/**
+ * The Highlight Index class which finds the Inline Comments whose Highlight
+ * Sections overlap a rectangle on a page of an Article. The Highlight Sections
+ * of an Article are loaded in one query the first time any of its pages is
+ * read, and each page is kept as a uniform grid of square cells listing the
+ * rectangles that touch them, so a lookup only tests the rectangles near the
+ * requested area. Hit and miss counts are published under the {@code cache.*}
+ * metrics with the name {@code highlight-index}.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class HighlightIndex {
+
+    /**
+     * The most cells along either side of a page. Rectangles past the last cell
+     * are kept in it, so a bad position or size cannot make adding or looking
+     * up a rectangle visit cells without bound.
+     */
+    private static final int MAX_CELLS_PER_SIDE = 200;
+
+    /** For loading the Highlight Sections of an Article. */
+    private final JdbcOperations jdbcOperations;
+
+    /** The pages of each indexed Article by page number. */
+    private final Cache<Long, Map<Integer, PageGrid>> articles;
+
+    /** The length of a side of a grid cell. */
+    private final int cellSize;
+
+    /**
+     * Setup the JDBC operations into the Highlight Index and register its
+     * metrics.
+     *
+     * @param jdbcOperations the JDBC operations
+     * @param meterRegistry  the registry to publish the hit and miss counts to
+     * @param maximumSize    the most Articles whose Highlight Sections are kept
+     * @param expireAfter    how long an Article is kept after it is indexed
+     * @param cellSize       the length of a side of a grid cell
+     */
+    public HighlightIndex(JdbcOperations jdbcOperations, MeterRegistry meterRegistry,
+            @Value("${research-exchange.highlights.maximum-size:1000}") long maximumSize,
+            @Value("${research-exchange.highlights.expire-after-write:10m}") Duration expireAfter,
+            @Value("${research-exchange.highlights.cell-size:100}") int cellSize) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("Highlight grid cell size must be positive.");
+        }
+        this.jdbcOperations = jdbcOperations;
+        this.cellSize = cellSize;
+        this.articles = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, articles, "highlight-index");
+    }
+
+    /**
+     * Find the Inline Comments with a Highlight Section that overlaps a
+     * rectangle. Rectangles that only share an edge overlap, so a rectangle with
+     * no width or height finds the Highlight Sections under a point or line.
+     *
+     * @param articleId the Article ID
+     * @param pageNum   the page number
+     * @param x         the left edge of the rectangle
+     * @param y         the top edge of the rectangle
+     * @param width     the width of the rectangle
+     * @param height    the height of the rectangle
+     * @return the IDs of the Inline Comments, in ascending order
+     */
+    @Transactional
+    public List<Long> intersecting(Long articleId, int pageNum, int x, int y, int width, int height) {
+        PageGrid page = articles.get(articleId, this::load).get(pageNum);
+        if (page == null) {
+            return new ArrayList<>();
+        }
+        return page.intersecting(x, y, (long) x + width, (long) y + height);
+    }
+
+    /**
+     * Find the Inline Comments with a Highlight Section anywhere on a page.
+     *
+     * @param articleId the Article ID
+     * @param pageNum   the page number
+     * @return the IDs of the Inline Comments, in ascending order
+     */
+    @Transactional
+    public List<Long> onPage(Long articleId, int pageNum) {
+        PageGrid page = articles.get(articleId, this::load).get(pageNum);
+        if (page == null) {
+            return new ArrayList<>();
+        }
+        return page.all();
+    }
+
+    /**
+     * Drop the index of an Article, so it is rebuilt with its new Highlight
+     * Sections on the next lookup.
+     *
+     * @param articleId the Article ID
+     */
+    public void invalidate(Long articleId) {
+        articles.invalidate(articleId);
+    }
+
+    /**
+     * Drop the index of an Article once an Expert Review with Inline Comments
+     * is committed on it, so a lookup cannot index the Article without them
+     * again.
+     *
+     * @param event the posted Inline Comments
+     */
+    @TransactionalEventListener
+    void onInlineCommentsPosted(InlineCommentsPostedEvent event) {
+        invalidate(event.getArticleId());
+    }
+
+    /**
+     * Load the Highlight Sections of every Inline Comment on an Article and
+     * index them by page.
+     *
+     * @param articleId the Article ID
+     * @return the grid of each page that has a Highlight Section
+     */
+    private Map<Integer, PageGrid> load(Long articleId) {
+        Map<Integer, PageGrid> pages = new HashMap<>();
+        jdbcOperations.prepareStatement("SELECT ic.ID, ic.PAGE_NUM, hs.X_POSITION, hs.Y_POSITION, hs.WIDTH,"
+                + " hs.HEIGHT FROM COMMENT_POST cp JOIN INLINE_COMMENT ic ON ic.COMMENT_POST_ID = cp.ID"
+                + " JOIN HIGHLIGHT_SECTION hs ON hs.INLINE_COMMENT_ID = ic.ID WHERE cp.ARTICLE_ID = ?",
+                statement -> {
+                    statement.setLong(1, articleId);
+                    ResultSet resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        Rectangle rectangle = new Rectangle(resultSet.getLong(1), resultSet.getInt(3),
+                                resultSet.getInt(4), resultSet.getInt(5), resultSet.getInt(6));
+                        pages.computeIfAbsent(resultSet.getInt(2), p -> new PageGrid(cellSize)).add(rectangle);
+                    }
+                    return null;
+                });
+        return pages;
+    }
+
+    /**
+     * The Highlight Sections on a single page, bucketed into grid cells.
+     */
+    private static final class PageGrid {
+
+        private final int cellSize;
+
+        /** The rectangles touching each cell, keyed by {@link #key(long, long)}. */
+        private final Map<Long, List<Rectangle>> cells = new HashMap<>();
+
+        /** Every Inline Comment with a Highlight Section on the page. */
+        private final TreeSet<Long> inlineCommentIds = new TreeSet<>();
+
+        /** The range of cells that hold anything, to bound large lookups. */
+        private long minColumn = Long.MAX_VALUE;
+
+        private long maxColumn = Long.MIN_VALUE;
+
+        private long minRow = Long.MAX_VALUE;
+
+        private long maxRow = Long.MIN_VALUE;
+
+        private PageGrid(int cellSize) {
+            this.cellSize = cellSize;
+        }
+
+        private void add(Rectangle rectangle) {
+            inlineCommentIds.add(rectangle.inlineCommentId);
+            long firstColumn = cell(rectangle.left);
+            long lastColumn = cell(rectangle.right);
+            long firstRow = cell(rectangle.top);
+            long lastRow = cell(rectangle.bottom);
+            for (long column = firstColumn; column <= lastColumn; column++) {
+                for (long row = firstRow; row <= lastRow; row++) {
+                    cells.computeIfAbsent(key(column, row), k -> new ArrayList<>()).add(rectangle);
+                }
+            }
+            minColumn = Math.min(minColumn, firstColumn);
+            maxColumn = Math.max(maxColumn, lastColumn);
+            minRow = Math.min(minRow, firstRow);
+            maxRow = Math.max(maxRow, lastRow);
+        }
+
+        private List<Long> intersecting(long left, long top, long right, long bottom) {
+            // Only the cells that both the area and the page cover are visited
+            long firstColumn = Math.max(cell(left), minColumn);
+            long lastColumn = Math.min(cell(right), maxColumn);
+            long firstRow = Math.max(cell(top), minRow);
+            long lastRow = Math.min(cell(bottom), maxRow);
+
+            TreeSet<Long> found = new TreeSet<>();
+            for (long column = firstColumn; column <= lastColumn; column++) {
+                for (long row = firstRow; row <= lastRow; row++) {
+                    List<Rectangle> candidates = cells.get(key(column, row));
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (Rectangle candidate : candidates) {
+                        if (candidate.overlaps(left, top, right, bottom)) {
+                            found.add(candidate.inlineCommentId);
+                        }
+                    }
+                }
+            }
+            return new ArrayList<>(found);
+        }
+
+        private List<Long> all() {
+            return new ArrayList<>(inlineCommentIds);
+        }
+
+        /** The cell holding a coordinate, kept within the page. */
+        private long cell(long coordinate) {
+            return Math.min(Math.max(coordinate, 0) / cellSize, MAX_CELLS_PER_SIDE - 1);
+        }
+
+        private static long key(long column, long row) {
+            return (column << 32) ^ (row & 0xFFFFFFFFL);
+        }
+
+    }
+
+    /**
+     * The bounds of a single Highlight Section.
+     */
+    private static final class Rectangle {
+
+        private final long inlineCommentId;
+
+        private final long left;
+
+        private final long top;
+
+        private final long right;
+
+        private final long bottom;
+
+        private Rectangle(long inlineCommentId, int x, int y, int width, int height) {
+            this.inlineCommentId = inlineCommentId;
+            this.left = x;
+            this.top = y;
+            this.right = (long) x + width;
+            this.bottom = (long) y + height;
+        }
+
+        private boolean overlaps(long otherLeft, long otherTop, long otherRight, long otherBottom) {
+            return left <= otherRight && otherLeft <= right && top <= otherBottom && otherTop <= bottom;
+        }
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package research_exchange.services;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * The ID Cursor class which marks where a page of a listing ordered newest
+ * first by ID ended. The cursor holds the ID of the last row on the page, and
+ * clients only see it as an opaque token.
+ *
+ * @author Tyrone Wu
+ */
+public final class IdCursor {
+
+    /** The ID of the last row on the page. */
+    private final long id;
+
+    /**
+     * The constructor for an ID cursor.
+     *
+     * @param id the ID of the last row on the page
+     */
+    public IdCursor(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Turn a token from a client back into a cursor.
+     *
+     * @param token the token returned with the previous page
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token was not created by
+     *                                  {@link #encode()}
+     */
+    public static IdCursor decode(String token) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            return new IdCursor(Long.parseLong(decoded));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException and bad Base64 both land here
+            throw new IllegalArgumentException("Cursor is invalid.");
+        }
+    }
+
+    /**
+     * Turn the cursor into a URL-safe token for the client.
+     *
+     * @return the token
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the ID of the last row on the page.
+     *
+     * @return the ID
+     */
+    public long getId() {
+        return id;
+    }
+
+}
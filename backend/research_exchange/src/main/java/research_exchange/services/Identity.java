@@ -0,0 +1,73 @@
+package research_exchange.services;
+
+import research_exchange.models.User;
+
+/**
+ * The Identity class which holds what the write paths need to know about a
+ * User: their ID, username, name, and role.
+ *
+ * @author Tyrone Wu
+ */
+public final class Identity {
+
+    /** The ID of the User. */
+    private final long id;
+
+    /** The username of the User. */
+    private final String username;
+
+    /** The name of the User. */
+    private final String name;
+
+    /** The role of the User. */
+    private final String role;
+
+    /**
+     * The constructor for the identity of a User.
+     *
+     * @param user the User
+     */
+    public Identity(User user) {
+        this.id = user.getId();
+        this.username = user.getUsername();
+        this.name = user.getName();
+        this.role = user.getRole();
+    }
+
+    /**
+     * Get the ID of the User.
+     *
+     * @return the User ID
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Get the username of the User.
+     *
+     * @return the username
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * Get the name of the User.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the role of the User.
+     *
+     * @return the role
+     */
+    public String getRole() {
+        return role;
+    }
+
+}
@@ -0,0 +1,166 @@
+package research_exchange.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import research_exchange.models.User;
+import research_exchange.repositories.UserRepository;
+
+/**
+ * The Identity Resolver class which turns usernames into the ID, name, and
+ * role of their Users. Recently resolved Users are cached, so posting Comments,
+ * Expert Reviews, and Articles does not look the author up on every request.
+ * Usernames that do not exist are never cached, so a new User is found as soon
+ * as they sign up. Entries are evicted by size and age, and dropped when a
+ * profile is edited or a role changes. Hit and miss counts are published under
+ * the {@code cache.*} metrics with the name {@code identities}.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class IdentityResolver {
+
+    /** The most usernames listed in a single IN condition. */
+    private static final int MAX_IN_LIST_SIZE = 1000;
+
+    /** For accessing User DB table. */
+    private final UserRepository userRepository;
+
+    /** The identity of each cached User by username. */
+    private final Cache<String, Identity> identities;
+
+    /**
+     * Setup the User repository into the resolver and register its metrics.
+     *
+     * @param userRepository the User repository
+     * @param meterRegistry  the registry to publish the hit and miss counts to
+     * @param maximumSize    the most Users whose identity is cached
+     * @param expireAfter    how long an identity is kept after it is loaded
+     */
+    public IdentityResolver(UserRepository userRepository, MeterRegistry meterRegistry,
+            @Value("${research-exchange.identities.maximum-size:10000}") long maximumSize,
+            @Value("${research-exchange.identities.expire-after-write:10m}") Duration expireAfter) {
+        this.userRepository = userRepository;
+        this.identities = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfter)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, identities, "identities");
+    }
+
+    /**
+     * Get the identity of a User.
+     *
+     * @param username the username of the User
+     * @return the identity; empty if the User does not exist
+     */
+    public Optional<Identity> resolve(String username) {
+        return Optional.ofNullable(resolveAll(List.of(username)).get(username));
+    }
+
+    /**
+     * Get the identities of several Users, loading every one that is not cached
+     * in a single query.
+     *
+     * @param usernames the usernames of the Users
+     * @return the identity of each username that belongs to a User
+     */
+    public Map<String, Identity> resolveAll(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return new HashMap<>();
+        }
+        return identities.getAll(usernames, this::load);
+    }
+
+    /**
+     * Get the identities of a whole list of Users in a single lookup, such as
+     * the authors of an Article, checking that every one of them exists.
+     *
+     * @param usernames the usernames of the Users
+     * @return the identity of each User, in the order of the usernames
+     * @throws IllegalArgumentException if any username does not belong to a
+     *                                  User, naming every such username
+     */
+    public Map<String, Identity> requireAll(Collection<String> usernames) {
+        Map<String, Identity> found = resolveAll(new LinkedHashSet<>(usernames));
+        Map<String, Identity> identitiesInOrder = new LinkedHashMap<>();
+        Set<String> unknown = new LinkedHashSet<>();
+        for (String username : usernames) {
+            Identity identity = found.get(username);
+            if (identity == null) {
+                unknown.add(username);
+            } else {
+                identitiesInOrder.put(username, identity);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            throw new IllegalArgumentException("Users do not exist: " + String.join(", ", unknown) + ".");
+        }
+        return identitiesInOrder;
+    }
+
+    /**
+     * Get the ID of a User.
+     *
+     * @param username the username of the User
+     * @return the User ID; empty if the User does not exist
+     */
+    public Optional<Long> resolveId(String username) {
+        return resolve(username).map(Identity::getId);
+    }
+
+    /**
+     * Get the ID of a User, skipping the lookup when the ID is already known
+     * from the token of the authenticated User.
+     *
+     * @param username the username of the User
+     * @param knownId  the ID carried by the token, or null if there is none
+     * @return the User ID; empty if the User does not exist
+     */
+    public Optional<Long> resolveId(String username, Long knownId) {
+        return knownId != null ? Optional.of(knownId) : resolveId(username);
+    }
+
+    /**
+     * Drop the cached identity of a User after their name or role changes.
+     *
+     * @param username the username of the User
+     */
+    public void invalidate(String username) {
+        identities.invalidate(username);
+    }
+
+    /**
+     * Drop every cached identity, for when Users are deleted in bulk.
+     */
+    public void invalidateAll() {
+        identities.invalidateAll();
+    }
+
+    private Map<String, Identity> load(Set<? extends String> usernames) {
+        List<String> missing = new ArrayList<>(usernames);
+        Map<String, Identity> loaded = new HashMap<>();
+        for (int i = 0; i < missing.size(); i += MAX_IN_LIST_SIZE) {
+            List<String> chunk = missing.subList(i, Math.min(i + MAX_IN_LIST_SIZE, missing.size()));
+            for (User user : userRepository.findByUsernameIn(chunk)) {
+                loaded.put(user.getUsername(), new Identity(user));
+            }
+        }
+        return loaded;
+    }
+
+}
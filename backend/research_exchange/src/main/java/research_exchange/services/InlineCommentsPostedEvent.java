@@ -0,0 +1,51 @@
+package research_exchange.services;
+
+import java.util.List;
+import research_exchange.models.InlineComment;
+
+/**
+ * The Inline Comments Posted Event class which is published when an Expert
+ * Review with Inline Comments is posted, so the indexes of the Article are only
+ * updated once the review is committed.
+ *
+ * @author Tyrone Wu
+ */
+public final class InlineCommentsPostedEvent {
+
+    /** The Article the Expert Review was posted on. */
+    private final Long articleId;
+
+    /** The posted Inline Comments, with their Highlight Sections. */
+    private final List<InlineComment> inlineComments;
+
+    /**
+     * The constructor for an Inline Comments Posted Event.
+     *
+     * @param articleId      the Article ID the Expert Review was posted on
+     * @param inlineComments the posted Inline Comments, with their Highlight
+     *                       Sections
+     */
+    public InlineCommentsPostedEvent(Long articleId, List<InlineComment> inlineComments) {
+        this.articleId = articleId;
+        this.inlineComments = inlineComments;
+    }
+
+    /**
+     * Get the Article the Expert Review was posted on.
+     *
+     * @return the Article ID
+     */
+    public Long getArticleId() {
+        return articleId;
+    }
+
+    /**
+     * Get the posted Inline Comments.
+     *
+     * @return the Inline Comments, with their Highlight Sections
+     */
+    public List<InlineComment> getInlineComments() {
+        return inlineComments;
+    }
+
+}
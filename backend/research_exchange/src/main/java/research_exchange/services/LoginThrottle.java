@@ -0,0 +1,304 @@
+package research_exchange.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The Login Throttle class which limits how often logins are attempted from
+ * each client address, and for each username from each address, so a flood of
+ * guessed passwords is turned away before it costs a lookup or a hash. Each
+ * address and each username at an address has a token bucket that one attempt
+ * takes a token from and that refills at a steady rate. Once a bucket has more
+ * failed logins in a row than allowed, it is blocked for a backoff that
+ * doubles with every further failure. A username is never throttled on its
+ * own, so failures from one address cannot lock its User out from another. A
+ * successful login clears the failures of its username at its address. The
+ * buckets are updated without locks and kept in bounded maps that drop idle
+ * entries. Throttled attempts are published as the {@code login.throttled}
+ * metric.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class LoginThrottle {
+
+    /** How much the attempts of one address are allowed. */
+    private final Policy addressPolicy;
+
+    /** How much the attempts of one username from one address are allowed. */
+    private final Policy usernamePolicy;
+
+    /** The bucket of each client address. */
+    private final Cache<String, Bucket> addresses;
+
+    /** The bucket of each username at each address. */
+    private final Cache<String, Bucket> usernames;
+
+    /** The attempts turned away by address. */
+    private final Counter addressRejections;
+
+    /** The attempts turned away by username at an address. */
+    private final Counter usernameRejections;
+
+    /**
+     * Setup the buckets and register their metrics.
+     *
+     * @param meterRegistry           the registry to publish the metrics to
+     * @param maximumSize             the most addresses, and the most
+     *                                usernames at an address, that buckets
+     *                                are kept for
+     * @param expireAfterAccess       how long an idle bucket is kept
+     * @param addressCapacity         the most attempts an address can make at
+     *                                once
+     * @param addressRefillPerMinute  the attempts an address regains each
+     *                                minute
+     * @param usernameCapacity        the most attempts for a username from
+     *                                one address at once
+     * @param usernameRefillPerMinute the attempts a username regains at an
+     *                                address each minute
+     * @param freeFailures            the failed logins in a row allowed before
+     *                                backing off
+     * @param baseBackoff             the first backoff, doubled with every
+     *                                further failure
+     * @param maxBackoff              the longest backoff
+     */
+    public LoginThrottle(MeterRegistry meterRegistry,
+            @Value("${research-exchange.login-throttling.maximum-size:100000}") long maximumSize,
+            @Value("${research-exchange.login-throttling.expire-after-access:30m}") Duration expireAfterAccess,
+            @Value("${research-exchange.login-throttling.address.capacity:30}") int addressCapacity,
+            @Value("${research-exchange.login-throttling.address.refill-per-minute:30}") int addressRefillPerMinute,
+            @Value("${research-exchange.login-throttling.username.capacity:5}") int usernameCapacity,
+            @Value("${research-exchange.login-throttling.username.refill-per-minute:5}") int usernameRefillPerMinute,
+            @Value("${research-exchange.login-throttling.free-failures:3}") int freeFailures,
+            @Value("${research-exchange.login-throttling.base-backoff:1s}") Duration baseBackoff,
+            @Value("${research-exchange.login-throttling.max-backoff:15m}") Duration maxBackoff) {
+        this.addressPolicy = new Policy(addressCapacity, addressRefillPerMinute, freeFailures, baseBackoff,
+                maxBackoff);
+        this.usernamePolicy = new Policy(usernameCapacity, usernameRefillPerMinute, freeFailures, baseBackoff,
+                maxBackoff);
+        this.addresses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        this.usernames = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, addresses, "login-throttle-addresses");
+        CaffeineCacheMetrics.monitor(meterRegistry, usernames, "login-throttle-usernames");
+        this.addressRejections = Counter.builder("login.throttled")
+                .tag("by", "address")
+                .description("Login attempts turned away before authenticating")
+                .register(meterRegistry);
+        this.usernameRejections = Counter.builder("login.throttled")
+                .tag("by", "username")
+                .description("Login attempts turned away before authenticating")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take an attempt from the bucket of a client address.
+     *
+     * @param address the client address; attempts without one are not limited
+     * @return zero if the attempt is allowed; otherwise how long to wait
+     */
+    public Duration tryAcquireAddress(String address) {
+        if (address == null) {
+            return Duration.ZERO;
+        }
+        Duration wait = bucket(addresses, address, addressPolicy).tryAcquire(System.nanoTime());
+        if (!wait.isZero()) {
+            addressRejections.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Take an attempt from the bucket of a username at a client address.
+     *
+     * @param address  the client address, or null if there is none
+     * @param username the username being logged in to
+     * @return zero if the attempt is allowed; otherwise how long to wait
+     */
+    public Duration tryAcquireUsername(String address, String username) {
+        Duration wait = bucket(usernames, usernameKey(address, username), usernamePolicy)
+                .tryAcquire(System.nanoTime());
+        if (!wait.isZero()) {
+            usernameRejections.increment();
+        }
+        return wait;
+    }
+
+    /**
+     * Count a failed login against its address, and its username at that
+     * address.
+     *
+     * @param address  the client address, or null if there is none
+     * @param username the username that was logged in to
+     */
+    public void recordFailure(String address, String username) {
+        long now = System.nanoTime();
+        if (address != null) {
+            bucket(addresses, address, addressPolicy).recordFailure(now);
+        }
+        bucket(usernames, usernameKey(address, username), usernamePolicy).recordFailure(now);
+    }
+
+    /**
+     * Clear the failed logins of a username at an address after it is logged
+     * in to. The failures of the address are kept, so one known password
+     * cannot be used to keep guessing the passwords of other Users.
+     *
+     * @param address  the client address, or null if there is none
+     * @param username the username that was logged in to
+     */
+    public void recordSuccess(String address, String username) {
+        Bucket bucket = usernames.getIfPresent(usernameKey(address, username));
+        if (bucket != null) {
+            bucket.recordSuccess(System.nanoTime());
+        }
+    }
+
+    /** Addresses have no spaces, so the key cannot be mistaken for another. */
+    private static String usernameKey(String address, String username) {
+        return (address != null ? address : "") + " " + username;
+    }
+
+    private static Bucket bucket(Cache<String, Bucket> buckets, String key, Policy policy) {
+        return buckets.get(key, k -> new Bucket(policy, System.nanoTime()));
+    }
+
+    /**
+     * How many attempts a bucket allows and how it backs off after failures.
+     */
+    private static final class Policy {
+
+        private final double capacity;
+
+        private final double nanosPerToken;
+
+        private final int freeFailures;
+
+        private final long baseBackoffNanos;
+
+        private final long maxBackoffNanos;
+
+        private Policy(int capacity, int refillPerMinute, int freeFailures, Duration baseBackoff,
+                Duration maxBackoff) {
+            if (capacity <= 0 || refillPerMinute <= 0) {
+                throw new IllegalArgumentException("Login throttle capacity and refill rate must be positive.");
+            }
+            this.capacity = capacity;
+            this.nanosPerToken = (double) Duration.ofMinutes(1).toNanos() / refillPerMinute;
+            this.freeFailures = freeFailures;
+            this.baseBackoffNanos = baseBackoff.toNanos();
+            this.maxBackoffNanos = maxBackoff.toNanos();
+        }
+
+        private long backoff(int failures) {
+            double backoff = baseBackoffNanos * Math.pow(2, failures - freeFailures - 1);
+            return (long) Math.min(backoff, maxBackoffNanos);
+        }
+
+    }
+
+    /**
+     * The attempts left and failures of one address, or of one username at an
+     * address. Every change swaps in a new State, so concurrent attempts never
+     * block each other.
+     */
+    private static final class Bucket {
+
+        private final Policy policy;
+
+        private final AtomicReference<State> state;
+
+        private Bucket(Policy policy, long now) {
+            this.policy = policy;
+            this.state = new AtomicReference<>(new State(policy.capacity, now, 0, now, now));
+        }
+
+        private Duration tryAcquire(long now) {
+            while (true) {
+                State current = state.get();
+                if (now - current.blockedUntil < 0) {
+                    return Duration.ofNanos(current.blockedUntil - now);
+                }
+                double tokens = Math.min(policy.capacity,
+                        current.tokens + (now - current.refilledAt) / policy.nanosPerToken);
+                if (tokens < 1) {
+                    return Duration.ofNanos((long) Math.ceil((1 - tokens) * policy.nanosPerToken));
+                }
+                State next = new State(tokens - 1, now, current.failures, current.lastFailureAt,
+                        current.blockedUntil);
+                if (state.compareAndSet(current, next)) {
+                    return Duration.ZERO;
+                }
+            }
+        }
+
+        private void recordFailure(long now) {
+            while (true) {
+                State current = state.get();
+                // Failures far enough apart are not counted as a run
+                boolean inRun = current.failures > 0 && now - current.lastFailureAt <= policy.maxBackoffNanos;
+                int failures = inRun ? current.failures + 1 : 1;
+                long blockedUntil = failures > policy.freeFailures ? now + policy.backoff(failures)
+                        : current.blockedUntil;
+                State next = new State(current.tokens, current.refilledAt, failures, now, blockedUntil);
+                if (state.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+        private void recordSuccess(long now) {
+            while (true) {
+                State current = state.get();
+                if (current.failures == 0) {
+                    return;
+                }
+                State next = new State(current.tokens, current.refilledAt, 0, current.lastFailureAt, now);
+                if (state.compareAndSet(current, next)) {
+                    return;
+                }
+            }
+        }
+
+    }
+
+    /**
+     * A snapshot of a Bucket. Times are from {@link System#nanoTime()}.
+     */
+    private static final class State {
+
+        private final double tokens;
+
+        private final long refilledAt;
+
+        private final int failures;
+
+        private final long lastFailureAt;
+
+        private final long blockedUntil;
+
+        private State(double tokens, long refilledAt, int failures, long lastFailureAt, long blockedUntil) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+            this.failures = failures;
+            this.lastFailureAt = lastFailureAt;
+            this.blockedUntil = blockedUntil;
+        }
+
+    }
+
+}
@@ -0,0 +1,131 @@
+package research_exchange.services;
+
+/**
+ * The Password Hash class which holds a hashed password together with the
+ * algorithm and cost it was hashed with, so the cost can be raised without
+ * locking out Users whose hash is older. It is stored in the password column
+ * as {@code $<algorithm>$<iterations>$<key length>$<hex hash>}. A stored
+ * value without the leading {@code $} is a hash from before hashes were
+ * versioned, which was always PBKDF2-SHA1 at 65536 iterations and 128 bits.
+ *
+ * @author Tyrone Wu
+ */
+public final class PasswordHash {
+
+    /** The iterations of a hash from before hashes were versioned. */
+    static final int LEGACY_ITERATIONS = 65536;
+
+    /** The key length of a hash from before hashes were versioned. */
+    static final int LEGACY_KEY_LENGTH = 128;
+
+    /** The separator between the parts of a stored hash. */
+    private static final String SEPARATOR = "$";
+
+    /** The name of the algorithm. */
+    private final String algorithm;
+
+    /** The number of iterations. */
+    private final int iterations;
+
+    /** The length of the hash in bits. */
+    private final int keyLength;
+
+    /** The hash, in hex. */
+    private final String hash;
+
+    /**
+     * The constructor for a Password Hash.
+     *
+     * @param algorithm  the name of the algorithm
+     * @param iterations the number of iterations
+     * @param keyLength  the length of the hash in bits
+     * @param hash       the hash, in hex
+     */
+    public PasswordHash(String algorithm, int iterations, int keyLength, String hash) {
+        this.algorithm = algorithm;
+        this.iterations = iterations;
+        this.keyLength = keyLength;
+        this.hash = hash;
+    }
+
+    /**
+     * Read a Password Hash from the password column.
+     *
+     * @param stored the stored password
+     * @return the Password Hash
+     * @throws IllegalArgumentException if the stored password is malformed
+     */
+    public static PasswordHash parse(String stored) {
+        if (!stored.startsWith(SEPARATOR)) {
+            return new PasswordHash(Pbkdf2Sha1HashAlgorithm.NAME, LEGACY_ITERATIONS, LEGACY_KEY_LENGTH, stored);
+        }
+
+        String[] parts = stored.substring(1).split("\\$", -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Stored password hash is malformed.");
+        }
+        try {
+            return new PasswordHash(parts[0], Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), parts[3]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Stored password hash is malformed.", e);
+        }
+    }
+
+    /**
+     * Write the Password Hash in the form it is stored in.
+     *
+     * @return the stored password
+     */
+    public String format() {
+        return SEPARATOR + algorithm + SEPARATOR + iterations + SEPARATOR + keyLength + SEPARATOR + hash;
+    }
+
+    /**
+     * Check if the hash was made with the given algorithm and cost.
+     *
+     * @param algorithm  the name of the algorithm
+     * @param iterations the number of iterations
+     * @param keyLength  the length of the hash in bits
+     * @return true if every parameter matches
+     */
+    public boolean hasParameters(String algorithm, int iterations, int keyLength) {
+        return this.algorithm.equals(algorithm) && this.iterations == iterations && this.keyLength == keyLength;
+    }
+
+    /**
+     * Get the name of the algorithm.
+     *
+     * @return the algorithm name
+     */
+    public String getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Get the number of iterations.
+     *
+     * @return the iterations
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Get the length of the hash in bits.
+     *
+     * @return the key length
+     */
+    public int getKeyLength() {
+        return keyLength;
+    }
+
+    /**
+     * Get the hash, in hex.
+     *
+     * @return the hash
+     */
+    public String getHash() {
+        return hash;
+    }
+
+}
@@ -0,0 +1,30 @@
+package research_exchange.services;
+
+/**
+ * The Password Hash Algorithm interface for a way of hashing passwords that
+ * the PasswordHashRegistry can create and check Password Hashes with. Every
+ * algorithm is a bean, so adding one only needs a new implementation.
+ *
+ * @author Tyrone Wu
+ */
+public interface PasswordHashAlgorithm {
+
+    /**
+     * Get the name the algorithm is stored under in a Password Hash.
+     *
+     * @return the algorithm name
+     */
+    String getName();
+
+    /**
+     * Hash a password.
+     *
+     * @param password   the password to hash
+     * @param salt       the salt of the User
+     * @param iterations the number of iterations, which sets the cost
+     * @param keyLength  the length of the hash in bits
+     * @return the hash
+     */
+    byte[] hash(String password, byte[] salt, int iterations, int keyLength);
+
+}
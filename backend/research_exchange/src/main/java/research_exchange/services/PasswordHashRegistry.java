@@ -0,0 +1,118 @@
+package research_exchange.services;
+
+import io.micronaut.context.annotation.Value;
+import jakarta.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * The Password Hash Registry class which knows every Password Hash Algorithm
+ * and the algorithm and cost new passwords are hashed with. A stored hash is
+ * always checked with the algorithm and cost it was made with, so raising the
+ * cost only applies to new hashes, and older ones are upgraded once their User
+ * logs in.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class PasswordHashRegistry {
+
+    /** The algorithms by name. */
+    private final Map<String, PasswordHashAlgorithm> algorithms = new HashMap<>();
+
+    /** The algorithm new passwords are hashed with. */
+    private final PasswordHashAlgorithm currentAlgorithm;
+
+    /** The iterations new passwords are hashed with. */
+    private final int iterations;
+
+    /** The key length new passwords are hashed with. */
+    private final int keyLength;
+
+    /**
+     * Setup the algorithms into the registry.
+     *
+     * @param algorithms the Password Hash Algorithms
+     * @param algorithm  the name of the algorithm new passwords are hashed with
+     * @param iterations the iterations new passwords are hashed with
+     * @param keyLength  the key length in bits new passwords are hashed with
+     * @throws IllegalArgumentException if the algorithm does not exist or the
+     *                                  cost is not positive
+     */
+    public PasswordHashRegistry(List<PasswordHashAlgorithm> algorithms,
+            @Value("${research-exchange.password-hashing.algorithm:" + Pbkdf2Sha256HashAlgorithm.NAME
+                    + "}") String algorithm,
+            @Value("${research-exchange.password-hashing.iterations:310000}") int iterations,
+            @Value("${research-exchange.password-hashing.key-length:256}") int keyLength) {
+        for (PasswordHashAlgorithm a : algorithms) {
+            this.algorithms.put(a.getName(), a);
+        }
+        if (!this.algorithms.containsKey(algorithm)) {
+            throw new IllegalArgumentException("Password hash algorithm " + algorithm + " does not exist.");
+        }
+        if (iterations <= 0 || keyLength <= 0) {
+            throw new IllegalArgumentException("Password hash iterations and key length must be positive.");
+        }
+        this.currentAlgorithm = this.algorithms.get(algorithm);
+        this.iterations = iterations;
+        this.keyLength = keyLength;
+    }
+
+    /**
+     * Hash a password with the current algorithm and cost.
+     *
+     * @param password the password to hash
+     * @param salt     the salt of the User
+     * @return the Password Hash
+     */
+    public PasswordHash hash(String password, byte[] salt) {
+        byte[] hash = currentAlgorithm.hash(password, salt, iterations, keyLength);
+        return new PasswordHash(currentAlgorithm.getName(), iterations, keyLength, Hex.encodeHexString(hash));
+    }
+
+    /**
+     * Check a password against a stored hash, using the algorithm and cost the
+     * hash was made with.
+     *
+     * @param password the password to check
+     * @param salt     the salt of the User
+     * @param stored   the stored password
+     * @return true if the password matches; false if it does not, or the stored
+     *         hash is malformed or uses an unknown algorithm
+     */
+    public boolean verify(String password, byte[] salt, String stored) {
+        PasswordHash expected;
+        try {
+            expected = PasswordHash.parse(stored);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        PasswordHashAlgorithm algorithm = algorithms.get(expected.getAlgorithm());
+        if (algorithm == null) {
+            return false;
+        }
+
+        byte[] hash = algorithm.hash(password, salt, expected.getIterations(), expected.getKeyLength());
+        return MessageDigest.isEqual(Hex.encodeHexString(hash).getBytes(StandardCharsets.US_ASCII),
+                expected.getHash().getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Check if a stored hash was made with an older algorithm or cost.
+     *
+     * @param stored the stored password
+     * @return true if the password should be hashed again
+     */
+    public boolean needsRehash(String stored) {
+        try {
+            return !PasswordHash.parse(stored).hasParameters(currentAlgorithm.getName(), iterations, keyLength);
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,200 @@
+package research_exchange.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micronaut.context.annotation.Value;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Singleton;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import research_exchange.models.User;
+import research_exchange.repositories.UserRepository;
+
+/**
+ * The Password Hasher class which runs password hashing on its own pool of
+ * threads, one per core by default, so a burst of logins cannot tie up the
+ * threads that serve requests. Hashes wait in a bounded queue, and once it is
+ * full new hashes are rejected right away instead of queueing without limit.
+ * Hashes from an older algorithm or cost are upgraded on the pool after a
+ * successful login. The queue depth, hash latency, rejections, and upgrades
+ * are published under the {@code password.hash.*} metrics.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class PasswordHasher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PasswordHasher.class);
+
+    /** For the hashing algorithms. */
+    private final PasswordHashRegistry passwordHashRegistry;
+
+    /** For saving upgraded hashes. */
+    private final UserRepository userRepository;
+
+    /** The threads that hash passwords. */
+    private final ThreadPoolExecutor executor;
+
+    /** The hashes waiting for a thread. */
+    private final BlockingQueue<Runnable> queue;
+
+    /** How long each hash takes once it has a thread. */
+    private final Timer hashTimer;
+
+    /** The hashes turned away because the queue was full. */
+    private final Counter rejections;
+
+    /** The hashes upgraded to the current algorithm and cost. */
+    private final Counter upgrades;
+
+    /**
+     * Setup the hashing pool and register its metrics.
+     *
+     * @param passwordHashRegistry the registry of hashing algorithms
+     * @param userRepository       the User repository, for saving upgraded
+     *                             hashes
+     * @param meterRegistry        the registry to publish the metrics to
+     * @param threads              the number of hashing threads; one per core
+     *                             if not positive
+     * @param queueCapacity        the most hashes that wait for a thread
+     */
+    public PasswordHasher(PasswordHashRegistry passwordHashRegistry, UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${research-exchange.password-hashing.threads:0}") int threads,
+            @Value("${research-exchange.password-hashing.queue-capacity:64}") int queueCapacity) {
+        this.passwordHashRegistry = passwordHashRegistry;
+        this.userRepository = userRepository;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS, queue,
+                new HashingThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashTimer = Timer.builder("password.hash.duration")
+                .description("Time spent hashing a password")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("password.hash.rejected")
+                .description("Password hashes rejected because the hashing queue was full")
+                .register(meterRegistry);
+        this.upgrades = Counter.builder("password.hash.upgraded")
+                .description("Password hashes upgraded to the current algorithm and cost on login")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.queue.depth", queue, BlockingQueue::size)
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hash a password on the hashing pool with the current algorithm and cost.
+     *
+     * @param password the password to hash
+     * @param salt     the salt of the User
+     * @return the hash in the form it is stored in, once it is computed; failed
+     *         with a RejectedExecutionException if the hashing queue is full
+     */
+    public CompletableFuture<String> hash(String password, byte[] salt) {
+        return submit(() -> passwordHashRegistry.hash(password, salt).format());
+    }
+
+    /**
+     * Check a password against the stored hash of a User on the hashing pool.
+     *
+     * @param user     the User
+     * @param password the password to check
+     * @return whether the password matches, once it is checked; failed with a
+     *         RejectedExecutionException if the hashing queue is full
+     */
+    public CompletableFuture<Boolean> verify(User user, String password) {
+        return submit(() -> passwordHashRegistry.verify(password, user.getSalt(), user.getPassword()));
+    }
+
+    /**
+     * Hash a password again in the background if the stored hash of the User
+     * was made with an older algorithm or cost. The new hash is only saved if
+     * the password has not changed in the meantime. If the hashing queue is
+     * full the upgrade is skipped, and tried again on the next login.
+     *
+     * @param user     the User, who just logged in with the password
+     * @param password the password of the User
+     */
+    public void upgradeIfOutdated(User user, String password) {
+        String stored = user.getPassword();
+        if (!passwordHashRegistry.needsRehash(stored)) {
+            return;
+        }
+        hash(password, user.getSalt()).whenComplete((upgraded, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                if (!(cause instanceof RejectedExecutionException)) {
+                    LOG.warn("Password hash of User {} could not be upgraded", user.getId(), cause);
+                }
+                return;
+            }
+            try {
+                if (userRepository.updatePassword(user.getId(), stored, upgraded) > 0) {
+                    upgrades.increment();
+                }
+            } catch (RuntimeException ex) {
+                LOG.warn("Password hash of User {} could not be saved", user.getId(), ex);
+            }
+        });
+    }
+
+    /**
+     * Check if the hashing queue is full, so new logins can be turned away
+     * before any work is done for them.
+     *
+     * @return true if a hash submitted now would be rejected
+     */
+    public boolean isSaturated() {
+        return queue.remainingCapacity() == 0;
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> hashTimer.record(task), executor);
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Stop the hashing threads once the application shuts down.
+     */
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Names the hashing threads and keeps them from holding up shutdown.
+     */
+    private static final class HashingThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hasher-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
@@ -0,0 +1,68 @@
+package research_exchange.services;
+
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * The PBKDF2 Hash Algorithm class which hashes passwords with PBKDF2 over a
+ * given HMAC. Each thread keeps its own key factory, since they are not safe to
+ * share and looking one up for every hash is slow.
+ *
+ * @author Tyrone Wu
+ */
+public class Pbkdf2HashAlgorithm implements PasswordHashAlgorithm {
+
+    /** The name the algorithm is stored under. */
+    private final String name;
+
+    /** The key factory of each hashing thread. */
+    private final ThreadLocal<SecretKeyFactory> factories;
+
+    /**
+     * The constructor for a PBKDF2 Hash Algorithm.
+     *
+     * @param name         the name the algorithm is stored under
+     * @param jcaAlgorithm the name of the key factory, such as
+     *                     {@code PBKDF2WithHmacSHA256}
+     * @throws IllegalStateException if the key factory is not available
+     */
+    public Pbkdf2HashAlgorithm(String name, String jcaAlgorithm) {
+        this.name = name;
+        try {
+            // Fail at startup rather than on the first login
+            SecretKeyFactory.getInstance(jcaAlgorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Password hash algorithm " + jcaAlgorithm + " is not available.", e);
+        }
+        this.factories = ThreadLocal.withInitial(() -> {
+            try {
+                return SecretKeyFactory.getInstance(jcaAlgorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Password hash algorithm " + jcaAlgorithm + " is not available.", e);
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public byte[] hash(String password, byte[] salt, int iterations, int keyLength) {
+        char[] chars = password.toCharArray();
+        PBEKeySpec spec = new PBEKeySpec(chars, salt, iterations, keyLength);
+        try {
+            return factories.get().generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Password could not be hashed with " + name + ".", e);
+        } finally {
+            spec.clearPassword();
+            Arrays.fill(chars, '\0');
+        }
+    }
+
+}
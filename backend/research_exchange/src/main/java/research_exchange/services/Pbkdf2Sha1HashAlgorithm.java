@@ -0,0 +1,25 @@
+package research_exchange.services;
+
+import jakarta.inject.Singleton;
+
+/**
+ * The PBKDF2-SHA1 Hash Algorithm class, which every password was hashed with
+ * before hashes were versioned. It is kept so those Users can still log in and
+ * have their hash upgraded.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class Pbkdf2Sha1HashAlgorithm extends Pbkdf2HashAlgorithm {
+
+    /** The name the algorithm is stored under. */
+    public static final String NAME = "pbkdf2-sha1";
+
+    /**
+     * The constructor for the PBKDF2-SHA1 Hash Algorithm.
+     */
+    public Pbkdf2Sha1HashAlgorithm() {
+        super(NAME, "PBKDF2WithHmacSHA1");
+    }
+
+}
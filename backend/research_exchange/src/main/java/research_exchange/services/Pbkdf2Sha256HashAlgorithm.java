@@ -0,0 +1,23 @@
+package research_exchange.services;
+
+import jakarta.inject.Singleton;
+
+/**
+ * The PBKDF2-SHA256 Hash Algorithm class.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class Pbkdf2Sha256HashAlgorithm extends Pbkdf2HashAlgorithm {
+
+    /** The name the algorithm is stored under. */
+    public static final String NAME = "pbkdf2-sha256";
+
+    /**
+     * The constructor for the PBKDF2-SHA256 Hash Algorithm.
+     */
+    public Pbkdf2Sha256HashAlgorithm() {
+        super(NAME, "PBKDF2WithHmacSHA256");
+    }
+
+}
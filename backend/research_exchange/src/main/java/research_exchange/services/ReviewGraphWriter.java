@@ -0,0 +1,175 @@
+package research_exchange.services;
+
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import jakarta.inject.Singleton;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import javax.transaction.Transactional;
+import research_exchange.forms.HighlightSectionForm;
+import research_exchange.forms.InlineCommentForm;
+import research_exchange.models.CommentPost;
+import research_exchange.models.ExpertReview;
+import research_exchange.models.HighlightSection;
+import research_exchange.models.InlineComment;
+
+/**
+ * The Review Graph Writer class which inserts the Inline Comments of an Expert
+ * Review along with their CommentPosts and Highlight Sections. The IDs of
+ * every row are taken from the sequences in one query per table, and each
+ * table is written with a single JDBC batch, so a review with many annotations
+ * costs a fixed number of round trips instead of several per row.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class ReviewGraphWriter {
+
+    /** For allocating IDs and running the batched inserts. */
+    private final JdbcOperations jdbcOperations;
+
+    /**
+     * Setup the JDBC operations into the Review Graph Writer.
+     *
+     * @param jdbcOperations the JDBC operations
+     */
+    public ReviewGraphWriter(JdbcOperations jdbcOperations) {
+        this.jdbcOperations = jdbcOperations;
+    }
+
+    /**
+     * Insert the Inline Comments of a saved Expert Review. Runs in the
+     * transaction of the caller, so nothing is kept if any row fails.
+     *
+     * @param expertReview       the saved Expert Review, with its CommentPost
+     * @param inlineCommentForms the Inline Comments to insert
+     * @return the inserted Inline Comments with their IDs, CommentPosts, and
+     *         Highlight Sections
+     * @throws io.micronaut.data.exceptions.DataAccessException if any row is
+     *                                                          rejected
+     */
+    @Transactional
+    public List<InlineComment> insertInlineComments(ExpertReview expertReview,
+            List<InlineCommentForm> inlineCommentForms) {
+        int sectionCount = 0;
+        for (InlineCommentForm icf : inlineCommentForms) {
+            sectionCount += sections(icf).size();
+        }
+        long[] commentPostIds = nextIds("COMMENT_POST_SEQ", inlineCommentForms.size());
+        long[] inlineCommentIds = nextIds("INLINE_COMMENT_SEQ", inlineCommentForms.size());
+        long[] sectionIds = nextIds("HIGHLIGHT_SECTION_SEQ", sectionCount);
+
+        // Build the rows in memory with their allocated IDs
+        CommentPost reviewPost = expertReview.getCommentPost();
+        Instant datePosted = Instant.now();
+        List<InlineComment> inlineComments = new ArrayList<>(inlineCommentForms.size());
+        int section = 0;
+        for (int i = 0; i < inlineCommentForms.size(); i++) {
+            InlineCommentForm icf = inlineCommentForms.get(i);
+            CommentPost commentPost = new CommentPost(reviewPost.getUser(), reviewPost.getArticle(), 0,
+                    icf.getContent());
+            commentPost.setId(commentPostIds[i]);
+            commentPost.setDatePosted(datePosted);
+
+            InlineComment ic = new InlineComment(commentPost, expertReview, icf.getPageNum(),
+                    icf.getSelectedContent());
+            ic.setId(inlineCommentIds[i]);
+            ic.setExpertReviewId(expertReview.getId());
+
+            List<HighlightSection> highlightSections = new ArrayList<>(sections(icf).size());
+            for (HighlightSectionForm hsf : sections(icf)) {
+                HighlightSection hs = new HighlightSection(ic, hsf);
+                hs.setId(sectionIds[section++]);
+                highlightSections.add(hs);
+            }
+            ic.setHighlightSections(highlightSections);
+            inlineComments.add(ic);
+        }
+
+        jdbcOperations.prepareStatement("INSERT INTO COMMENT_POST (ID, USER_ID, ARTICLE_ID, SCORE, DATE_POSTED,"
+                + " CONTENT) VALUES (?, ?, ?, 0, ?, ?)", statement -> {
+                    for (InlineComment ic : inlineComments) {
+                        CommentPost commentPost = ic.getCommentPost();
+                        statement.setLong(1, commentPost.getId());
+                        statement.setLong(2, commentPost.getUser().getId());
+                        statement.setLong(3, commentPost.getArticle().getId());
+                        statement.setTimestamp(4, Timestamp.from(datePosted));
+                        statement.setString(5, commentPost.getContent());
+                        statement.addBatch();
+                    }
+                    return statement.executeBatch();
+                });
+
+        jdbcOperations.prepareStatement("INSERT INTO INLINE_COMMENT (ID, COMMENT_POST_ID, EXPERT_REVIEW_ID,"
+                + " PAGE_NUM, SELECTED_CONTENT) VALUES (?, ?, ?, ?, ?)", statement -> {
+                    for (int i = 0; i < inlineComments.size(); i++) {
+                        InlineComment ic = inlineComments.get(i);
+                        statement.setLong(1, ic.getId());
+                        statement.setLong(2, ic.getCommentPost().getId());
+                        statement.setLong(3, expertReview.getId());
+                        statement.setObject(4, inlineCommentForms.get(i).getPageNum());
+                        statement.setString(5, ic.getSelectedContent());
+                        statement.addBatch();
+                    }
+                    return statement.executeBatch();
+                });
+
+        if (sectionCount > 0) {
+            jdbcOperations.prepareStatement("INSERT INTO HIGHLIGHT_SECTION (ID, INLINE_COMMENT_ID, X_POSITION,"
+                    + " Y_POSITION, WIDTH, HEIGHT) VALUES (?, ?, ?, ?, ?, ?)", statement -> {
+                        for (int i = 0; i < inlineComments.size(); i++) {
+                            InlineComment ic = inlineComments.get(i);
+                            List<HighlightSectionForm> forms = sections(inlineCommentForms.get(i));
+                            for (int j = 0; j < forms.size(); j++) {
+                                HighlightSectionForm hsf = forms.get(j);
+                                statement.setLong(1, ic.getHighlightSections().get(j).getId());
+                                statement.setLong(2, ic.getId());
+                                // Bound from the form so a missing value is rejected by the
+                                // database instead of failing to unbox
+                                statement.setObject(3, hsf.getX());
+                                statement.setObject(4, hsf.getY());
+                                statement.setObject(5, hsf.getWidth());
+                                statement.setObject(6, hsf.getHeight());
+                                statement.addBatch();
+                            }
+                        }
+                        return statement.executeBatch();
+                    });
+        }
+
+        return inlineComments;
+    }
+
+    /**
+     * Take the next IDs from a sequence in a single query.
+     *
+     * @param sequence the name of the sequence
+     * @param count    the number of IDs to take
+     * @return the IDs, in the order the sequence returned them
+     */
+    private long[] nextIds(String sequence, int count) {
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+        jdbcOperations.prepareStatement("SELECT " + sequence + ".NEXTVAL FROM DUAL CONNECT BY LEVEL <= ?",
+                statement -> {
+                    statement.setInt(1, count);
+                    ResultSet resultSet = statement.executeQuery();
+                    int i = 0;
+                    while (resultSet.next()) {
+                        ids[i++] = resultSet.getLong(1);
+                    }
+                    return null;
+                });
+        return ids;
+    }
+
+    private static List<HighlightSectionForm> sections(InlineCommentForm inlineCommentForm) {
+        return inlineCommentForm.getHighlightSections() != null ? inlineCommentForm.getHighlightSections()
+                : List.of();
+    }
+
+}
@@ -1,14 +1,6 @@
 package research_exchange.services;
 
-import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
-import java.security.spec.InvalidKeySpecException;
-import java.security.spec.KeySpec;
-
-import javax.crypto.SecretKeyFactory;
-import javax.crypto.spec.PBEKeySpec;
-
-import org.apache.commons.codec.binary.Hex;
 
 import io.micronaut.data.exceptions.DataAccessException;
 import jakarta.inject.Singleton;
@@ -21,12 +13,19 @@ public class UserService {
 
     private final UserRepository userRepository;
 
-    public UserService(UserRepository userRepository) {
+    private final IdentityResolver identityResolver;
+
+    private final PasswordHashRegistry passwordHashRegistry;
+
+    public UserService(UserRepository userRepository, IdentityResolver identityResolver,
+            PasswordHashRegistry passwordHashRegistry) {
         this.userRepository = userRepository;
+        this.identityResolver = identityResolver;
+        this.passwordHashRegistry = passwordHashRegistry;
     }
 
     public boolean createUser(UserForm userForm) {
-        if (userRepository.findByUsername(userForm.getUsername()).isPresent()) {
+        if (identityResolver.resolve(userForm.getUsername()).isPresent()) {
             return false;
         }
 
@@ -51,28 +50,11 @@ public class UserService {
     }
 
     public String hashPassword(String password, byte[] salt) {
-        SecretKeyFactory factory = null;
-        try {
-            factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA1");
-        } catch (NoSuchAlgorithmException e) {
-            e.printStackTrace();
-        }
-        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, 65536, 128);
-        byte[] hash = null;
-        try {
-            hash = factory.generateSecret(spec).getEncoded();
-        } catch (InvalidKeySpecException e) {
-            e.printStackTrace();
-        }
-
-        String hashString = Hex.encodeHexString(hash);
-        return hashString;
+        return passwordHashRegistry.hash(password, salt).format();
     }
 
-    public boolean verifyPassword(String username, String unhashedPassword, byte[] salt) {
-        String hashedPassword = hashPassword(unhashedPassword, salt);
-
-        return hashedPassword.equals(userRepository.findByUsername(username).get().getPassword());
+    public boolean verifyPassword(User user, String password) {
+        return passwordHashRegistry.verify(password, user.getSalt(), user.getPassword());
     }
 
 }
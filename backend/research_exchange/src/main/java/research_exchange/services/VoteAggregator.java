@@ -0,0 +1,406 @@
+package research_exchange.services;
+
+import io.micronaut.context.annotation.Value;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.micronaut.transaction.SynchronousTransactionManager;
+import jakarta.annotation.PreDestroy;
+import jakarta.inject.Named;
+import jakarta.inject.Singleton;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import research_exchange.dto.AbstractCommentDTO;
+import research_exchange.models.Article;
+
+/**
+ * The Vote Aggregator class which keeps the scores of recently voted rows in
+ * memory and writes their votes behind to the database. The stored score of a
+ * row is read once, when it is first voted on, and votes are counted on top of
+ * it per Article or CommentPost. Votes are flushed in batches of
+ * {@code SCORE = SCORE + ?} updates, in the same transaction as the VoteLedger
+ * writes the votes themselves, so concurrent votes never overwrite each other,
+ * and a vote never waits on the database once its row is loaded. The
+ * score in memory is the current one whether or not its votes have been
+ * written, so reads take it over the stored score. Rows that go a whole flush
+ * without a vote are dropped once their votes are written, and are read from
+ * the database again the next time they are voted on.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class VoteAggregator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VoteAggregator.class);
+
+    /**
+     * The tables whose rows can be voted on.
+     */
+    public enum Target {
+        /** Votes on an Article. */
+        ARTICLE("UPDATE ARTICLE SET SCORE = SCORE + ? WHERE ID = ?"),
+        /** Votes on a CommentPost. */
+        COMMENT_POST("UPDATE COMMENT_POST SET SCORE = SCORE + ? WHERE ID = ?");
+
+        private final String updateSql;
+
+        Target(String updateSql) {
+            this.updateSql = updateSql;
+        }
+    }
+
+    /** For running the batched score updates. */
+    private final JdbcOperations jdbcOperations;
+
+    /** For committing each flush in a single transaction. */
+    private final SynchronousTransactionManager<Connection> transactionManager;
+
+    /** For allowing each User a single vote per row. */
+    private final VoteLedger voteLedger;
+
+    /** For flushing in the background once enough votes are pending. */
+    private final ExecutorService executorService;
+
+    /** The number of pending votes that triggers a flush before the timer. */
+    private final int flushThreshold;
+
+    /**
+     * The score of every recently voted row, per target table. A row is only
+     * changed through the compute methods of its map, so a vote and a flush of
+     * the same row never interleave, and votes on different rows never wait on
+     * each other.
+     */
+    private final Map<Target, ConcurrentHashMap<Long, Row>> rows = new EnumMap<>(Target.class);
+
+    /** The number of votes recorded since the last flush. */
+    private final AtomicInteger pendingVotes = new AtomicInteger();
+
+    /** If a flush has been handed to the executor and not yet started. */
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+
+    /** Held by the flush being written, so flushes never overlap. Votes never take it. */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * Setup the JDBC operations, transaction manager, Vote Ledger, and executor
+     * into the Vote Aggregator.
+     *
+     * @param jdbcOperations     the JDBC operations
+     * @param transactionManager the transaction manager
+     * @param voteLedger         the Vote Ledger
+     * @param executorService    the executor that runs threshold flushes
+     * @param flushThreshold     the number of pending votes that triggers a
+     *                           flush
+     */
+    public VoteAggregator(JdbcOperations jdbcOperations, SynchronousTransactionManager<Connection> transactionManager,
+            VoteLedger voteLedger, @Named(TaskExecutors.IO) ExecutorService executorService,
+            @Value("${research-exchange.votes.flush-threshold:500}") int flushThreshold) {
+        this.jdbcOperations = jdbcOperations;
+        this.transactionManager = transactionManager;
+        this.voteLedger = voteLedger;
+        this.executorService = executorService;
+        this.flushThreshold = flushThreshold;
+        for (Target target : Target.values()) {
+            rows.put(target, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Record the vote of a User on a row and return its score including every
+     * unflushed vote. A User has at most one vote per row, so switching from an
+     * upvote to a downvote changes the score by 2.
+     *
+     * @param target         the table of the voted row
+     * @param id             the ID of the voted row
+     * @param userId         the ID of the voting User
+     * @param direction      1 for an upvote, -1 for a downvote
+     * @param persistedScore looks up the score stored in the database; only
+     *                       called if the row is not in memory; empty if the row
+     *                       does not exist
+     * @return the current score; empty if the row does not exist, in which case
+     *         the vote is not recorded
+     * @throws IllegalStateException if the User already voted this way on the row
+     */
+    public Optional<Integer> vote(Target target, Long id, Long userId, int direction,
+            Function<Long, Optional<Integer>> persistedScore) {
+        ConcurrentHashMap<Long, Row> targetRows = rows.get(target);
+        if (!targetRows.containsKey(id) && !load(target, id, persistedScore)) {
+            return Optional.empty();
+        }
+
+        int previous = voteLedger.record(target, id, userId, direction);
+        int delta = direction - previous;
+        Row row;
+        // The row may be dropped between loading and counting the vote, in
+        // which case it is loaded again
+        while ((row = targetRows.computeIfPresent(id, (k, current) -> current.plus(delta))) == null) {
+            if (!load(target, id, persistedScore)) {
+                voteLedger.forget(target, id, userId, previous, direction);
+                return Optional.empty();
+            }
+        }
+
+        if (pendingVotes.incrementAndGet() >= flushThreshold && flushQueued.compareAndSet(false, true)) {
+            executorService.execute(() -> {
+                flushQueued.set(false);
+                flush();
+            });
+        }
+        return Optional.of(row.score());
+    }
+
+    /**
+     * Put a row in memory with its stored score, unless it already is.
+     *
+     * @return false if the row does not exist
+     */
+    private boolean load(Target target, Long id, Function<Long, Optional<Integer>> persistedScore) {
+        Optional<Integer> stored = persistedScore.apply(id);
+        if (stored.isEmpty()) {
+            return false;
+        }
+        rows.get(target).putIfAbsent(id, new Row(stored.get()));
+        return true;
+    }
+
+    /**
+     * Get the current score of a row, given the score read from the database.
+     * The score in memory is taken if the row was recently voted on, since it
+     * counts every vote whether or not it was written when the stored score was
+     * read.
+     *
+     * @param target      the table of the row
+     * @param id          the ID of the row
+     * @param storedScore the score read from the database
+     * @return the current score of the row
+     */
+    public int score(Target target, Long id, int storedScore) {
+        Row row = rows.get(target).get(id);
+        return row != null ? row.score() : storedScore;
+    }
+
+    /**
+     * Get the current scores of every row of a table in memory, to apply to a
+     * scan of the table in one go.
+     *
+     * @param target the table of the rows
+     * @return the current score of each recently voted row by ID
+     */
+    public Map<Long, Integer> scores(Target target) {
+        Map<Long, Integer> scores = new HashMap<>();
+        rows.get(target).forEach((id, row) -> scores.put(id, row.score()));
+        return scores;
+    }
+
+    /**
+     * Set the score of an Article read from the database to its current score.
+     *
+     * @param article the Article
+     */
+    public void applyScore(Article article) {
+        article.setScore(score(Target.ARTICLE, article.getId(), article.getScore()));
+    }
+
+    /**
+     * Set the score of a comment read from the database to its current score.
+     *
+     * @param comment the comment
+     */
+    public void applyScore(AbstractCommentDTO comment) {
+        comment.setScore(score(Target.COMMENT_POST, comment.getId(), comment.getScore()));
+    }
+
+    /**
+     * Write every pending vote to the database. Runs on a timer as well as when
+     * the threshold is reached. The votes counted so far are written in one
+     * transaction while new votes keep being counted, and are only marked as
+     * written once it commits. Votes the VoteLedger turns away are taken back
+     * out of the scores. If the write fails they are retried on the next flush.
+     */
+    @Scheduled(fixedDelay = "${research-exchange.votes.flush-interval:1s}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            pendingVotes.set(0);
+            Collection<VoteLedger.PendingVote> votes = voteLedger.drain();
+            Map<Target, Map<Long, Long>> deltas = new EnumMap<>(Target.class);
+            boolean empty = votes.isEmpty();
+            for (Target target : Target.values()) {
+                Map<Long, Long> targetDeltas = new HashMap<>();
+                rows.get(target).forEach((id, row) -> {
+                    if (row.unflushed() != 0) {
+                        targetDeltas.put(id, row.unflushed());
+                    }
+                });
+                deltas.put(target, targetDeltas);
+                empty &= targetDeltas.isEmpty();
+            }
+
+            if (!empty) {
+                Map<Target, Map<Long, Long>> rejected = write(votes, deltas);
+                if (rejected == null) {
+                    voteLedger.restore(votes);
+                } else {
+                    voteLedger.written(rejected);
+                    markWritten(deltas, rejected);
+                }
+            }
+            dropIdleRows();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Write the pending votes before the application stops.
+     */
+    @PreDestroy
+    void close() {
+        flush();
+    }
+
+    /**
+     * Mark the votes of a flush as written once it commits, and take the
+     * rejected ones back out of the scores in memory.
+     */
+    private void markWritten(Map<Target, Map<Long, Long>> deltas, Map<Target, Map<Long, Long>> rejected) {
+        for (Target target : Target.values()) {
+            Map<Long, Long> targetDeltas = deltas.get(target);
+            Map<Long, Long> targetRejected = rejected.getOrDefault(target, Map.of());
+            Set<Long> ids = new HashSet<>(targetDeltas.keySet());
+            ids.addAll(targetRejected.keySet());
+            for (Long id : ids) {
+                long delta = targetDeltas.getOrDefault(id, 0L);
+                long taken = targetRejected.getOrDefault(id, 0L);
+                rows.get(target).computeIfPresent(id, (k, row) -> row.flushed(delta, taken));
+            }
+        }
+    }
+
+    /**
+     * Drop the rows not voted on since the last flush whose votes are all
+     * written, so their scores are read again the next time they are voted on.
+     */
+    private void dropIdleRows() {
+        for (ConcurrentHashMap<Long, Row> targetRows : rows.values()) {
+            for (Long id : targetRows.keySet()) {
+                targetRows.computeIfPresent(id, (k, row) -> row.idle() ? null : row.settled());
+            }
+        }
+    }
+
+    /**
+     * Write the votes and the score changes of every table in a single
+     * transaction. The score of a row changes by its votes less the ones the
+     * VoteLedger turned away.
+     *
+     * @return the change in score of the votes turned away, by table and row
+     *         ID; null if the write failed
+     */
+    private Map<Target, Map<Long, Long>> write(Collection<VoteLedger.PendingVote> votes,
+            Map<Target, Map<Long, Long>> deltas) {
+        try {
+            return transactionManager.executeWrite(status -> {
+                Map<Target, Map<Long, Long>> rejected = voteLedger.write(votes);
+                for (Target target : Target.values()) {
+                    Map<Long, Long> scoreChanges = new HashMap<>(deltas.get(target));
+                    rejected.getOrDefault(target, Map.of())
+                            .forEach((id, taken) -> scoreChanges.merge(id, -taken, Long::sum));
+                    scoreChanges.values().removeIf(change -> change == 0);
+                    if (!scoreChanges.isEmpty()) {
+                        jdbcOperations.prepareStatement(target.updateSql, statement -> {
+                            addBatch(statement, scoreChanges);
+                            return statement.executeBatch();
+                        });
+                    }
+                }
+                return rejected;
+            });
+        } catch (RuntimeException e) {
+            LOG.error("Failed to flush {} votes on {} rows, will retry", votes.size(),
+                    deltas.values().stream().mapToInt(Map::size).sum(), e);
+            return null;
+        }
+    }
+
+    private static void addBatch(PreparedStatement statement, Map<Long, Long> deltas) throws SQLException {
+        for (Map.Entry<Long, Long> change : deltas.entrySet()) {
+            statement.setLong(1, change.getValue());
+            statement.setLong(2, change.getKey());
+            statement.addBatch();
+        }
+    }
+
+    /**
+     * The score of a voted row. The stored score is {@code base + flushed}, and
+     * the current score is {@code base + votes}. Each change makes a new Row.
+     */
+    private static final class Row {
+
+        /** The score stored when the row was loaded. */
+        private final long base;
+
+        /** The change in score from every vote since the row was loaded. */
+        private final long votes;
+
+        /** The part of the votes written to the database. */
+        private final long flushed;
+
+        /** If the row was voted on since the last flush. */
+        private final boolean active;
+
+        private Row(long base) {
+            this(base, 0, 0, true);
+        }
+
+        private Row(long base, long votes, long flushed, boolean active) {
+            this.base = base;
+            this.votes = votes;
+            this.flushed = flushed;
+            this.active = active;
+        }
+
+        private int score() {
+            return (int) (base + votes);
+        }
+
+        private long unflushed() {
+            return votes - flushed;
+        }
+
+        private Row plus(long delta) {
+            return new Row(base, votes + delta, flushed, true);
+        }
+
+        /** The votes written, less the ones taken back. */
+        private Row flushed(long delta, long taken) {
+            return new Row(base, votes - taken, flushed + delta - taken, active);
+        }
+
+        private Row settled() {
+            return new Row(base, votes, flushed, false);
+        }
+
+        private boolean idle() {
+            return !active && unflushed() == 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,380 @@
+package research_exchange.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micronaut.context.annotation.Value;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
+import io.micronaut.transaction.SynchronousTransactionManager;
+import jakarta.inject.Singleton;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * The Vote Ledger class which records the current vote of every User on every
+ * Article and CommentPost. The voters of recently voted rows are kept in memory
+ * as a compressed bitmap of upvoting User IDs and one of downvoting User IDs,
+ * so repeated votes are rejected without a database lookup. Votes are written
+ * behind with the scores by the VoteAggregator flush. Each is written only if
+ * the stored vote is still the one it replaced, so the VOTE primary key has the
+ * final say: a vote let through by stale voters in memory is dropped there, and
+ * its change in score is taken back.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class VoteLedger {
+
+    /**
+     * Writes a vote if the stored vote is still the one it replaced. A User
+     * that no longer exists has no vote written.
+     */
+    private static final String MERGE_SQL = "MERGE INTO VOTE v USING (SELECT ? TARGET_TYPE, ? TARGET_ID,"
+            + " u.ID USER_ID, ? DIRECTION, ? PREVIOUS FROM \"USER\" u WHERE u.ID = ?) s"
+            + " ON (v.TARGET_TYPE = s.TARGET_TYPE AND v.TARGET_ID = s.TARGET_ID AND v.USER_ID = s.USER_ID)"
+            + " WHEN MATCHED THEN UPDATE SET v.DIRECTION = s.DIRECTION WHERE v.DIRECTION = s.PREVIOUS"
+            + " WHEN NOT MATCHED THEN INSERT (TARGET_TYPE, TARGET_ID, USER_ID, DIRECTION)"
+            + " VALUES (s.TARGET_TYPE, s.TARGET_ID, s.USER_ID, s.DIRECTION) WHERE s.PREVIOUS = 0";
+
+    /** For reading and writing the Vote DB table. */
+    private final JdbcOperations jdbcOperations;
+
+    /** For loading the voters of a row. */
+    private final SynchronousTransactionManager<Connection> transactionManager;
+
+    /** The voters of each recently voted row. */
+    private final Cache<TargetKey, Voters> voters;
+
+    /** The votes not yet handed to a flush, by voted row and User. */
+    private final Map<VoteKey, PendingVote> pending = new ConcurrentHashMap<>();
+
+    /** The votes of the flush being written, until it commits. */
+    private volatile Collection<PendingVote> writing = List.of();
+
+    /**
+     * Setup the JDBC operations and transaction manager into the Vote Ledger.
+     *
+     * @param jdbcOperations     the JDBC operations
+     * @param transactionManager the transaction manager
+     * @param maxTargets         the most voted rows whose voters are kept in
+     *                           memory
+     */
+    public VoteLedger(JdbcOperations jdbcOperations, SynchronousTransactionManager<Connection> transactionManager,
+            @Value("${research-exchange.votes.ledger-max-targets:100000}") long maxTargets) {
+        this.jdbcOperations = jdbcOperations;
+        this.transactionManager = transactionManager;
+        this.voters = Caffeine.newBuilder().maximumSize(maxTargets).build();
+    }
+
+    /**
+     * Record the vote of a User on a row, to be written with the next flush. A
+     * User has at most one vote per row, so switching from an upvote to a
+     * downvote changes the score by 2, and voting the same way twice is
+     * rejected.
+     *
+     * @param target    the table of the voted row
+     * @param targetId  the ID of the voted row
+     * @param userId    the ID of the voting User
+     * @param direction 1 for an upvote, -1 for a downvote
+     * @return the vote it replaced: 1, -1, or 0 if there was none
+     * @throws IllegalStateException if the User already voted this way on the row
+     */
+    int record(VoteAggregator.Target target, Long targetId, Long userId, int direction) {
+        int user = Math.toIntExact(userId);
+        Voters rowVoters = voters.get(new TargetKey(target, targetId), this::load);
+        VoteKey key = new VoteKey(target, targetId, userId);
+
+        // Held only while the vote is checked and set in memory
+        synchronized (rowVoters) {
+            int previous = rowVoters.direction(user);
+            if (previous == direction) {
+                throw new IllegalStateException("You have already voted on this.");
+            }
+            rowVoters.set(user, direction);
+            pending.merge(key, new PendingVote(key, previous, direction), PendingVote::then);
+            return previous;
+        }
+    }
+
+    /**
+     * Take back a vote that was recorded on a row that turned out not to exist.
+     *
+     * @param target    the table of the voted row
+     * @param targetId  the ID of the voted row
+     * @param userId    the ID of the voting User
+     * @param previous  the vote it replaced
+     * @param direction the vote
+     */
+    void forget(VoteAggregator.Target target, Long targetId, Long userId, int previous, int direction) {
+        VoteKey key = new VoteKey(target, targetId, userId);
+        Voters rowVoters = voters.getIfPresent(new TargetKey(target, targetId));
+        if (rowVoters == null) {
+            unrecord(key, previous, direction);
+            return;
+        }
+        synchronized (rowVoters) {
+            int user = Math.toIntExact(userId);
+            if (rowVoters.direction(user) == direction) {
+                rowVoters.set(user, previous);
+            }
+            unrecord(key, previous, direction);
+        }
+    }
+
+    private void unrecord(VoteKey key, int previous, int direction) {
+        pending.computeIfPresent(key, (k, vote) -> {
+            if (vote.direction != direction) {
+                return vote;
+            }
+            return vote.previous == previous ? null : new PendingVote(key, vote.previous, previous);
+        });
+    }
+
+    /**
+     * Take the recorded votes for a flush. They stay visible to loads of the
+     * voters until {@link #written(Map)} or {@link #restore(Collection)}.
+     *
+     * @return the votes to write
+     */
+    Collection<PendingVote> drain() {
+        List<PendingVote> drained = new ArrayList<>();
+        for (VoteKey key : pending.keySet()) {
+            PendingVote vote = pending.remove(key);
+            if (vote != null) {
+                drained.add(vote);
+            }
+        }
+        writing = drained;
+        return drained;
+    }
+
+    /**
+     * Write the votes of a flush in a single batch, in the transaction of the
+     * flush. A vote is written only if the stored vote is still the one it
+     * replaced.
+     *
+     * @param votes the votes to write
+     * @return the change in score to take back for the votes that were not
+     *         written, by table and row ID
+     */
+    Map<VoteAggregator.Target, Map<Long, Long>> write(Collection<PendingVote> votes) {
+        List<PendingVote> changes = new ArrayList<>();
+        for (PendingVote vote : votes) {
+            if (vote.direction != vote.previous) {
+                changes.add(vote);
+            }
+        }
+        Map<VoteAggregator.Target, Map<Long, Long>> rejected = new EnumMap<>(VoteAggregator.Target.class);
+        if (changes.isEmpty()) {
+            return rejected;
+        }
+
+        int[] counts = jdbcOperations.prepareStatement(MERGE_SQL, statement -> {
+            for (PendingVote vote : changes) {
+                statement.setString(1, vote.key.target.name());
+                statement.setLong(2, vote.key.targetId);
+                statement.setInt(3, vote.direction);
+                statement.setInt(4, vote.previous);
+                statement.setLong(5, vote.key.userId);
+                statement.addBatch();
+            }
+            return statement.executeBatch();
+        });
+        for (int i = 0; i < changes.size(); i++) {
+            if (counts[i] == 0) {
+                PendingVote vote = changes.get(i);
+                rejected.computeIfAbsent(vote.key.target, t -> new HashMap<>())
+                        .merge(vote.key.targetId, (long) (vote.direction - vote.previous), Long::sum);
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Finish a flush once it commits. The voters of rows that had votes turned
+     * away are loaded again, so they match the database.
+     *
+     * @param rejected the change in score taken back, by table and row ID
+     */
+    void written(Map<VoteAggregator.Target, Map<Long, Long>> rejected) {
+        writing = List.of();
+        rejected.forEach((target, rows) -> rows.keySet()
+                .forEach(targetId -> voters.invalidate(new TargetKey(target, targetId))));
+    }
+
+    /**
+     * Put back the votes of a flush that failed, ahead of any recorded since.
+     *
+     * @param votes the votes of the flush
+     */
+    void restore(Collection<PendingVote> votes) {
+        for (PendingVote vote : votes) {
+            pending.merge(vote.key, vote, (newer, restored) -> restored.then(newer));
+        }
+        writing = List.of();
+    }
+
+    /**
+     * Load the voters of a row from the database, with the votes not yet
+     * written on top.
+     *
+     * @param key the voted row
+     * @return the voters of the row
+     */
+    private Voters load(TargetKey key) {
+        Collection<PendingVote> inFlight = writing;
+        Voters loaded = new Voters();
+        transactionManager.executeRead(status -> jdbcOperations.prepareStatement(
+                "SELECT USER_ID, DIRECTION FROM VOTE WHERE TARGET_TYPE = ? AND TARGET_ID = ?", statement -> {
+                    statement.setString(1, key.target.name());
+                    statement.setLong(2, key.targetId);
+                    ResultSet resultSet = statement.executeQuery();
+                    while (resultSet.next()) {
+                        loaded.set(Math.toIntExact(resultSet.getLong(1)), resultSet.getInt(2));
+                    }
+                    return null;
+                }));
+        for (PendingVote vote : inFlight) {
+            if (vote.key.isOn(key)) {
+                loaded.set(Math.toIntExact(vote.key.userId), vote.direction);
+            }
+        }
+        for (PendingVote vote : pending.values()) {
+            if (vote.key.isOn(key)) {
+                loaded.set(Math.toIntExact(vote.key.userId), vote.direction);
+            }
+        }
+        loaded.up.runOptimize();
+        loaded.down.runOptimize();
+        return loaded;
+    }
+
+    /**
+     * A vote not yet written: the stored vote it replaces, and the vote to
+     * store.
+     */
+    static final class PendingVote {
+
+        private final VoteKey key;
+
+        private final int previous;
+
+        private final int direction;
+
+        private PendingVote(VoteKey key, int previous, int direction) {
+            this.key = key;
+            this.previous = previous;
+            this.direction = direction;
+        }
+
+        /** This vote followed by a later one of the same User on the same row. */
+        private PendingVote then(PendingVote next) {
+            return new PendingVote(key, previous, next.direction);
+        }
+
+    }
+
+    /**
+     * The Users that upvoted and downvoted a single row.
+     */
+    private static final class Voters {
+
+        private final RoaringBitmap up = new RoaringBitmap();
+
+        private final RoaringBitmap down = new RoaringBitmap();
+
+        private int direction(int userId) {
+            if (up.contains(userId)) {
+                return 1;
+            }
+            return down.contains(userId) ? -1 : 0;
+        }
+
+        private void set(int userId, int direction) {
+            up.remove(userId);
+            down.remove(userId);
+            if (direction > 0) {
+                up.add(userId);
+            } else if (direction < 0) {
+                down.add(userId);
+            }
+        }
+
+    }
+
+    /**
+     * A voted row.
+     */
+    private static final class TargetKey {
+
+        private final VoteAggregator.Target target;
+
+        private final long targetId;
+
+        private TargetKey(VoteAggregator.Target target, long targetId) {
+            this.target = target;
+            this.targetId = targetId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TargetKey)) {
+                return false;
+            }
+            TargetKey other = (TargetKey) o;
+            return target == other.target && targetId == other.targetId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(target, targetId);
+        }
+
+    }
+
+    /**
+     * The vote of one User on one row.
+     */
+    private static final class VoteKey {
+
+        private final VoteAggregator.Target target;
+
+        private final long targetId;
+
+        private final long userId;
+
+        private VoteKey(VoteAggregator.Target target, long targetId, long userId) {
+            this.target = target;
+            this.targetId = targetId;
+            this.userId = userId;
+        }
+
+        private boolean isOn(TargetKey row) {
+            return target == row.target && targetId == row.targetId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof VoteKey)) {
+                return false;
+            }
+            VoteKey other = (VoteKey) o;
+            return target == other.target && targetId == other.targetId && userId == other.userId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(target, targetId, userId);
+        }
+
+    }
+
+}
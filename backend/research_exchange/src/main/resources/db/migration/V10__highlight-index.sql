@@ -0,0 +1 @@
+CREATE INDEX idx_inline_comment_comment_post ON "INLINE_COMMENT" ("COMMENT_POST_ID");
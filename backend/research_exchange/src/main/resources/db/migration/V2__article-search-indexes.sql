@@ -0,0 +1,9 @@
+CREATE INDEX idx_article_date_posted ON "ARTICLE" ("DATE_POSTED", "ID");
+CREATE INDEX idx_article_approved_date_posted ON "ARTICLE" ("APPROVED", "DATE_POSTED", "ID");
+CREATE INDEX idx_article_field ON "ARTICLE" ("MAIN_FIELD", "SUB_FIELD");
+
+CREATE INDEX idx_tag_article ON "TAG" ("ARTICLE_ID");
+CREATE INDEX idx_tag_name ON "TAG" ("NAME", "ARTICLE_ID");
+
+CREATE INDEX idx_author_article ON "AUTHOR" ("ARTICLE_ID");
+CREATE INDEX idx_author_username ON "AUTHOR" ("USERNAME", "ARTICLE_ID");
@@ -0,0 +1,3 @@
+CREATE INDEX idx_link_article ON "LINK" ("ARTICLE_ID");
+CREATE INDEX idx_comment_post_article ON "COMMENT_POST" ("ARTICLE_ID");
+CREATE INDEX idx_expert_review_comment_post ON "EXPERT_REVIEW" ("COMMENT_POST_ID");
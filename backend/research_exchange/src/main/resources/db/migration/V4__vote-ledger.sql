@@ -0,0 +1,8 @@
+CREATE TABLE "VOTE" (
+    "TARGET_TYPE" VARCHAR(16) NOT NULL,
+    "TARGET_ID" NUMBER(19) NOT NULL,
+    "USER_ID" NUMBER(19) NOT NULL,
+    "DIRECTION" NUMBER(1) NOT NULL CHECK ("DIRECTION" IN (-1, 1)),
+    CONSTRAINT pk_vote PRIMARY KEY ("TARGET_TYPE", "TARGET_ID", "USER_ID"),
+    CONSTRAINT fk_vote_user FOREIGN KEY ("USER_ID") REFERENCES "USER" ("ID") ON DELETE CASCADE
+);
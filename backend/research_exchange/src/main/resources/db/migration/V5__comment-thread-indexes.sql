@@ -0,0 +1,2 @@
+CREATE INDEX idx_general_comment_comment_post ON "GENERAL_COMMENT" ("COMMENT_POST_ID");
+CREATE INDEX idx_general_comment_thread ON "GENERAL_COMMENT" ("THREAD_ID");
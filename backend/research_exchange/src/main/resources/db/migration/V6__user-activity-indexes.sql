@@ -0,0 +1,4 @@
+CREATE INDEX idx_comment_post_user ON "COMMENT_POST" ("USER_ID", "ID");
+
+CREATE INDEX idx_inline_comment_expert_review ON "INLINE_COMMENT" ("EXPERT_REVIEW_ID");
+CREATE INDEX idx_highlight_section_inline_comment ON "HIGHLIGHT_SECTION" ("INLINE_COMMENT_ID");
@@ -0,0 +1,13 @@
+ALTER TABLE "ARTICLE" ADD (
+    "APPROVED_REVIEWS" NUMBER(10) DEFAULT 0 NOT NULL,
+    "NEEDS_WORK_REVIEWS" NUMBER(10) DEFAULT 0 NOT NULL,
+    "REJECTED_REVIEWS" NUMBER(10) DEFAULT 0 NOT NULL
+);
+
+UPDATE "ARTICLE" a SET
+    "APPROVED_REVIEWS" = (SELECT COUNT(*) FROM "EXPERT_REVIEW" er JOIN "COMMENT_POST" cp ON cp."ID" = er."COMMENT_POST_ID"
+        WHERE cp."ARTICLE_ID" = a."ID" AND er."STATUS" = 'Approved'),
+    "NEEDS_WORK_REVIEWS" = (SELECT COUNT(*) FROM "EXPERT_REVIEW" er JOIN "COMMENT_POST" cp ON cp."ID" = er."COMMENT_POST_ID"
+        WHERE cp."ARTICLE_ID" = a."ID" AND er."STATUS" = 'Needs Work'),
+    "REJECTED_REVIEWS" = (SELECT COUNT(*) FROM "EXPERT_REVIEW" er JOIN "COMMENT_POST" cp ON cp."ID" = er."COMMENT_POST_ID"
+        WHERE cp."ARTICLE_ID" = a."ID" AND er."STATUS" = 'Rejected');
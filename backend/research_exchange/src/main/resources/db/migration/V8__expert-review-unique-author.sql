@@ -0,0 +1,60 @@
+ALTER TABLE "EXPERT_REVIEW" ADD ("USER_ID" NUMBER(19), "ARTICLE_ID" NUMBER(19));
+
+UPDATE "EXPERT_REVIEW" er SET ("USER_ID", "ARTICLE_ID") =
+    (SELECT cp."USER_ID", cp."ARTICLE_ID" FROM "COMMENT_POST" cp WHERE cp."ID" = er."COMMENT_POST_ID");
+
+-- Keep only the first Expert Review of each User on each Article. Each later
+-- one is folded into the first: its Inline Comments and the replies to it are
+-- moved over, so no one else's comments are lost, and only the later review
+-- itself is deleted.
+CREATE VIEW "EXPERT_REVIEW_KEPT" AS
+    SELECT er."ID", er."COMMENT_POST_ID", er."ARTICLE_ID", er."STATUS",
+        FIRST_VALUE(er."ID") OVER (PARTITION BY er."USER_ID", er."ARTICLE_ID" ORDER BY er."ID") AS "KEPT_ID",
+        FIRST_VALUE(er."COMMENT_POST_ID") OVER (PARTITION BY er."USER_ID", er."ARTICLE_ID" ORDER BY er."ID")
+            AS "KEPT_COMMENT_POST_ID"
+    FROM "EXPERT_REVIEW" er;
+
+UPDATE "INLINE_COMMENT" ic SET "EXPERT_REVIEW_ID" =
+    (SELECT k."KEPT_ID" FROM "EXPERT_REVIEW_KEPT" k WHERE k."ID" = ic."EXPERT_REVIEW_ID")
+WHERE ic."EXPERT_REVIEW_ID" IN (SELECT k."ID" FROM "EXPERT_REVIEW_KEPT" k WHERE k."ID" <> k."KEPT_ID");
+
+UPDATE "GENERAL_COMMENT" gc SET "THREAD_ID" =
+    (SELECT k."KEPT_COMMENT_POST_ID" FROM "EXPERT_REVIEW_KEPT" k WHERE k."COMMENT_POST_ID" = gc."THREAD_ID")
+WHERE gc."THREAD_ID" IN (SELECT k."COMMENT_POST_ID" FROM "EXPERT_REVIEW_KEPT" k WHERE k."ID" <> k."KEPT_ID");
+
+UPDATE "GENERAL_COMMENT" gc SET "REPLY_TO_ID" =
+    (SELECT k."KEPT_COMMENT_POST_ID" FROM "EXPERT_REVIEW_KEPT" k WHERE k."COMMENT_POST_ID" = gc."REPLY_TO_ID")
+WHERE gc."REPLY_TO_ID" IN (SELECT k."COMMENT_POST_ID" FROM "EXPERT_REVIEW_KEPT" k WHERE k."ID" <> k."KEPT_ID");
+
+-- An Article approved only because a User's reviews were counted more than once
+-- goes back to unapproved, matching the tally recomputed below
+UPDATE "ARTICLE" a SET "APPROVED" = 0
+WHERE a."APPROVED" = 1
+    AND EXISTS (SELECT 1 FROM "EXPERT_REVIEW_KEPT" k WHERE k."ARTICLE_ID" = a."ID" AND k."ID" <> k."KEPT_ID")
+    AND (SELECT COUNT(*) FROM "EXPERT_REVIEW_KEPT" k
+        WHERE k."ARTICLE_ID" = a."ID" AND k."ID" = k."KEPT_ID" AND k."STATUS" = 'Approved') < 3;
+
+DELETE FROM "VOTE" WHERE "TARGET_TYPE" = 'COMMENT_POST' AND "TARGET_ID" IN (
+    SELECT k."COMMENT_POST_ID" FROM "EXPERT_REVIEW_KEPT" k WHERE k."ID" <> k."KEPT_ID");
+
+-- Nothing refers to the later reviews any more, so this only cascades to them
+DELETE FROM "COMMENT_POST" WHERE "ID" IN (
+    SELECT k."COMMENT_POST_ID" FROM "EXPERT_REVIEW_KEPT" k WHERE k."ID" <> k."KEPT_ID");
+
+DROP VIEW "EXPERT_REVIEW_KEPT";
+
+-- The review tallies counted the deleted reviews
+UPDATE "ARTICLE" a SET
+    "APPROVED_REVIEWS" = (SELECT COUNT(*) FROM "EXPERT_REVIEW" er
+        WHERE er."ARTICLE_ID" = a."ID" AND er."STATUS" = 'Approved'),
+    "NEEDS_WORK_REVIEWS" = (SELECT COUNT(*) FROM "EXPERT_REVIEW" er
+        WHERE er."ARTICLE_ID" = a."ID" AND er."STATUS" = 'Needs Work'),
+    "REJECTED_REVIEWS" = (SELECT COUNT(*) FROM "EXPERT_REVIEW" er
+        WHERE er."ARTICLE_ID" = a."ID" AND er."STATUS" = 'Rejected');
+
+ALTER TABLE "EXPERT_REVIEW" MODIFY ("USER_ID" NOT NULL, "ARTICLE_ID" NOT NULL);
+ALTER TABLE "EXPERT_REVIEW" ADD (
+    CONSTRAINT fk_expert_review_user FOREIGN KEY ("USER_ID") REFERENCES "USER" ("ID") ON DELETE CASCADE,
+    CONSTRAINT fk_expert_review_article FOREIGN KEY ("ARTICLE_ID") REFERENCES "ARTICLE" ("ID") ON DELETE CASCADE,
+    CONSTRAINT uq_expert_review_user_article UNIQUE ("USER_ID", "ARTICLE_ID")
+);
@@ -0,0 +1,3 @@
+ALTER SEQUENCE "COMMENT_POST_SEQ" CACHE 100;
+ALTER SEQUENCE "INLINE_COMMENT_SEQ" CACHE 100;
+ALTER SEQUENCE "HIGHLIGHT_SECTION_SEQ" CACHE 100;
@@ -1,8 +1,17 @@
 package research_exchange.api;
 
+import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -11,23 +20,38 @@ import com.github.dockerjava.zerodep.shaded.org.apache.hc.core5.http.HttpRequest
 
 import io.micronaut.context.env.Environment;
 import io.micronaut.core.type.Argument;
+import io.micronaut.data.jdbc.runtime.JdbcOperations;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
+import static io.micronaut.http.HttpStatus.CONFLICT;
 import static io.micronaut.http.HttpStatus.OK;
 import io.micronaut.http.MediaType;
 import io.micronaut.http.client.HttpClient;
 import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.http.client.multipart.MultipartBody;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.security.token.jwt.render.BearerAccessRefreshToken;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
+import io.micronaut.transaction.SynchronousTransactionManager;
 import jakarta.inject.Inject;
+import jakarta.inject.Named;
 import research_exchange.models.Article;
 import research_exchange.models.Author;
+import research_exchange.models.Link;
 import research_exchange.models.Tag;
 import research_exchange.models.User;
 import research_exchange.repositories.ArticleRepository;
 import research_exchange.repositories.AuthorRepository;
+import research_exchange.repositories.LinkRepository;
 import research_exchange.repositories.TagAbstractRepository;
 import research_exchange.repositories.UserRepository;
+import research_exchange.services.ArticleLeaderboard;
+import research_exchange.services.ArticleSearchIndex;
+import research_exchange.services.ArticleTagIndex;
+import research_exchange.services.UserService;
+import research_exchange.services.VoteAggregator;
+import research_exchange.services.VoteLedger;
 
 @MicronautTest(environments = Environment.ORACLE_CLOUD)
 public class APIArticleTest {
@@ -46,6 +70,36 @@ public class APIArticleTest {
     @Inject
     private UserRepository userRepository;
 
+    @Inject
+    private LinkRepository linkRepository;
+
+    @Inject
+    private ArticleTagIndex articleTagIndex;
+
+    @Inject
+    private ArticleSearchIndex articleSearchIndex;
+
+    @Inject
+    private ArticleLeaderboard articleLeaderboard;
+
+    @Inject
+    private VoteAggregator voteAggregator;
+
+    /** For writing votes from a Vote Aggregator of the test's own. */
+    @Inject
+    private JdbcOperations jdbcOperations;
+
+    @Inject
+    private SynchronousTransactionManager<Connection> transactionManager;
+
+    @Inject
+    @Named(TaskExecutors.IO)
+    private ExecutorService executorService;
+
+    /** For hashing the passwords of the voters. */
+    @Inject
+    private UserService userService;
+
     /** Injects root endpoint as http client. */
     @Inject
     @Client("/")
@@ -61,6 +115,7 @@ public class APIArticleTest {
         tagRepository.deleteAll();
         authorRepository.deleteAll();
         userRepository.deleteAll();
+        linkRepository.deleteAll();
 
         // Add Articles and Tag to the database
         Article a1 = new Article("article1", "Artificial Intelligence content", "mainfield", "subfield", "link", "link",
@@ -97,14 +152,96 @@ public class APIArticleTest {
         assertEquals(OK, rspOfviewArticle.getStatus());
     }
 
+    /**
+     * Test paging through the Articles with a cursor.
+     */
+    @Test
+    public void viewArticlesByCursor() {
+        HttpRequest<?> firstPage = HttpRequest.GET("/articles?limit=1");
+        HttpResponse<List<Article>> rspOfFirstPage = client.toBlocking().exchange(firstPage,
+                Argument.listOf(Article.class));
+        assertEquals(OK, rspOfFirstPage.getStatus());
+        assertEquals(1, rspOfFirstPage.body().size());
+        String cursor = rspOfFirstPage.header("X-Next-Cursor");
+        assertNotNull(cursor);
+
+        HttpRequest<?> secondPage = HttpRequest.GET("/articles?limit=1&cursor=" + cursor);
+        HttpResponse<List<Article>> rspOfSecondPage = client.toBlocking().exchange(secondPage,
+                Argument.listOf(Article.class));
+        assertEquals(OK, rspOfSecondPage.getStatus());
+        assertEquals(1, rspOfSecondPage.body().size());
+        assertNotEquals(rspOfFirstPage.body().get(0).getId(), rspOfSecondPage.body().get(0).getId());
+        assertNull(rspOfSecondPage.header("X-Next-Cursor"));
+    }
+
+    /**
+     * Test that numbered pages of a filtered listing are cut from the matching
+     * Articles only, newest first.
+     */
+    @Test
+    public void viewArticlesByPageFiltered() {
+        articleRepository.save(new Article("article3", "Robotics content", "mainfield", "subfield", "link", "link",
+                "link"));
+        articleRepository.save(new Article("article4", "Biology content", "otherfield", "subfield", "link", "link",
+                "link"));
+
+        List<String> names = new ArrayList<>();
+        for (int pageNum = 0; pageNum < 4; pageNum++) {
+            HttpRequest<?> page = HttpRequest
+                    .GET("/articles?mainField=mainfield&recordsPerPage=1&pageNum=" + pageNum);
+            HttpResponse<List<Article>> rspOfPage = client.toBlocking().exchange(page,
+                    Argument.listOf(Article.class));
+            assertEquals(OK, rspOfPage.getStatus());
+            rspOfPage.body().forEach(a -> names.add(a.getName()));
+        }
+        assertEquals(List.of("article3", "article2", "article1"), names);
+    }
+
+    /**
+     * Test that listed Articles come with their tags, links, authors, and review
+     * statuses, and that the authors of unapproved Articles stay hidden.
+     */
+    @Test
+    public void viewArticlesHydrated() {
+        Article approved = articleRepository.findAll().stream().filter(a -> a.getName().equals("article1"))
+                .findFirst().get();
+        approved.setApproved(1);
+        approved.setApprovedReviews(2);
+        approved.setNeedsWorkReviews(1);
+        articleRepository.update(approved);
+        linkRepository.save(new Link("https://example.com/data", approved));
+
+        HttpRequest<?> viewApproved = HttpRequest.GET("/articles/username/approved");
+        HttpResponse<List<Article>> rspOfViewApproved = client.toBlocking().exchange(viewApproved,
+                Argument.listOf(Article.class));
+        assertEquals(OK, rspOfViewApproved.getStatus());
+        assertEquals(1, rspOfViewApproved.body().size());
+        Article hydrated = rspOfViewApproved.body().get(0);
+        assertEquals(List.of("AI"), hydrated.getTags());
+        assertEquals(List.of("https://example.com/data"), hydrated.getLinks());
+        assertEquals(List.of("Approved", "Approved", "Needs Work"), hydrated.getExpertReviews());
+        assertEquals(1, hydrated.getAuthors().size());
+        assertEquals("username", hydrated.getAuthors().get(0).getUsername());
+        assertEquals("name", hydrated.getAuthors().get(0).getName());
+
+        HttpRequest<?> viewAll = HttpRequest.GET("/articles?pageNum=0");
+        HttpResponse<List<Article>> rspOfViewAll = client.toBlocking().exchange(viewAll,
+                Argument.listOf(Article.class));
+        assertEquals(OK, rspOfViewAll.getStatus());
+        Article anonymous = rspOfViewAll.body().stream().filter(a -> a.getName().equals("article2"))
+                .findFirst().get();
+        assertEquals(List.of(), anonymous.getTags());
+        assertNull(anonymous.getAuthors());
+    }
+
     /**
      * Test POST endpoint for adding an article.
      */
     @Test
     public void addArticle() {
         // Create multipart request body
+        // The PDF is streamed as it arrives, so it comes after every other field
         MultipartBody requestBody = MultipartBody.builder()
-                .addPart("articlePdf", "hello.pdf", MediaType.TEXT_PLAIN_TYPE, "Hello".getBytes())
                 .addPart("title", "title")
                 .addPart("articleAbstract", "abstract")
                 .addPart("authors", "authors")
@@ -114,6 +251,7 @@ public class APIArticleTest {
                 .addPart("repoUrl", "repoUrl")
                 .addPart("dataUrl", "dataUrl")
                 .addPart("extraLinks", "extraLinks")
+                .addPart("articlePdf", "hello.pdf", MediaType.TEXT_PLAIN_TYPE, "Hello".getBytes())
                 .build();
 
         HttpRequest<?> addArticle = HttpRequest.POST("/articles/", requestBody)
@@ -122,6 +260,31 @@ public class APIArticleTest {
         assertEquals(OK, rspOfGetArticle.getStatus());
     }
 
+    /**
+     * Test counting the Articles matching tag filters.
+     */
+    @Test
+    public void countArticlesByTag() {
+        articleTagIndex.rebuild();
+        articleSearchIndex.rebuild();
+
+        HttpRequest<?> countAny = HttpRequest.GET("/articles/tags/count?tags=AI,Missing");
+        assertEquals(1L, client.toBlocking().retrieve(countAny, Long.class));
+
+        HttpRequest<?> countAll = HttpRequest.GET("/articles/tags/count?tags=AI,Missing&tagMatch=all");
+        assertEquals(0L, client.toBlocking().retrieve(countAll, Long.class));
+
+        HttpRequest<?> countExcluded = HttpRequest.GET("/articles/tags/count?excludeTags=AI");
+        assertEquals(articleRepository.count() - 1, client.toBlocking().retrieve(countExcluded, Long.class));
+
+        // The other filters of the listing narrow the count too
+        HttpRequest<?> countFiltered = HttpRequest.GET("/articles/tags/count?tags=AI&mainField=otherfield");
+        assertEquals(0L, client.toBlocking().retrieve(countFiltered, Long.class));
+
+        HttpRequest<?> countSearched = HttpRequest.GET("/articles/tags/count?excludeTags=AI&searchValue=Computer");
+        assertEquals(1L, client.toBlocking().retrieve(countSearched, Long.class));
+    }
+
     @Test
     public void numArticle() {
         HttpRequest<?> getArticle = HttpRequest.GET("/articles/numTotal");
@@ -157,6 +320,149 @@ public class APIArticleTest {
         assertEquals(OK, rspOfVoteArticle.getStatus());
     }
 
+    /**
+     * Test that votes are written behind to the database.
+     */
+    @Test
+    public void voteArticleWriteBehind() {
+        Long id = articleRepository.findAll().get(0).getId();
+        String firstVoter = login("voter1");
+        String secondVoter = login("voter2");
+
+        HttpRequest<?> firstVote = HttpRequest.POST("/articles/" + id + "/vote", "up").bearerAuth(firstVoter);
+        assertEquals(1, client.toBlocking().exchange(firstVote, Integer.class).body());
+
+        // The same User voting the same way again is rejected and not counted
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(firstVote, Integer.class));
+        assertEquals(CONFLICT, e.getStatus());
+
+        HttpRequest<?> secondVote = HttpRequest.POST("/articles/" + id + "/vote", "up").bearerAuth(secondVoter);
+        assertEquals(2, client.toBlocking().exchange(secondVote, Integer.class).body());
+
+        voteAggregator.flush();
+        assertEquals(2, articleRepository.findScoreById(id).get());
+    }
+
+    /**
+     * Test that a vote let through by voters in memory that missed a vote
+     * already recorded is turned away by the database when it is written.
+     */
+    @Test
+    public void voteRejectedByLedger() {
+        Long id = articleRepository.findAll().get(0).getId();
+        byte[] salt = "salt".getBytes();
+        Long userId = userRepository.save(new User("voter", "voter", "voter@test.com", "password", salt, "User"))
+                .getId();
+
+        // Neither knows of the vote of the other
+        VoteAggregator first = new VoteAggregator(jdbcOperations, transactionManager,
+                new VoteLedger(jdbcOperations, transactionManager, 100), executorService, 500);
+        VoteAggregator second = new VoteAggregator(jdbcOperations, transactionManager,
+                new VoteLedger(jdbcOperations, transactionManager, 100), executorService, 500);
+        assertEquals(Optional.of(1), first.vote(VoteAggregator.Target.ARTICLE, id, userId, 1,
+                articleRepository::findScoreById));
+        assertEquals(Optional.of(1), second.vote(VoteAggregator.Target.ARTICLE, id, userId, 1,
+                articleRepository::findScoreById));
+
+        first.flush();
+        second.flush();
+        assertEquals(1, articleRepository.findScoreById(id).get());
+        assertEquals(0, second.score(VoteAggregator.Target.ARTICLE, id, 0));
+    }
+
+    /**
+     * Test that the last word of the search text matches as a prefix, and the
+     * words before it only as whole words.
+     */
+    @Test
+    public void searchArticlesByPrefix() {
+        articleSearchIndex.rebuild();
+
+        List<Article> prefixed = searchArticles("content%20artif");
+        assertEquals(1, prefixed.size());
+        assertEquals("article1", prefixed.get(0).getName());
+
+        assertEquals(0, searchArticles("artif%20content").size());
+    }
+
+    /**
+     * Test that search text of only stop words lists every Article, like no
+     * search text at all.
+     */
+    @Test
+    public void searchArticlesByStopWords() {
+        articleSearchIndex.rebuild();
+
+        assertEquals(articleRepository.count(), searchArticles("the%20of%20and").size());
+    }
+
+    /**
+     * Test that the authors of an Article are only searchable once it is
+     * approved.
+     */
+    @Test
+    public void searchArticlesByAuthorAfterApproval() {
+        articleSearchIndex.rebuild();
+        assertEquals(0, searchArticles("username").size());
+
+        Article article = articleRepository.findAll().stream().filter(a -> a.getName().equals("article1"))
+                .findFirst().get();
+        article.setApproved(1);
+        articleRepository.update(article);
+        articleSearchIndex.indexAuthors(article.getId());
+
+        List<Article> found = searchArticles("username");
+        assertEquals(1, found.size());
+        assertEquals(article.getId(), found.get(0).getId());
+    }
+
+    /**
+     * List the Articles matching the search text.
+     *
+     * @param searchValue the URL encoded search text
+     * @return the matching Articles
+     */
+    private List<Article> searchArticles(String searchValue) {
+        HttpRequest<?> search = HttpRequest.GET("/articles?searchValue=" + searchValue);
+        HttpResponse<List<Article>> rspOfSearch = client.toBlocking().exchange(search,
+                Argument.listOf(Article.class));
+        assertEquals(OK, rspOfSearch.getStatus());
+        return rspOfSearch.body();
+    }
+
+    /**
+     * Save a User with a known password and log them in.
+     *
+     * @param username the username of the User
+     * @return the access token of the User
+     */
+    private String login(String username) {
+        byte[] salt = (username + "-salt").getBytes();
+        userRepository.save(new User(username, username, username + "@test.com",
+                userService.hashPassword("secret", salt), salt, "User"));
+        HttpRequest<?> login = HttpRequest.POST("/login", Map.of("username", username, "password", "secret"));
+        return client.toBlocking().retrieve(login, BearerAccessRefreshToken.class).getAccessToken();
+    }
+
+    /**
+     * Test that a vote moves an Article to the top of the leaderboard.
+     */
+    @Test
+    public void getTopArticleAfterVote() {
+        articleLeaderboard.reconcile();
+        Long id = articleRepository.findAll().get(1).getId();
+        HttpRequest<?> voteArticle = HttpRequest.POST("/articles/" + id + "/vote", "up");
+        client.toBlocking().exchange(voteArticle, HttpResponse.class);
+
+        HttpRequest<?> topArticle = HttpRequest.GET("/articles/top?limit=1&mainField=mainfield");
+        HttpResponse<List<Article>> rspOfTopArticle = client.toBlocking().exchange(topArticle,
+                Argument.listOf(Article.class));
+        assertEquals(OK, rspOfTopArticle.getStatus());
+        assertEquals(1, rspOfTopArticle.body().size());
+        assertEquals(id, rspOfTopArticle.body().get(0).getId());
+    }
+
     @Test
     public void testGetTopArticle() {
         HttpRequest<?> topArticle = HttpRequest.GET("/articles/top");
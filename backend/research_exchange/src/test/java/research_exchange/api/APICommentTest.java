@@ -215,6 +215,71 @@ public class APICommentTest {
         }
     }
 
+    /**
+     * Test that the followups of an Article are grouped under the thread they
+     * belong to, replies to followups included, and that Comments on other
+     * Articles are left out.
+     */
+    @Test
+    public void testGetArticleAllCommentsGroupsThreads() {
+        Article a = articleRepository.findAll().get(0);
+        Article other = articleRepository.save(new Article("article 2", "content2", "mainfield1", "subfield1",
+                "pdf2", "repo2", "data2"));
+
+        TopLevelCommentDTO first = (TopLevelCommentDTO) commentService.postComment(a.getId(),
+                new CommentForm(null, null, "User1", "first thread"));
+        TopLevelCommentDTO second = (TopLevelCommentDTO) commentService.postComment(a.getId(),
+                new CommentForm(null, null, "User2", "second thread"));
+        FollowupCommentDTO reply = (FollowupCommentDTO) commentService.postComment(a.getId(),
+                new CommentForm(first.getId(), first.getId(), "User2", "reply to first"));
+        FollowupCommentDTO otherReply = (FollowupCommentDTO) commentService.postComment(a.getId(),
+                new CommentForm(second.getId(), second.getId(), "User1", "reply to second"));
+        FollowupCommentDTO nestedReply = (FollowupCommentDTO) commentService.postComment(a.getId(),
+                new CommentForm(first.getId(), reply.getId(), "User1", "reply to reply"));
+        commentService.postComment(other.getId(), new CommentForm(null, null, "User1", "other article"));
+
+        HttpRequest<?> req = HttpRequest.GET("/articles/" + a.getId() + "/comments");
+        HttpResponse<List<TopLevelCommentDTO>> rsp = client.toBlocking().exchange(req,
+                Argument.listOf(TopLevelCommentDTO.class));
+        assertEquals(OK, rsp.getStatus());
+        List<TopLevelCommentDTO> comments = rsp.body();
+        assertEquals(2, comments.size());
+
+        assertEquals(first.getId(), comments.get(0).getId());
+        List<FollowupCommentDTO> firstFollowups = comments.get(0).getFollowups();
+        assertEquals(2, firstFollowups.size());
+        assertEquals(reply.getId(), firstFollowups.get(0).getId());
+        assertEquals(first.getId(), firstFollowups.get(0).getReplyingTo());
+        assertEquals(nestedReply.getId(), firstFollowups.get(1).getId());
+        assertEquals(reply.getId(), firstFollowups.get(1).getReplyingTo());
+
+        assertEquals(second.getId(), comments.get(1).getId());
+        assertEquals(1, comments.get(1).getFollowups().size());
+        assertEquals(otherReply.getId(), comments.get(1).getFollowups().get(0).getId());
+    }
+
+    /**
+     * Test that a Comment shows up in the next read of the Comment threads of
+     * an Article whose threads are already cached.
+     */
+    @Test
+    public void testPostCommentRefreshesCachedTree() {
+        Article a = articleRepository.findAll().get(0);
+        assertEquals(0, commentService.getArticleAllComments(a.getId()).size());
+
+        CommentForm c1 = new CommentForm(null, null, "User1", "content 1");
+        TopLevelCommentDTO tlc = (TopLevelCommentDTO) commentService.postComment(a.getId(), c1);
+        List<TopLevelCommentDTO> comments = commentService.getArticleAllComments(a.getId());
+        assertEquals(1, comments.size());
+        assertEquals(tlc.getId(), comments.get(0).getId());
+
+        CommentForm c2 = new CommentForm(tlc.getId(), tlc.getId(), "User2", "reply to User 1");
+        FollowupCommentDTO fc = (FollowupCommentDTO) commentService.postComment(a.getId(), c2);
+        comments = commentService.getArticleAllComments(a.getId());
+        assertEquals(1, comments.get(0).getFollowups().size());
+        assertEquals(fc.getId(), comments.get(0).getFollowups().get(0).getId());
+    }
+
     /**
      * Test GET endpoint for retrieving all Comments from a User.
      */
@@ -258,6 +323,47 @@ public class APICommentTest {
         }
     }
 
+    /**
+     * Test GET endpoint for paging through the Comments of a User with a cursor.
+     */
+    @Test
+    public void testGetUserCommentsByCursor() {
+        // Generate and save 2 Comments into database from User 1
+        Article a = articleRepository.findAll().get(0);
+        CommentForm c1 = new CommentForm(null, null, "User1", "content 1");
+        CommentForm c2 = new CommentForm(null, null, "User1", "content 2");
+        commentService.postComment(a.getId(), c1);
+        commentService.postComment(a.getId(), c2);
+
+        // -- Get first page, which has the newest Comment
+        HttpRequest<?> req = HttpRequest.GET("/users/User1/comments?limit=1");
+        HttpResponse<List<UserCommentDTO>> rsp = client.toBlocking().exchange(req,
+                Argument.listOf(UserCommentDTO.class));
+        assertEquals(OK, rsp.getStatus());
+        assertEquals(1, rsp.body().size());
+        assertEquals(c2.getContent(), rsp.body().get(0).getContent());
+        assertEquals("2", rsp.header("X-Total-Count"));
+        String cursor = rsp.header("X-Next-Cursor");
+        assertNotNull(cursor);
+
+        // -- Get second page, which is the last
+        req = HttpRequest.GET("/users/User1/comments?limit=1&cursor=" + cursor);
+        rsp = client.toBlocking().exchange(req, Argument.listOf(UserCommentDTO.class));
+        assertEquals(OK, rsp.getStatus());
+        assertEquals(1, rsp.body().size());
+        assertEquals(c1.getContent(), rsp.body().get(0).getContent());
+        assertNull(rsp.header("X-Next-Cursor"));
+
+        // -- Get page with invalid cursor
+        try {
+            req = HttpRequest.GET("/users/User1/comments?limit=1&cursor=not-a-cursor");
+            client.toBlocking().exchange(req, String.class);
+            fail("Cursor should be invalid.");
+        } catch (HttpClientResponseException e) {
+            assertEquals("Bad Request", e.getMessage());
+        }
+    }
+
     /**
      * Test POST endpoint for upvoting/downvoting a Comment.
      */
@@ -277,15 +383,22 @@ public class APICommentTest {
         assertEquals(OK, rsp.getStatus());
         assertEquals(1, actual);
 
-        // -- Downvote Comment twice
+        // -- Change the upvote to a downvote
         req = HttpRequest.POST("/comment-posts/" + comment.getId() + "/vote", "down");
-        client.toBlocking().exchange(req);
         rsp = client.toBlocking().exchange(req, Integer.class);
         actual = rsp.body();
         assertNotNull(actual);
         assertEquals(OK, rsp.getStatus());
         assertEquals(-1, actual);
 
+        // -- Downvoting again is rejected
+        try {
+            client.toBlocking().exchange(req, String.class);
+            fail("Repeated vote should be rejected.");
+        } catch (HttpClientResponseException e) {
+            assertEquals("Conflict", e.getMessage());
+        }
+
         // -- Voting on non-existent Comment
         try {
             req = HttpRequest.POST("/comment-posts/0/vote", "up");
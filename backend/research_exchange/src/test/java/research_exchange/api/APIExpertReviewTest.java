@@ -2,6 +2,7 @@ package research_exchange.api;
 
 import io.micronaut.context.env.Environment;
 import io.micronaut.core.type.Argument;
+import io.micronaut.data.exceptions.DataAccessException;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import static io.micronaut.http.HttpStatus.CREATED;
@@ -15,25 +16,31 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.fail;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import research_exchange.forms.CommentForm;
 import research_exchange.forms.ExpertReviewForm;
 import research_exchange.forms.HighlightSectionForm;
 import research_exchange.forms.InlineCommentForm;
 import research_exchange.models.Article;
+import research_exchange.models.CommentPost;
 import research_exchange.models.ExpertReview;
 import research_exchange.models.User;
 import research_exchange.repositories.ArticleRepository;
 import research_exchange.repositories.ExpertReviewRepository;
 import research_exchange.repositories.UserRepository;
+import research_exchange.services.CommentService;
 import research_exchange.services.ExpertReviewService;
+import research_exchange.dto.AnnotationHeatmapDTO;
 import research_exchange.dto.ExpertReviewDTO;
 import research_exchange.dto.HighlightSectionDTO;
 import research_exchange.dto.InlineCommentDTO;
+import research_exchange.dto.PageHeatmapDTO;
 import research_exchange.dto.UserReviewDTO;
 
 /**
@@ -60,6 +67,10 @@ public class APIExpertReviewTest {
     @Inject
     private ExpertReviewService expertReviewService;
 
+    /** Comment service for posting followups. */
+    @Inject
+    private CommentService commentService;
+
     /** Injects root endpoint as http client. */
     @Inject
     @Client("/")
@@ -221,6 +232,46 @@ public class APIExpertReviewTest {
         }
         expertReviews = expertReviewRepository.findAll();
         assertEquals(0, expertReviews.size());
+
+        // -- Posting Expert Review with an Inline Comment that cannot be saved
+        List<HighlightSectionForm> hsForms = new ArrayList<>(2);
+        hsForms.add(new HighlightSectionForm(1, 4, 2, 21));
+        hsForms.add(new HighlightSectionForm(1, 4, 2, null));
+        List<InlineCommentForm> icForms = new ArrayList<>(1);
+        icForms.add(new InlineCommentForm(7, "selected content", "inline comment", hsForms));
+        er = new ExpertReviewForm("User1", "content", "Approved", icForms);
+        try {
+            req = HttpRequest.POST("/articles/" + a.getId() + "/review-article", er);
+            client.toBlocking().exchange(req, String.class);
+            fail("Expert Review with an invalid Highlight Section should not be inserted.");
+        } catch (HttpClientResponseException e) {
+            assertEquals("Unprocessable Entity", e.getMessage());
+        }
+        expertReviews = expertReviewRepository.findAll();
+        assertEquals(0, expertReviews.size());
+        assertEquals(0, articleRepository.findById(a.getId()).get().getApprovedReviews());
+
+        // -- Posting a second Expert Review from the same User
+        expertReviewService.postExpertReview(a.getId(), new ExpertReviewForm("User1", "content", "Approved", null));
+        er = new ExpertReviewForm("User1", "content 2", "Rejected", null);
+        try {
+            req = HttpRequest.POST("/articles/" + a.getId() + "/review-article", er);
+            client.toBlocking().exchange(req, String.class);
+            fail("Second Expert Review from the same User should not be inserted.");
+        } catch (HttpClientResponseException e) {
+            assertEquals("Unprocessable Entity", e.getMessage());
+        }
+        expertReviews = expertReviewRepository.findAll();
+        assertEquals(1, expertReviews.size());
+
+        // -- Saving a second Expert Review from the same User past the check
+        User u1 = userRepository.findByUsername("User1").get();
+        try {
+            expertReviewRepository.save(new ExpertReview(new CommentPost(u1, a, 0, "content 3"), "Approved"));
+            fail("Unique constraint should reject a second Expert Review from the same User.");
+        } catch (DataAccessException e) {
+            assertEquals(1, expertReviewRepository.findAll().size());
+        }
     }
 
     /**
@@ -285,6 +336,56 @@ public class APIExpertReviewTest {
         }
     }
 
+    /**
+     * Test that the followups of several Expert Reviews and their Inline Comments
+     * are attached to the right threads.
+     */
+    @Test
+    public void testGetArticleExpertReviewsWithFollowups() {
+        Article a = articleRepository.findAll().get(0);
+
+        // Post Expert Review with an Inline Comment from User 1 and one without from User 2
+        List<HighlightSectionForm> hsForms = new ArrayList<>(1);
+        hsForms.add(new HighlightSectionForm(1, 4, 2, 21));
+        List<InlineCommentForm> icForms = new ArrayList<>(1);
+        icForms.add(new InlineCommentForm(7, "selected content", "inline comment from user 1", hsForms));
+        ExpertReviewDTO er1 = expertReviewService.postExpertReview(a.getId(),
+                new ExpertReviewForm("User1", "content 1", "Approved", icForms));
+        ExpertReviewDTO er2 = expertReviewService.postExpertReview(a.getId(),
+                new ExpertReviewForm("User2", "content 2", "Needs Work", null));
+        Long icId = er1.getInlineComments().get(0).getId();
+
+        // Followup on Expert Review 1, its Inline Comment, and Expert Review 2
+        commentService.postComment(a.getId(), new CommentForm(er1.getId(), er1.getId(), "User3", "followup 1"));
+        commentService.postComment(a.getId(), new CommentForm(icId, icId, "User3", "inline followup"));
+        commentService.postComment(a.getId(), new CommentForm(er2.getId(), er2.getId(), "User3", "followup 2"));
+
+        HttpRequest<?> req = HttpRequest.GET("/articles/" + a.getId() + "/expert-reviews");
+        HttpResponse<List<ExpertReviewDTO>> rsp = client.toBlocking().exchange(req,
+                Argument.listOf(ExpertReviewDTO.class));
+        List<ExpertReviewDTO> expertReviews = rsp.body();
+
+        assertEquals(OK, rsp.getStatus());
+        assertNotNull(expertReviews);
+        assertEquals(2, expertReviews.size());
+
+        for (ExpertReviewDTO review : expertReviews) {
+            assertEquals(1, review.getFollowups().size());
+            if (review.getId().equals(er1.getId())) {
+                assertEquals("followup 1", review.getFollowups().get(0).getContent());
+                assertEquals(1, review.getInlineComments().size());
+                InlineCommentDTO ic = review.getInlineComments().get(0);
+                assertEquals(1, ic.getFollowups().size());
+                assertEquals("inline followup", ic.getFollowups().get(0).getContent());
+                assertEquals(1, ic.getHighlightSections().size());
+            } else {
+                assertEquals(er2.getId(), review.getId());
+                assertEquals("followup 2", review.getFollowups().get(0).getContent());
+                assertEquals(0, review.getInlineComments().size());
+            }
+        }
+    }
+
     /**
      * Test endpoint for getting all Expert Reviews from Article.
      */
@@ -318,6 +419,37 @@ public class APIExpertReviewTest {
         }
     }
 
+    /**
+     * Test that the review tally of an Article follows posted and edited Expert
+     * Reviews, and approves the Article on the third approval.
+     */
+    @Test
+    public void testReviewTallyApprovesArticle() {
+        Long articleId = articleRepository.findAll().get(0).getId();
+
+        // -- Post 2 approving and 1 needs work Expert Reviews
+        expertReviewService.postExpertReview(articleId, new ExpertReviewForm("User1", "content 1", "Approved", null));
+        expertReviewService.postExpertReview(articleId, new ExpertReviewForm("User2", "content 2", "Approved", null));
+        ExpertReviewDTO needsWork = expertReviewService.postExpertReview(articleId,
+                new ExpertReviewForm("User3", "content 3", "Needs Work", null));
+
+        Article a = articleRepository.findById(articleId).get();
+        assertEquals(2, a.getApprovedReviews());
+        assertEquals(1, a.getNeedsWorkReviews());
+        assertEquals(0, a.getRejectedReviews());
+        assertEquals(0, a.getApproved());
+
+        // -- Edit the needs work Expert Review to approving
+        ExpertReviewDTO edited = expertReviewService.editExpertReviewStatus("User3", needsWork.getId(), "Approved");
+        assertEquals("Approved", edited.getStatus());
+
+        a = articleRepository.findById(articleId).get();
+        assertEquals(3, a.getApprovedReviews());
+        assertEquals(0, a.getNeedsWorkReviews());
+        assertEquals(0, a.getRejectedReviews());
+        assertEquals(1, a.getApproved());
+    }
+
     /**
      * Test endpoint for getting all Expert Reviews from User.
      */
@@ -365,4 +497,159 @@ public class APIExpertReviewTest {
         }
     }
 
+    /**
+     * Test endpoint for getting the Inline Comments highlighted within an area of
+     * a page.
+     */
+    @Test
+    public void testGetPageInlineComments() {
+        Article a = articleRepository.findAll().get(0);
+
+        // Two Inline Comments far apart on page 3 and one on page 4
+        List<HighlightSectionForm> topForms = new ArrayList<>(2);
+        topForms.add(new HighlightSectionForm(10, 10, 50, 20));
+        topForms.add(new HighlightSectionForm(10, 30, 80, 20));
+        List<HighlightSectionForm> bottomForms = new ArrayList<>(1);
+        bottomForms.add(new HighlightSectionForm(400, 600, 100, 20));
+        List<HighlightSectionForm> nextPageForms = new ArrayList<>(1);
+        nextPageForms.add(new HighlightSectionForm(10, 10, 50, 20));
+        List<InlineCommentForm> icForms = new ArrayList<>(3);
+        icForms.add(new InlineCommentForm(3, "top", "inline comment at the top", topForms));
+        icForms.add(new InlineCommentForm(3, "bottom", "inline comment at the bottom", bottomForms));
+        icForms.add(new InlineCommentForm(4, "next page", "inline comment on the next page", nextPageForms));
+        expertReviewService.postExpertReview(a.getId(),
+                new ExpertReviewForm("User1", "content 1", "Approved", icForms));
+
+        // -- Area over the top of page 3
+        HttpRequest<?> req = HttpRequest.GET("/articles/" + a.getId() + "/pages/3/inline-comments?x=0&y=0&width=200"
+                + "&height=200");
+        HttpResponse<List<InlineCommentDTO>> rsp = client.toBlocking().exchange(req,
+                Argument.listOf(InlineCommentDTO.class));
+        assertEquals(OK, rsp.getStatus());
+        assertEquals(1, rsp.body().size());
+        assertEquals("inline comment at the top", rsp.body().get(0).getContent());
+        assertEquals(2, rsp.body().get(0).getHighlightSections().size());
+        assertEquals("User1", rsp.body().get(0).getAuthor().getUsername());
+
+        // -- A point on the edge of the bottom highlight
+        req = HttpRequest.GET("/articles/" + a.getId() + "/pages/3/inline-comments?x=500&y=620&width=0&height=0");
+        rsp = client.toBlocking().exchange(req, Argument.listOf(InlineCommentDTO.class));
+        assertEquals(1, rsp.body().size());
+        assertEquals("inline comment at the bottom", rsp.body().get(0).getContent());
+
+        // -- The whole of page 3, and an area with nothing highlighted
+        req = HttpRequest.GET("/articles/" + a.getId() + "/pages/3/inline-comments");
+        rsp = client.toBlocking().exchange(req, Argument.listOf(InlineCommentDTO.class));
+        assertEquals(2, rsp.body().size());
+
+        req = HttpRequest.GET("/articles/" + a.getId() + "/pages/3/inline-comments?x=200&y=200&width=50&height=50");
+        rsp = client.toBlocking().exchange(req, Argument.listOf(InlineCommentDTO.class));
+        assertEquals(0, rsp.body().size());
+
+        // -- A new review shows up on the page after the index was built
+        List<HighlightSectionForm> laterForms = new ArrayList<>(1);
+        laterForms.add(new HighlightSectionForm(100, 100, 20, 20));
+        List<InlineCommentForm> laterIcForms = new ArrayList<>(1);
+        laterIcForms.add(new InlineCommentForm(3, "later", "inline comment from user 2", laterForms));
+        expertReviewService.postExpertReview(a.getId(),
+                new ExpertReviewForm("User2", "content 2", "Needs Work", laterIcForms));
+
+        req = HttpRequest.GET("/articles/" + a.getId() + "/pages/3/inline-comments?x=0&y=0&width=200&height=200");
+        rsp = client.toBlocking().exchange(req, Argument.listOf(InlineCommentDTO.class));
+        assertEquals(2, rsp.body().size());
+
+        // -- Area with a negative size, or only partly given
+        try {
+            req = HttpRequest.GET("/articles/" + a.getId() + "/pages/3/inline-comments?x=0&y=0&width=-1&height=5");
+            client.toBlocking().exchange(req, String.class);
+            fail("Area with a negative width should be rejected.");
+        } catch (HttpClientResponseException e) {
+            assertEquals("Bad Request", e.getMessage());
+        }
+        try {
+            req = HttpRequest.GET("/articles/" + a.getId() + "/pages/3/inline-comments?x=0&y=0");
+            client.toBlocking().exchange(req, String.class);
+            fail("Area without a width and height should be rejected.");
+        } catch (HttpClientResponseException e) {
+            assertEquals("Bad Request", e.getMessage());
+        }
+
+        // -- Page of a non-existent Article
+        try {
+            req = HttpRequest.GET("/articles/0/pages/3/inline-comments");
+            client.toBlocking().exchange(req, String.class);
+            fail("Article post should not exist.");
+        } catch (HttpClientResponseException e) {
+            assertEquals("Not Found", e.getMessage());
+        }
+    }
+
+    /**
+     * Test endpoint for getting the annotation heatmap of an Article, before and
+     * after more Expert Reviews are posted.
+     */
+    @Test
+    public void testGetAnnotationHeatmap() {
+        Article a = articleRepository.findAll().get(0);
+
+        // -- Article with no Inline Comments
+        HttpRequest<?> req = HttpRequest.GET("/articles/" + a.getId() + "/annotation-heatmap");
+        HttpResponse<AnnotationHeatmapDTO> rsp = client.toBlocking().exchange(req, AnnotationHeatmapDTO.class);
+        assertEquals(OK, rsp.getStatus());
+        assertEquals(0, rsp.body().getPages().size());
+
+        // -- Inline Comment over the first two cells of page 2, with two lines
+        // highlighted in the same cells
+        List<HighlightSectionForm> hsForms = new ArrayList<>(2);
+        hsForms.add(new HighlightSectionForm(10, 10, 80, 10));
+        hsForms.add(new HighlightSectionForm(10, 25, 80, 10));
+        List<InlineCommentForm> icForms = new ArrayList<>(1);
+        icForms.add(new InlineCommentForm(2, "selected content", "inline comment from user 1", hsForms));
+        expertReviewService.postExpertReview(a.getId(),
+                new ExpertReviewForm("User1", "content 1", "Approved", icForms));
+
+        rsp = client.toBlocking().exchange(req, AnnotationHeatmapDTO.class);
+        AnnotationHeatmapDTO heatmap = rsp.body();
+        assertEquals(a.getId(), heatmap.getArticleId());
+        assertEquals(50, heatmap.getCellSize());
+        assertEquals(1, heatmap.getPages().size());
+        PageHeatmapDTO page = heatmap.getPages().get(0);
+        assertEquals(2, page.getPageNum());
+        assertEquals(2, page.getColumns());
+        assertEquals(1, page.getRows());
+        assertArrayEquals(new int[] { 1, 1 }, page.getCounts());
+        assertEquals(1, page.getMax());
+
+        // -- Counts are updated as another review is posted
+        List<HighlightSectionForm> secondForms = new ArrayList<>(1);
+        secondForms.add(new HighlightSectionForm(60, 10, 20, 20));
+        List<HighlightSectionForm> laterPageForms = new ArrayList<>(1);
+        laterPageForms.add(new HighlightSectionForm(0, 120, 10, 10));
+        List<InlineCommentForm> secondIcForms = new ArrayList<>(2);
+        secondIcForms.add(new InlineCommentForm(2, "selected content", "inline comment from user 2", secondForms));
+        secondIcForms.add(new InlineCommentForm(5, "selected content", "later inline comment", laterPageForms));
+        expertReviewService.postExpertReview(a.getId(),
+                new ExpertReviewForm("User2", "content 2", "Needs Work", secondIcForms));
+
+        heatmap = client.toBlocking().exchange(req, AnnotationHeatmapDTO.class).body();
+        assertEquals(2, heatmap.getPages().size());
+        page = heatmap.getPages().get(0);
+        assertArrayEquals(new int[] { 1, 2 }, page.getCounts());
+        assertEquals(2, page.getMax());
+        page = heatmap.getPages().get(1);
+        assertEquals(5, page.getPageNum());
+        assertEquals(1, page.getColumns());
+        assertEquals(3, page.getRows());
+        assertArrayEquals(new int[] { 0, 0, 1 }, page.getCounts());
+
+        // -- Heatmap of non-existent Article post
+        try {
+            req = HttpRequest.GET("/articles/0/annotation-heatmap");
+            client.toBlocking().exchange(req, String.class);
+            fail("Article post should not exist.");
+        } catch (HttpClientResponseException e) {
+            assertEquals("Not Found", e.getMessage());
+        }
+    }
+
 }
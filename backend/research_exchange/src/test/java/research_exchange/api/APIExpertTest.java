@@ -4,6 +4,7 @@ import static io.micronaut.http.HttpStatus.OK;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -16,12 +17,14 @@ import io.micronaut.http.client.HttpClient;
 import io.micronaut.http.client.annotation.Client;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import jakarta.inject.Inject;
+import research_exchange.dto.UserInfoDTO;
 import research_exchange.models.Expert;
 import research_exchange.models.ExpertRequest;
 import research_exchange.models.User;
 import research_exchange.repositories.ExpertRepository;
 import research_exchange.repositories.ExpertRequestRepository;
 import research_exchange.repositories.UserRepository;
+import research_exchange.services.ExpertFieldCache;
 
 @MicronautTest(environments = Environment.ORACLE_CLOUD)
 public class APIExpertTest {
@@ -36,6 +39,10 @@ public class APIExpertTest {
     @Inject
     private ExpertRequestRepository expertRequestRepository;
 
+    /** For looking up the fields of Experts. */
+    @Inject
+    private ExpertFieldCache expertFieldCache;
+
     /** Injects root endpoint as http client. */
     @Inject
     @Client("/")
@@ -96,4 +103,30 @@ public class APIExpertTest {
         assertEquals(OK, rspOfDeleteExperts.getStatus());
     }
 
+    /**
+     * Test that the cached field of an Expert is replaced when the Expert is
+     * removed and assigned again.
+     */
+    @Test
+    public void testExpertFieldCacheInvalidation() {
+        client.toBlocking().exchange(HttpRequest.DELETE("/experts/test"), HttpResponse.class);
+        client.toBlocking().exchange(HttpRequest.PUT("/experts/", new Expert("test", "Physics")),
+                HttpResponse.class);
+
+        HttpRequest<?> getInfo = HttpRequest.GET("/users/test/info");
+        UserInfoDTO info = client.toBlocking().exchange(getInfo, UserInfoDTO.class).body();
+        assertEquals("Expert in Physics", info.getRole());
+
+        client.toBlocking().exchange(HttpRequest.DELETE("/experts/test"), HttpResponse.class);
+        client.toBlocking().exchange(HttpRequest.PUT("/experts/", new Expert("test", "Chemistry")),
+                HttpResponse.class);
+
+        info = client.toBlocking().exchange(getInfo, UserInfoDTO.class).body();
+        assertEquals("Expert in Chemistry", info.getRole());
+
+        // Batch lookup skips usernames that are not Experts
+        Map<String, String> fields = expertFieldCache.getFields(List.of("username", "test", "nobody"));
+        assertEquals(Map.of("username", "Computer Science", "test", "Chemistry"), fields);
+    }
+
 }
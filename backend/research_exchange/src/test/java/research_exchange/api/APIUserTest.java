@@ -1,30 +1,70 @@
 package research_exchange.api;
 
 import static io.micronaut.http.HttpStatus.OK;
+import static io.micronaut.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static io.micronaut.http.HttpStatus.UNAUTHORIZED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
 
+import java.time.Duration;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 
 import com.github.dockerjava.zerodep.shaded.org.apache.hc.core5.http.HttpStatus;
 
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.PlainJWT;
+
+import org.apache.commons.codec.binary.Hex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micronaut.context.env.Environment;
+import io.micronaut.core.async.publisher.Publishers;
 import io.micronaut.core.type.Argument;
+import io.micronaut.http.HttpHeaders;
 import io.micronaut.http.HttpRequest;
 import io.micronaut.http.HttpResponse;
 import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.MutableHttpResponse;
 import io.micronaut.http.client.HttpClient;
 import io.micronaut.http.client.annotation.Client;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.http.client.multipart.MultipartBody;
+import io.micronaut.security.authentication.Authentication;
+import io.micronaut.security.authentication.AuthenticationException;
+import io.micronaut.security.authentication.UsernamePasswordCredentials;
+import io.micronaut.security.token.jwt.render.BearerAccessRefreshToken;
 import io.micronaut.test.extensions.junit5.annotation.MicronautTest;
 import jakarta.inject.Inject;
+import reactor.core.publisher.Mono;
+import research_exchange.authentication.AuthenticationProviderUserPassword;
+import research_exchange.authentication.LoginAddressResolver;
+import research_exchange.authentication.LoginCapacityFilter;
+import research_exchange.authentication.ValidatedTokenCache;
 import research_exchange.dto.UserInfoDTO;
 import research_exchange.models.Expert;
 import research_exchange.models.User;
 import research_exchange.repositories.ExpertRepository;
 import research_exchange.repositories.UserRepository;
+import research_exchange.services.Identity;
+import research_exchange.services.IdentityResolver;
+import research_exchange.services.LoginThrottle;
+import research_exchange.services.PasswordHash;
+import research_exchange.services.PasswordHashAlgorithm;
+import research_exchange.services.PasswordHashRegistry;
+import research_exchange.services.PasswordHasher;
+import research_exchange.services.Pbkdf2Sha1HashAlgorithm;
+import research_exchange.services.Pbkdf2Sha256HashAlgorithm;
+import research_exchange.services.UserService;
 
 @MicronautTest(environments = Environment.ORACLE_CLOUD)
 public class APIUserTest {
@@ -36,6 +76,26 @@ public class APIUserTest {
     @Inject
     private ExpertRepository expertRepository;
 
+    /** For resolving the identities of Users. */
+    @Inject
+    private IdentityResolver identityResolver;
+
+    /** For hashing passwords the way signup does. */
+    @Inject
+    private UserService userService;
+
+    /** For hashing passwords off the request threads. */
+    @Inject
+    private PasswordHasher passwordHasher;
+
+    /** For the client address of a login. */
+    @Inject
+    private LoginAddressResolver addressResolver;
+
+    /** For revoking the tokens of a User. */
+    @Inject
+    private ValidatedTokenCache validatedTokenCache;
+
     /** Injects root endpoint as http client. */
     @Inject
     @Client("/")
@@ -96,4 +156,247 @@ public class APIUserTest {
         assertEquals(OK, rsp.getStatus());
     }
 
+    /**
+     * Test that identities are resolved in batches and dropped when the role of
+     * the User changes.
+     */
+    @Test
+    public void testIdentityResolution() {
+        User user = userRepository.findByUsername("test").get();
+
+        Map<String, Identity> identities = identityResolver.resolveAll(List.of("test", "nobody"));
+        assertEquals(1, identities.size());
+        assertEquals(user.getId().longValue(), identities.get("test").getId());
+        assertEquals("name", identities.get("test").getName());
+        assertEquals("expert", identities.get("test").getRole());
+
+        // The token ID is used as is, without looking the User up
+        assertEquals(Optional.of(42L), identityResolver.resolveId("nobody", 42L));
+        assertEquals(Optional.empty(), identityResolver.resolveId("nobody", null));
+
+        // Removing the Expert changes the role of the User
+        HttpRequest<?> deleteExpert = HttpRequest.DELETE("/experts/test");
+        client.toBlocking().exchange(deleteExpert, HttpResponse.class);
+        assertEquals("User", identityResolver.resolve("test").get().getRole());
+    }
+
+    /**
+     * Test that a list of Users is resolved at once and every unknown username is
+     * reported together.
+     */
+    @Test
+    public void testRequireAllIdentities() {
+        Map<String, Identity> identities = identityResolver.requireAll(List.of("test"));
+        assertEquals("name", identities.get("test").getName());
+
+        try {
+            identityResolver.requireAll(List.of("ghost1", "test", "ghost2", "ghost1"));
+            fail("Unknown usernames should be rejected.");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Users do not exist: ghost1, ghost2.", e.getMessage());
+        }
+    }
+
+    /**
+     * Test that logins hash the password on the hashing pool and only succeed
+     * with the right password.
+     */
+    @Test
+    public void testLoginHashing() throws Exception {
+        byte[] salt = "login-salt".getBytes();
+        String hashed = userService.hashPassword("secret", salt);
+        assertEquals(hashed, passwordHasher.hash("secret", salt).get());
+        assertFalse(passwordHasher.isSaturated());
+
+        User user = new User("login name", "login", "login@test.com", hashed, salt, "User");
+        userRepository.save(user);
+        assertTrue(userService.verifyPassword(user, "secret"));
+        assertFalse(userService.verifyPassword(user, "wrong"));
+
+        HttpRequest<?> login = HttpRequest.POST("/login", new UsernamePasswordCredentials("login", "secret"));
+        HttpResponse<BearerAccessRefreshToken> rsp = client.toBlocking().exchange(login,
+                BearerAccessRefreshToken.class);
+        assertEquals(OK, rsp.getStatus());
+        assertEquals("login", rsp.body().getUsername());
+
+        HttpRequest<?> badLogin = HttpRequest.POST("/login", new UsernamePasswordCredentials("login", "wrong"));
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(badLogin, BearerAccessRefreshToken.class));
+        assertEquals(UNAUTHORIZED, e.getStatus());
+    }
+
+    /**
+     * Test that a password hashed before hashes were versioned still logs in,
+     * and is upgraded to the current algorithm afterwards.
+     */
+    @Test
+    public void testPasswordHashUpgrade() throws Exception {
+        byte[] salt = "legacy-salt".getBytes();
+        String legacy = Hex.encodeHexString(new Pbkdf2Sha1HashAlgorithm().hash("secret", salt, 65536, 128));
+        User user = new User("legacy name", "legacy", "legacy@test.com", legacy, salt, "User");
+        userRepository.save(user);
+
+        HttpRequest<?> login = HttpRequest.POST("/login", new UsernamePasswordCredentials("legacy", "secret"));
+        HttpResponse<BearerAccessRefreshToken> rsp = client.toBlocking().exchange(login,
+                BearerAccessRefreshToken.class);
+        assertEquals(OK, rsp.getStatus());
+
+        // The upgrade happens in the background after the login
+        String stored = legacy;
+        for (int i = 0; i < 50 && stored.equals(legacy); i++) {
+            Thread.sleep(100);
+            stored = userRepository.findPasswordByUsername("legacy").get();
+        }
+        PasswordHash upgraded = PasswordHash.parse(stored);
+        assertEquals(Pbkdf2Sha256HashAlgorithm.NAME, upgraded.getAlgorithm());
+        assertEquals(256, upgraded.getKeyLength());
+
+        // The upgraded hash still logs in
+        assertEquals(OK, client.toBlocking().exchange(login, BearerAccessRefreshToken.class).getStatus());
+    }
+
+    /**
+     * Test that a login the hashing queue turns away is answered with a 503
+     * rather than a 401.
+     */
+    @Test
+    public void testLoginSaturated() {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHashAlgorithm blocking = new PasswordHashAlgorithm() {
+            @Override
+            public String getName() {
+                return "blocking";
+            }
+
+            @Override
+            public byte[] hash(String password, byte[] salt, int iterations, int keyLength) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new byte[0];
+            }
+        };
+        PasswordHasher saturated = new PasswordHasher(
+                new PasswordHashRegistry(List.of(blocking), "blocking", 1, 1), userRepository,
+                new SimpleMeterRegistry(), 1, 1);
+        LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), 100, Duration.ofMinutes(30), 30, 30,
+                5, 5, 3, Duration.ofSeconds(1), Duration.ofMinutes(15));
+        try {
+            // One hash runs and one waits, so the queue is full
+            saturated.hash("secret", "salt".getBytes());
+            saturated.hash("secret", "salt".getBytes());
+            assertTrue(saturated.isSaturated());
+
+            MutableHttpRequest<?> login = HttpRequest.POST("/login",
+                    new UsernamePasswordCredentials("test", "password"));
+            AuthenticationProviderUserPassword provider = new AuthenticationProviderUserPassword(userRepository,
+                    saturated, throttle, addressResolver);
+            assertThrows(AuthenticationException.class, () -> Mono.from(provider.authenticate(login,
+                    new UsernamePasswordCredentials("test", "password"))).block());
+            assertTrue(login.getAttribute(LoginCapacityFilter.SATURATED_ATTRIBUTE).isPresent());
+
+            // The 401 of the failed login is answered as a 503
+            LoginCapacityFilter filter = new LoginCapacityFilter(passwordHasher, 1);
+            MutableHttpResponse<?> rsp = Mono.from(filter.doFilter(login,
+                    request -> Publishers.just(HttpResponse.unauthorized()))).block();
+            assertEquals(SERVICE_UNAVAILABLE, rsp.getStatus());
+            assertEquals("1", rsp.getHeaders().get(HttpHeaders.RETRY_AFTER));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    /**
+     * Test that attempts are limited per address and per username at an
+     * address, and that failed logins back off until the username logs in
+     * successfully from that address.
+     */
+    @Test
+    public void testLoginThrottle() {
+        LoginThrottle throttle = new LoginThrottle(new SimpleMeterRegistry(), 100, Duration.ofMinutes(30), 3, 1,
+                2, 1, 1, Duration.ofMinutes(1), Duration.ofMinutes(10));
+
+        // The username runs out of attempts at one address before the address
+        // does, and keeps its attempts at other addresses
+        assertTrue(throttle.tryAcquireUsername("10.0.0.1", "test").isZero());
+        assertTrue(throttle.tryAcquireUsername("10.0.0.1", "test").isZero());
+        assertFalse(throttle.tryAcquireUsername("10.0.0.1", "test").isZero());
+        assertTrue(throttle.tryAcquireUsername("10.0.0.2", "test").isZero());
+        assertTrue(throttle.tryAcquireUsername("10.0.0.1", "other").isZero());
+
+        // The first failure is free, the second backs off
+        throttle.recordFailure("10.0.0.1", "other");
+        assertTrue(throttle.tryAcquireAddress("10.0.0.1").isZero());
+        throttle.recordFailure("10.0.0.1", "other");
+        Duration wait = throttle.tryAcquireAddress("10.0.0.1");
+        assertTrue(wait.compareTo(Duration.ofSeconds(50)) > 0);
+        assertTrue(throttle.tryAcquireAddress("10.0.0.2").isZero());
+
+        // The failures do not lock the username out from other addresses
+        assertFalse(throttle.tryAcquireUsername("10.0.0.1", "other").isZero());
+        assertTrue(throttle.tryAcquireUsername("10.0.0.2", "other").isZero());
+
+        // Logging in clears the backoff of the username but not the address
+        throttle.recordSuccess("10.0.0.1", "other");
+        assertTrue(throttle.tryAcquireUsername("10.0.0.1", "other").isZero());
+        assertFalse(throttle.tryAcquireAddress("10.0.0.1").isZero());
+    }
+
+    /**
+     * Test that a token works until it is logged out, and that revoking a User
+     * turns away the tokens they already have.
+     */
+    @Test
+    public void testTokenRevocation() {
+        byte[] salt = "token-salt".getBytes();
+        userRepository.save(new User("token name", "token", "token@test.com",
+                userService.hashPassword("secret", salt), salt, "User"));
+        HttpRequest<?> login = HttpRequest.POST("/login", new UsernamePasswordCredentials("token", "secret"));
+
+        // Logging out revokes the token that was used
+        String first = client.toBlocking().retrieve(login, BearerAccessRefreshToken.class).getAccessToken();
+        HttpResponse<?> rsp = client.toBlocking().exchange(HttpRequest.POST("/logout", "").bearerAuth(first));
+        assertEquals(OK, rsp.getStatus());
+        HttpClientResponseException e = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(HttpRequest.POST("/logout", "").bearerAuth(first)));
+        assertEquals(UNAUTHORIZED, e.getStatus());
+
+        // Revoking the User turns away every token issued to them so far
+        String second = client.toBlocking().retrieve(login, BearerAccessRefreshToken.class).getAccessToken();
+        validatedTokenCache.revokeUser("token");
+        e = assertThrows(HttpClientResponseException.class,
+                () -> client.toBlocking().exchange(HttpRequest.POST("/logout", "").bearerAuth(second)));
+        assertEquals(UNAUTHORIZED, e.getStatus());
+    }
+
+    /**
+     * Test that revocations are kept however many there are, and cover the
+     * tokens issued up to the second of the revocation.
+     */
+    @Test
+    public void testTokenRevocationKept() {
+        ValidatedTokenCache cache = new ValidatedTokenCache(new SimpleMeterRegistry(), 1, 3600);
+        long before = System.currentTimeMillis() / 1000 * 1000;
+        for (int i = 0; i < 100; i++) {
+            cache.revokeUser("revoked" + i);
+        }
+        long after = (System.currentTimeMillis() / 1000 + 1) * 1000;
+
+        assertFalse(cache.put(plainToken("revoked0", before), Authentication.build("revoked0")));
+        assertFalse(cache.put(plainToken("revoked99", before), Authentication.build("revoked99")));
+        assertTrue(cache.put(plainToken("revoked0", after), Authentication.build("revoked0")));
+        assertTrue(cache.put(plainToken("other", before), Authentication.build("other")));
+    }
+
+    /** An unsigned token for a User, issued at the given epoch milliseconds. */
+    private static String plainToken(String username, long issuedAt) {
+        return new PlainJWT(new JWTClaimsSet.Builder()
+                .subject(username)
+                .issueTime(new Date(issuedAt))
+                .expirationTime(new Date(issuedAt + 3600_000))
+                .build()).serialize();
+    }
+
 }
@@ -0,0 +1,34 @@
+package research_exchange.api;
+
+import io.micronaut.test.context.TestContext;
+import io.micronaut.test.context.TestExecutionListener;
+import jakarta.inject.Singleton;
+import research_exchange.services.IdentityResolver;
+
+/**
+ * Drops every cached identity before each test sets up its Users, so the
+ * identities of Users deleted by an earlier test are never resolved.
+ *
+ * @author Tyrone Wu
+ */
+@Singleton
+public class IdentityResolverReset implements TestExecutionListener {
+
+    /** The cached identities. */
+    private final IdentityResolver identityResolver;
+
+    /**
+     * Setup the Identity Resolver into the listener.
+     *
+     * @param identityResolver the Identity Resolver
+     */
+    public IdentityResolverReset(IdentityResolver identityResolver) {
+        this.identityResolver = identityResolver;
+    }
+
+    @Override
+    public void beforeSetupTest(TestContext testContext) {
+        identityResolver.invalidateAll();
+    }
+
+}
@@ -15,8 +15,11 @@ export default function Vote({ post, compressed, article }: Props) {
   const [score, setScore] = useState(post.score);
 
   async function vote(which: "up" | "down") {
-    await makeVote(post.id, which, article ? "articles" : "comment-posts", getAuthToken());
-    setScore(score + (which === "up" ? 1 : -1));
+    const res = await makeVote(post.id, which, article ? "articles" : "comment-posts", getAuthToken());
+    // Repeated votes are rejected, so only show the score the server counted
+    if (res.ok) {
+      setScore(await res.json());
+    }
   }
 
   return compressed ? (
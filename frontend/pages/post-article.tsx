@@ -56,7 +56,6 @@ const PostArticle: NextPage = () => {
     const articlePdf = data.articlePdf[0];
 
     const formData = new FormData();
-    formData.append("articlePdf", articlePdf, articlePdf.name);
     formData.append("tags", tags.join(","));
     formData.append("authors", authors.join(","));
     formData.append("extraLinks", extraLinks.join(","));
@@ -64,6 +63,9 @@ const PostArticle: NextPage = () => {
       const [k, v] = x as any;
       formData.append(k, v);
     });
+    // The PDF is streamed to storage as it arrives, so it has to come after
+    // every other field
+    formData.append("articlePdf", articlePdf, articlePdf.name);
     const res = await postArticle(formData, getAuthToken());
     if (res.ok) {
       const newArticleId = await res.text();